@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.model.util;
+
+import static java.util.Arrays.asList;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.eclipse.protobuf.junit.core.IntegrationTestModule.integrationTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.emf.ecore.resource.Resource;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.inject.Inject;
+
+/**
+ * Tests for <code>{@link ImportGraph#closureOf(Resource)}</code>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ImportGraph_closureOf_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(integrationTestModule());
+
+  @Inject private ImportGraph importGraph;
+
+  // // Create file C.proto
+  //
+  // syntax = 'proto2';
+
+  // // Create file B.proto
+  //
+  // syntax = 'proto2';
+  //
+  // import "C.proto";
+
+  // syntax = "proto2";
+  //
+  // import "B.proto";
+  @Test public void should_return_direct_and_indirect_imports() {
+    Collection<Resource> closure = importGraph.closureOf(xtext.root().eResource());
+    assertThat(fileNamesOf(closure), equalTo(asList("B.proto", "C.proto")));
+  }
+
+  // // Create file C.proto
+  //
+  // syntax = 'proto2';
+
+  // // Create file B.proto
+  //
+  // syntax = 'proto2';
+  //
+  // import "C.proto";
+
+  // syntax = "proto2";
+  //
+  // import "B.proto";
+  @Test public void should_reuse_closure_if_resources_did_not_change() {
+    Resource resource = xtext.root().eResource();
+    Collection<Resource> closure = importGraph.closureOf(resource);
+    assertThat(importGraph.closureOf(resource), sameInstance(closure));
+  }
+
+  private List<String> fileNamesOf(Collection<Resource> resources) {
+    List<String> fileNames = newArrayList();
+    for (Resource resource : resources) {
+      fileNames.add(resource.getURI().lastSegment());
+    }
+    return fileNames;
+  }
+}
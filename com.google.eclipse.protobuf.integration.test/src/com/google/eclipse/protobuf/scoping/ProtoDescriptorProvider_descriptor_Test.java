@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.scoping;
+
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import static com.google.eclipse.protobuf.junit.core.IntegrationTestModule.integrationTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.inject.Inject;
+
+/**
+ * Tests for <code>{@link ProtoDescriptorProvider#descriptor(String)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ProtoDescriptorProvider_descriptor_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(integrationTestModule());
+
+  @Inject private ProtoDescriptorProvider descriptorProvider;
+
+  @Test public void should_find_descriptor_by_import_URI() {
+    ProtoDescriptor descriptor = descriptorProvider.descriptor("google/protobuf/descriptor.proto");
+    assertThat(descriptor, sameInstance(descriptorProvider.primaryDescriptor()));
+  }
+
+  @Test public void should_find_descriptor_by_resolved_URI() {
+    String location = descriptorProvider.primaryDescriptorLocation().toString();
+    assertThat(descriptorProvider.descriptor(location), sameInstance(descriptorProvider.primaryDescriptor()));
+  }
+
+  @Test public void should_return_same_descriptor_after_warm_up() {
+    descriptorProvider.warmUp();
+    ProtoDescriptor descriptor = descriptorProvider.primaryDescriptor();
+    assertThat(descriptorProvider.primaryDescriptor(), sameInstance(descriptor));
+  }
+
+  @Test public void should_return_null_if_descriptor_is_unknown() {
+    assertThat(descriptorProvider.descriptor("unknown.proto"), nullValue());
+  }
+}
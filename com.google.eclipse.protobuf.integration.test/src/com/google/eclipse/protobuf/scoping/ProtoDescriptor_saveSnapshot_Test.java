@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.scoping;
+
+import static org.eclipse.xtext.nodemodel.util.NodeModelUtils.getNode;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import static com.google.common.io.ByteStreams.copy;
+import static com.google.eclipse.protobuf.junit.core.IntegrationTestModule.integrationTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+import static com.google.eclipse.protobuf.scoping.OptionType.FILE;
+import static com.google.eclipse.protobuf.util.Encodings.UTF_8;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.parser.IParser;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.eclipse.protobuf.model.util.INodes;
+import com.google.eclipse.protobuf.protobuf.MessageField;
+import com.google.inject.Inject;
+
+/**
+ * Tests for <code>{@link ProtoDescriptor#saveSnapshot(OutputStream)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ProtoDescriptor_saveSnapshot_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(integrationTestModule());
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Inject private IParser parser;
+  @Inject private INodes nodes;
+
+  private File descriptorFile;
+  private URI location;
+
+  @Before public void setUp() throws IOException {
+    descriptorFile = new File(folder.getRoot(), "descriptor.proto");
+    location = URI.createFileURI(descriptorFile.getAbsolutePath());
+    InputStream in = ProtoDescriptor.class.getResourceAsStream("/descriptor.proto");
+    OutputStream out = new FileOutputStream(descriptorFile);
+    try {
+      copy(in, out);
+    } finally {
+      in.close();
+      out.close();
+    }
+    saveSnapshot(new ProtoDescriptor("google/protobuf/descriptor.proto", location, parser, nodes, false));
+  }
+
+  @Test public void should_load_descriptor_from_snapshot() {
+    ProtoDescriptor descriptor = new ProtoDescriptor("google/protobuf/descriptor.proto", location, parser, nodes);
+    MessageField option = descriptor.option("optimize_for", FILE);
+    assertThat(option, notNullValue());
+    // elements loaded from a snapshot do not have a node model.
+    assertThat(getNode(option), nullValue());
+    assertThat(descriptor.enumTypeOf(option).getName(), equalTo("OptimizeMode"));
+  }
+
+  @Test public void should_ignore_snapshot_if_descriptor_changed() throws IOException {
+    OutputStream out = new FileOutputStream(descriptorFile);
+    try {
+      out.write("syntax = \"proto2\"; message FileOptions { optional string java_package = 1; }".getBytes(UTF_8));
+    } finally {
+      out.close();
+    }
+    ProtoDescriptor descriptor = new ProtoDescriptor("google/protobuf/descriptor.proto", location, parser, nodes);
+    assertThat(descriptor.option("optimize_for", FILE), nullValue());
+    assertThat(descriptor.option("java_package", FILE), notNullValue());
+  }
+
+  @Test public void should_write_snapshot_to_snapshot_directory_when_parsing_and_load_it_afterwards() {
+    new File(folder.getRoot(), "descriptor.protobin").delete();
+    File snapshotDirectory = new File(folder.getRoot(), "snapshots");
+    ProtoDescriptor parsed = new ProtoDescriptor("google/protobuf/descriptor.proto", location, parser, nodes,
+        snapshotDirectory);
+    assertThat(getNode(parsed.option("optimize_for", FILE)), notNullValue());
+    assertThat(snapshotDirectory.list().length, equalTo(1));
+    ProtoDescriptor loaded = new ProtoDescriptor("google/protobuf/descriptor.proto", location, parser, nodes,
+        snapshotDirectory);
+    MessageField option = loaded.option("optimize_for", FILE);
+    assertThat(getNode(option), nullValue());
+    assertThat(loaded.enumTypeOf(option).getName(), equalTo("OptimizeMode"));
+  }
+
+  private void saveSnapshot(ProtoDescriptor descriptor) throws IOException {
+    OutputStream out = new FileOutputStream(new File(folder.getRoot(), "descriptor.protobin"));
+    try {
+      descriptor.saveSnapshot(out);
+    } finally {
+      out.close();
+    }
+  }
+}
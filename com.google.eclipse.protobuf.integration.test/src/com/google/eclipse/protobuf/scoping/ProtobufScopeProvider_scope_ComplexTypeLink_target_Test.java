@@ -8,6 +8,9 @@
  */
 package com.google.eclipse.protobuf.scoping;
 
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import static com.google.eclipse.protobuf.junit.IEObjectDescriptions.descriptionsIn;
@@ -15,13 +18,17 @@ import static com.google.eclipse.protobuf.junit.core.IntegrationTestModule.integ
 import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
 import static com.google.eclipse.protobuf.junit.matchers.ContainAllNames.containAll;
 
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EReference;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
 import org.eclipse.xtext.scoping.IScope;
 import org.junit.Rule;
 import org.junit.Test;
 
 import com.google.eclipse.protobuf.junit.core.XtextRule;
 import com.google.eclipse.protobuf.protobuf.ComplexTypeLink;
+import com.google.eclipse.protobuf.protobuf.Enum;
 import com.google.eclipse.protobuf.protobuf.MessageField;
 import com.google.inject.Inject;
 
@@ -210,6 +217,72 @@ public class ProtobufScopeProvider_scope_ComplexTypeLink_target_Test {
                                                  "com.google.proto.Contact", ".com.google.proto.Contact"));
   }
 
+  // syntax = "proto2";
+  // package com.google.proto;
+  //
+  // message Contact {
+  //   optional Type type = 1;
+  //
+  //   enum Type {
+  //     PERSONAL = 0;
+  //     BUSINESS = 1;
+  //   }
+  // }
+  //
+  // enum Type {
+  //   PERSONAL = 0;
+  // }
+  @Test public void should_find_closest_Type_by_name() {
+    MessageField field = xtext.find("type", " =", MessageField.class);
+    IScope scope = scopeProvider.scope_ComplexTypeLink_target(typeOf(field), reference);
+    IEObjectDescription description = scope.getSingleElement(QualifiedName.create("Type"));
+    Enum nestedType = xtext.find("Type", " {", Enum.class);
+    assertThat(description.getEObjectOrProxy(), sameInstance((EObject) nestedType));
+  }
+
+  // // Create file types.proto
+  //
+  // syntax = "proto2";
+  // package test.proto;
+  //
+  // enum Type {
+  //   PERSONAL = 0;
+  //   BUSINESS = 1;
+  // }
+
+  // syntax = "proto2";
+  // package com.google.proto;
+  //
+  // import "types.proto";
+  //
+  // message Contact {
+  //   optional test.proto.Type type = 1;
+  // }
+  @Test public void should_find_imported_Type_by_name() {
+    MessageField field = xtext.find("type", " =", MessageField.class);
+    IScope scope = scopeProvider.scope_ComplexTypeLink_target(typeOf(field), reference);
+    IEObjectDescription description = scope.getSingleElement(QualifiedName.create("test", "proto", "Type"));
+    assertThat(description.getEObjectOrProxy(), instanceOf(Enum.class));
+    assertThat(scope.getSingleElement(QualifiedName.create("Type")), nullValue());
+  }
+
+  // syntax = "proto2";
+  //
+  // message Contact {
+  //   enum Type {
+  //     PERSONAL = 0;
+  //     BUSINESS = 1;
+  //   }
+  //
+  //   optional Type type = 1;
+  // }
+  @Test public void should_find_Type_by_absolute_name_when_file_has_no_package() {
+    MessageField field = xtext.find("type", " =", MessageField.class);
+    IScope scope = scopeProvider.scope_ComplexTypeLink_target(typeOf(field), reference);
+    IEObjectDescription description = scope.getSingleElement(QualifiedName.create("", "Contact", "Type"));
+    assertThat(description.getEObjectOrProxy(), instanceOf(Enum.class));
+  }
+
   private static ComplexTypeLink typeOf(MessageField field) {
     return (ComplexTypeLink) field.getType();
   }
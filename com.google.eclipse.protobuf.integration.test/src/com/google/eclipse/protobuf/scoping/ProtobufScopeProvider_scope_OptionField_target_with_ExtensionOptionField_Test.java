@@ -95,4 +95,47 @@ public class ProtobufScopeProvider_scope_OptionField_target_with_ExtensionOption
     IScope scope = scopeProvider.scope_OptionField_target(codeOptionField, reference);
     assertThat(descriptionsIn(scope), containAll("active", "com.google.proto.active", ".com.google.proto.active"));
   }
+
+  // // Create file types.proto
+  //
+  // syntax = "proto2";
+  // package com.google.proto;
+  //
+  // message Type {
+  //   optional double code = 1;
+  //   extensions 10 to max;
+  // }
+
+  // // Create file extensions.proto
+  //
+  // syntax = "proto2";
+  // package com.google.proto;
+  //
+  // import "types.proto";
+  //
+  // extend Type {
+  //   optional bool active = 10;
+  // }
+
+  // syntax = "proto2";
+  //
+  // package com.google.proto;
+  //
+  // import 'google/protobuf/descriptor.proto';
+  // import "types.proto";
+  // import "extensions.proto";
+  //
+  // extend google.protobuf.FieldOptions {
+  //   optional Type type = 1000;
+  // }
+  //
+  // message Person {
+  //   optional bool active = 1 [(type).(active) = true];
+  // }
+  @Test public void should_provide_extend_message_fields_declared_in_imported_files() {
+    CustomFieldOption option = xtext.find("type", ")", CustomFieldOption.class);
+    ExtensionOptionField codeOptionField = (ExtensionOptionField) option.getFields().get(0);
+    IScope scope = scopeProvider.scope_OptionField_target(codeOptionField, reference);
+    assertThat(descriptionsIn(scope), containAll("active", "com.google.proto.active", ".com.google.proto.active"));
+  }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.batch;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.eclipse.protobuf.junit.core.AbstractTestModule;
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.eclipse.protobuf.scoping.IFileUriResolver;
+
+/**
+ * Tests for <code>{@link BatchValidator#validate(List, int)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class BatchValidator_validate_Test {
+  // created before the injector, which needs it to resolve imports.
+  private final File importRoot = createTempDir();
+
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule(), new TestModule(importRoot));
+
+  private BatchValidator validator;
+
+  @Before public void setUp() {
+    validator = xtext.injector().getInstance(BatchValidator.class);
+  }
+
+  @After public void tearDown() {
+    for (File file : importRoot.listFiles()) {
+      file.delete();
+    }
+    importRoot.delete();
+  }
+
+  @Test public void should_validate_files_using_import_roots() throws Exception {
+    newFile("types.proto", "syntax = 'proto2'; package test; message Address {}");
+    File person = newFile("person.proto",
+        "syntax = 'proto2'; package test; import 'types.proto'; message Person { optional Address address = 1; }");
+    List<FileIssues> results = validator.validate(singletonList(person), 2);
+    assertThat(results.get(0).errorCount(), equalTo(0));
+  }
+
+  @Test public void should_report_errors_in_same_order_as_files() throws Exception {
+    File valid = newFile("valid.proto", "syntax = 'proto2'; message Valid { optional int32 id = 1; }");
+    File invalid = newFile("invalid.proto",
+        "syntax = 'proto2'; message Invalid { optional int32 id = 1; optional Unknown unknown = 2; }");
+    List<FileIssues> results = validator.validate(asList(invalid, valid), 2);
+    assertThat(results.get(0).file(), equalTo(invalid));
+    assertTrue(results.get(0).errorCount() > 0);
+    assertThat(results.get(1).file(), equalTo(valid));
+    assertThat(results.get(1).errorCount(), equalTo(0));
+  }
+
+  @Test public void should_share_imported_file_among_threads() throws Exception {
+    newFile("types.proto", "syntax = 'proto2'; package test; message Address { optional string street = 1; }");
+    List<File> files = newArrayList();
+    for (int i = 0; i < 20; i++) {
+      files.add(newFile("person" + i + ".proto", "syntax = 'proto2'; package test; import 'types.proto'; "
+          + "message Person" + i + " { optional Address address = 1; }"));
+    }
+    List<FileIssues> results = validator.validate(files, 4);
+    for (FileIssues result : results) {
+      assertThat(result.errorCount(), equalTo(0));
+    }
+  }
+
+  private File newFile(String name, String text) throws IOException {
+    File file = new File(importRoot, name);
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(text.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private static class TestModule extends AbstractTestModule {
+    private final File importRoot;
+
+    TestModule(File importRoot) {
+      this.importRoot = importRoot;
+    }
+
+    @Override protected void configure() {
+      binder().bind(IFileUriResolver.class).toInstance(new ImportRootsFileUriResolver(singletonList(importRoot)));
+    }
+  }
+}
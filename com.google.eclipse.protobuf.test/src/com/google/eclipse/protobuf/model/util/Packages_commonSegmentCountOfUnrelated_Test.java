@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.model.util;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+
+import org.eclipse.xtext.naming.QualifiedName;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.eclipse.protobuf.protobuf.Package;
+import com.google.inject.Inject;
+
+/**
+ * Tests for <code>{@link Packages#commonSegmentCountOfUnrelated(Package, QualifiedName)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class Packages_commonSegmentCountOfUnrelated_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule());
+
+  @Inject private Packages packages;
+
+  private Package p;
+
+  @Before public void setUp() {
+    p = mock(Package.class);
+    when(p.getName()).thenReturn("may.the.force.be.with.you");
+  }
+
+  @Test public void should_return_number_of_common_segments() {
+    assertThat(packages.commonSegmentCountOfUnrelated(p, QualifiedName.create("may", "the", "ring")), equalTo(2));
+  }
+
+  @Test public void should_return_zero_if_packages_do_not_have_common_segments() {
+    assertThat(packages.commonSegmentCountOfUnrelated(p, QualifiedName.create("peace", "dog")), equalTo(0));
+  }
+
+  @Test public void should_return_zero_if_packages_are_related() {
+    assertThat(packages.commonSegmentCountOfUnrelated(p, QualifiedName.create("may", "the", "force")), equalTo(0));
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.model.util;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+import static com.google.eclipse.protobuf.model.util.TagNumberAllocator.Strategy.LOWEST_FREE;
+import static com.google.eclipse.protobuf.model.util.TagNumberAllocator.Strategy.NEXT_FREE;
+import static com.google.eclipse.protobuf.model.util.TagNumberAllocator.Strategy.NEXT_FREE_OUTSIDE_EXTENSION_RANGES;
+import static com.google.eclipse.protobuf.protobuf.ProtobufFactory.eINSTANCE;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.eclipse.protobuf.protobuf.Message;
+import com.google.eclipse.protobuf.protobuf.MessageField;
+import com.google.inject.Inject;
+
+/**
+ * Tests for <code>{@link TagNumberAllocator#nextFree(TagNumberAllocator.Strategy)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class TagNumberAllocator_nextFree_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule());
+
+  @Inject private TagNumberAllocators allocators;
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional string name = 1;
+  //   optional string email = 2;
+  //   oneof contact {
+  //     string phone = 5;
+  //   }
+  // }
+  @Test public void should_return_highest_number_plus_one_including_oneof_members() {
+    TagNumberAllocator allocator = allocators.allocatorFor(xtext.find("Person", Message.class));
+    assertThat(allocator.nextFree(NEXT_FREE), equalTo(6L));
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional string name = 1;
+  //   optional string email = 2;
+  //   optional string phone = 5;
+  // }
+  @Test public void should_return_lowest_number_not_in_use() {
+    TagNumberAllocator allocator = allocators.allocatorFor(xtext.find("Person", Message.class));
+    assertThat(allocator.nextFree(LOWEST_FREE), equalTo(3L));
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional string name = 1;
+  //   extensions 2 to 10;
+  //   extensions 11 to 20;
+  // }
+  @Test public void should_skip_extension_ranges() {
+    TagNumberAllocator allocator = allocators.allocatorFor(xtext.find("Person", Message.class));
+    assertThat(allocator.nextFree(NEXT_FREE_OUTSIDE_EXTENSION_RANGES), equalTo(21L));
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional string name = 1;
+  //   optional string email = 5;
+  //   extensions 6 to max;
+  // }
+  @Test public void should_look_for_gaps_if_numbers_above_the_ones_in_use_are_extension_ranges() {
+    TagNumberAllocator allocator = allocators.allocatorFor(xtext.find("Person", Message.class));
+    assertThat(allocator.nextFree(NEXT_FREE_OUTSIDE_EXTENSION_RANGES), equalTo(2L));
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional string name = 18999;
+  // }
+  @Test public void should_skip_numbers_reserved_by_protocol_buffers() {
+    TagNumberAllocator allocator = allocators.allocatorFor(xtext.find("Person", Message.class));
+    assertThat(allocator.nextFree(NEXT_FREE), equalTo(20000L));
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional string name = 1;
+  //   optional string email = 2;
+  // }
+  @Test public void should_update_numbers_in_use_when_a_number_changes() {
+    TagNumberAllocator allocator = allocators.allocatorFor(xtext.find("Person", Message.class));
+    assertThat(allocator.nextFree(NEXT_FREE), equalTo(3L));
+    xtext.find("email", MessageField.class).setIndex(8);
+    assertThat(allocator.nextFree(NEXT_FREE), equalTo(9L));
+    assertThat(allocator.nextFree(LOWEST_FREE), equalTo(2L));
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional string name = 1;
+  //   optional string email = 2;
+  // }
+  @Test public void should_update_numbers_in_use_when_elements_are_added_or_removed() {
+    Message person = xtext.find("Person", Message.class);
+    TagNumberAllocator allocator = allocators.allocatorFor(person);
+    assertThat(allocator.nextFree(NEXT_FREE), equalTo(3L));
+    MessageField phone = eINSTANCE.createMessageField();
+    phone.setIndex(7);
+    person.getElements().add(phone);
+    assertThat(allocator.nextFree(NEXT_FREE), equalTo(8L));
+    person.getElements().remove(xtext.find("email", MessageField.class));
+    assertThat(allocator.nextFree(LOWEST_FREE), equalTo(2L));
+    person.getElements().remove(phone);
+    assertThat(allocator.nextFree(NEXT_FREE), equalTo(2L));
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.naming;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.eclipse.protobuf.protobuf.Message;
+import com.google.inject.Inject;
+
+/**
+ * Tests for <code>{@link QualifiedNamePools#intern(QualifiedName, EObject)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class QualifiedNamePools_intern_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule());
+
+  @Inject private QualifiedNamePools namePools;
+
+  // syntax = "proto2";
+  //
+  // message Person {}
+  // message Address {}
+  @Test public void should_return_same_instance_for_equal_names_in_same_ResourceSet() {
+    Message person = xtext.find("Person", Message.class);
+    Message address = xtext.find("Address", Message.class);
+    QualifiedName first = namePools.intern(QualifiedName.create("jedis", "Luke"), person);
+    QualifiedName second = namePools.intern(QualifiedName.create("jedis", "Luke"), address);
+    assertThat(second, sameInstance(first));
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {}
+  @Test public void should_share_segments_between_names() {
+    Message person = xtext.find("Person", Message.class);
+    QualifiedName luke = namePools.intern(QualifiedName.create("jedis", "Luke"), person);
+    QualifiedName yoda = namePools.intern(QualifiedName.create(new String("jedis"), "Yoda"), person);
+    assertThat(yoda.getFirstSegment(), sameInstance(luke.getFirstSegment()));
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {}
+  @Test public void should_return_given_name_if_element_does_not_belong_to_ResourceSet() {
+    Message person = xtext.find("Person", Message.class);
+    xtext.resource().getContents().clear();
+    QualifiedName name = QualifiedName.create("jedis", "Luke");
+    assertThat(namePools.intern(name, person), equalTo(name));
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertThat;
+
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.eclipse.protobuf.protobuf.Protobuf;
+import com.google.inject.Inject;
+
+/**
+ * Tests for <code>{@link ApiFingerprints#fingerprintOf(Protobuf)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ApiFingerprints_fingerprintOf_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule());
+
+  @Inject private ApiFingerprints apiFingerprints;
+
+  @Test public void should_ignore_comments_and_whitespace() {
+    String fingerprint = fingerprintOf("message Person { optional string name = 1; }");
+    String other = fingerprintOf("// a person\nmessage Person {\n  optional string name = 1; // the name\n}");
+    assertThat(other, equalTo(fingerprint));
+  }
+
+  @Test public void should_change_if_tag_number_changed() {
+    String fingerprint = fingerprintOf("message Person { optional string name = 1; }");
+    assertThat(fingerprintOf("message Person { optional string name = 2; }"), not(equalTo(fingerprint)));
+  }
+
+  @Test public void should_change_if_type_of_field_changed() {
+    String fingerprint = fingerprintOf("message Person { optional string name = 1; }");
+    assertThat(fingerprintOf("message Person { optional bytes name = 1; }"), not(equalTo(fingerprint)));
+  }
+
+  private String fingerprintOf(String text) {
+    xtext.parseText(text);
+    return apiFingerprints.fingerprintOf(xtext.root());
+  }
+}
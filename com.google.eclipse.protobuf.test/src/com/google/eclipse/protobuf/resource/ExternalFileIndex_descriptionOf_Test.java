@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static java.util.Collections.singletonList;
+
+import static org.eclipse.emf.common.util.URI.createFileURI;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.MESSAGE;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+
+/**
+ * Tests for <code>{@link ExternalFileIndex#descriptionOf(URI)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ExternalFileIndex_descriptionOf_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule());
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File file;
+  private URI uri;
+  private ExternalFileIndex index;
+
+  @Before public void setUp() throws IOException {
+    file = temporaryFolder.newFile("person.proto");
+    write(file, "package com.google.proto; import 'address.proto'; message Person {}");
+    uri = createFileURI(file.getAbsolutePath());
+    index = newIndex();
+  }
+
+  @Test public void should_describe_exported_types() {
+    IResourceDescription description = index.descriptionOf(uri);
+    List<IEObjectDescription> messages = newArrayList(description.getExportedObjectsByType(MESSAGE));
+    assertThat(messages.size(), equalTo(1));
+    assertThat(messages.get(0).getName(), equalTo(QualifiedName.create("com", "google", "proto", "Person")));
+  }
+
+  @Test public void should_keep_imports() {
+    assertThat(index.importUrisOf(uri), equalTo(singletonList("address.proto")));
+  }
+
+  @Test public void should_not_parse_file_again_if_it_did_not_change() {
+    IResourceDescription description = index.descriptionOf(uri);
+    assertThat(index.descriptionOf(uri), sameInstance(description));
+  }
+
+  @Test public void should_use_stored_description_if_file_did_not_change_after_restart() throws IOException {
+    index.descriptionOf(uri);
+    File indexFile = temporaryFolder.newFile("external-files.index");
+    index.save(indexFile);
+    // same size and modification time: only a parse would notice the different name.
+    long lastModified = file.lastModified();
+    write(file, "package com.google.proto; import 'address.proto'; message Persom {}");
+    file.setLastModified(lastModified);
+    ExternalFileIndex restarted = newIndex();
+    restarted.load(indexFile);
+    IResourceDescription description = restarted.descriptionOf(uri);
+    List<IEObjectDescription> messages = newArrayList(description.getExportedObjectsByType(MESSAGE));
+    assertThat(messages.get(0).getName(), equalTo(QualifiedName.create("com", "google", "proto", "Person")));
+    assertThat(restarted.importUrisOf(uri), equalTo(singletonList("address.proto")));
+  }
+
+  @Test public void should_return_null_if_file_does_not_exist() {
+    file.delete();
+    assertNull(index.descriptionOf(uri));
+  }
+
+  private ExternalFileIndex newIndex() {
+    ExternalFileIndex newIndex = new ExternalFileIndex();
+    xtext.injector().injectMembers(newIndex);
+    return newIndex;
+  }
+
+  private static void write(File file, String text) throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(text.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertThat;
+
+import static com.google.eclipse.protobuf.resource.FileContents.MAPPING_THRESHOLD;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for <code>{@link FileContents#read(java.nio.channels.FileChannel, String)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class FileContents_read_Test {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test public void should_decode_small_file() throws IOException {
+    String text = "syntax = \"proto2\";\n// Caf\u00e9\nmessage Person {}\n";
+    FileContents contents = read(newFile("small.proto", text));
+    assertThat(textOf(contents), equalTo(text));
+  }
+
+  @Test public void should_decode_memory_mapped_file() throws IOException {
+    StringBuilder text = new StringBuilder("syntax = \"proto2\";\n");
+    while (text.length() < MAPPING_THRESHOLD) {
+      text.append("message Person").append(text.length()).append(" {}\n");
+    }
+    FileContents contents = read(newFile("large.proto", text.toString()));
+    assertThat(textOf(contents), equalTo(text.toString()));
+  }
+
+  @Test public void should_have_same_hash_if_contents_are_equal() throws IOException {
+    String text = "message Person {}";
+    FileContents contents1 = read(newFile("person1.proto", text));
+    FileContents contents2 = read(newFile("person2.proto", text));
+    assertThat(contents1.hash(), equalTo(contents2.hash()));
+  }
+
+  @Test public void should_have_different_hash_if_contents_are_different() throws IOException {
+    FileContents contents1 = read(newFile("person.proto", "message Person {}"));
+    FileContents contents2 = read(newFile("address.proto", "message Address {}"));
+    assertThat(contents1.hash(), not(equalTo(contents2.hash())));
+  }
+
+  private File newFile(String name, String text) throws IOException {
+    File file = temporaryFolder.newFile(name);
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(text.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private FileContents read(File file) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      return FileContents.read(in.getChannel(), "UTF-8");
+    } finally {
+      in.close();
+    }
+  }
+
+  private String textOf(FileContents contents) throws IOException {
+    StringBuilder text = new StringBuilder();
+    Reader reader = contents.reader();
+    char[] buffer = new char[1024];
+    int read;
+    while ((read = reader.read(buffer)) != -1) {
+      text.append(buffer, 0, read);
+    }
+    return text.toString();
+  }
+}
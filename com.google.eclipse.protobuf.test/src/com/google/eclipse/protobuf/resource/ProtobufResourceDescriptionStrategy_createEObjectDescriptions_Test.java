@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.PROTOBUF;
+import static com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionStrategy.HAS_PUBLIC_IMPORTS;
+import static com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionStrategy.PACKAGE;
+import static com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionStrategy.PROTO2;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.util.IAcceptor;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.inject.Inject;
+
+/**
+ * Tests for <code>{@link ProtobufResourceDescriptionStrategy#createEObjectDescriptions(EObject, IAcceptor)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ProtobufResourceDescriptionStrategy_createEObjectDescriptions_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule());
+
+  @Inject private IResourceDescription.Manager descriptionManager;
+
+  // syntax = "proto2";
+  // package com.google.proto;
+  //
+  // message Person {}
+  @Test public void should_export_root_with_package_and_syntax() {
+    IEObjectDescription root = exportedRoot();
+    assertThat(root.getUserData(PACKAGE), equalTo("com.google.proto"));
+    assertThat(root.getUserData(PROTO2), equalTo("true"));
+    assertThat(root.getUserData(HAS_PUBLIC_IMPORTS), equalTo("false"));
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {}
+  @Test public void should_not_export_package_if_file_does_not_have_one() {
+    IEObjectDescription root = exportedRoot();
+    assertThat(root.getUserData(PACKAGE), nullValue());
+  }
+
+  private IEObjectDescription exportedRoot() {
+    IResourceDescription description = descriptionManager.getResourceDescription(xtext.resource());
+    IEObjectDescription root = getOnlyElement(description.getExportedObjectsByType(PROTOBUF));
+    assertThat(root.getEObjectOrProxy(), equalTo((EObject) xtext.root()));
+    return root;
+  }
+}
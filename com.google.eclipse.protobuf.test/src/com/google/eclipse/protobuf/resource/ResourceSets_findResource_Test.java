@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static org.eclipse.emf.common.util.Diagnostic.ERROR;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.Diagnostic;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceFactoryImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for <code>{@link ResourceSets#findResource(ResourceSet, URI)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ResourceSets_findResource_Test {
+  private URI uri;
+  private ResourceSet resourceSet;
+  private UnloadableResourceFactory resourceFactory;
+  private ResourceSets resourceSets;
+
+  @Before public void setUp() {
+    uri = URI.createURI("platform:/resource/project/src/broken.proto");
+    resourceFactory = new UnloadableResourceFactory();
+    resourceSet = new ResourceSetImpl();
+    resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put("proto", resourceFactory);
+    resourceSets = new ResourceSets();
+  }
+
+  @Test public void should_not_try_to_load_resource_again_if_first_attempt_failed() {
+    assertNull(resourceSets.findResource(resourceSet, uri));
+    assertNull(resourceSets.findResource(resourceSet, uri));
+    assertThat(resourceFactory.loadAttempts, equalTo(1));
+  }
+
+  @Test public void should_describe_why_resource_could_not_be_loaded() {
+    resourceSets.findResource(resourceSet, uri);
+    Diagnostic failure = resourceSets.loadFailureOf(resourceSet, uri);
+    assertThat(failure.getSeverity(), equalTo(ERROR));
+    assertThat(failure.getMessage(), equalTo("Unable to read file"));
+  }
+
+  @Test public void should_return_null_failure_if_resource_was_not_loaded_yet() {
+    assertNull(resourceSets.loadFailureOf(resourceSet, uri));
+  }
+
+  private static class UnloadableResourceFactory extends ResourceFactoryImpl {
+    int loadAttempts;
+
+    @Override public Resource createResource(URI uri) {
+      return new ResourceImpl(uri) {
+        @Override public void load(Map<?, ?> options) throws IOException {
+          loadAttempts++;
+          throw new IOException("Unable to read file");
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+import static org.eclipse.emf.common.util.URI.createPlatformResourceURI;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescription.Delta;
+import org.eclipse.xtext.resource.IResourceDescription.Event;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests for <code>{@link ResourceUriSuffixTrie#urisMatching(org.eclipse.core.runtime.IPath)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ResourceUriSuffixTrie_urisMatching_Test {
+  private URI person;
+  private URI otherPerson;
+  private URI address;
+  private ResourceUriSuffixTrie trie;
+
+  @Before public void setUp() {
+    person = createPlatformResourceURI("/project1/src/protos/person.proto", true);
+    otherPerson = createPlatformResourceURI("/project2/protos/person.proto", true);
+    address = createPlatformResourceURI("/project1/src/protos/address.proto", true);
+    IResourceDescriptions xtextIndex = mock(IResourceDescriptions.class);
+    List<IResourceDescription> descriptions = asList(descriptionOf(person), descriptionOf(otherPerson));
+    when(xtextIndex.getAllResourceDescriptions()).thenReturn(descriptions);
+    trie = new ResourceUriSuffixTrie(xtextIndex, mock(Event.Source.class));
+  }
+
+  @Test public void should_find_URI_ending_with_path() {
+    List<URI> matches = trie.urisMatching(new Path("src/protos/person.proto"));
+    assertThat(matches, equalTo(singletonList(person)));
+  }
+
+  @Test public void should_find_all_URIs_ending_with_path_if_match_is_ambiguous() {
+    List<URI> matches = trie.urisMatching(new Path("protos/person.proto"));
+    assertThat(matches, equalTo(asList(person, otherPerson)));
+  }
+
+  @Test public void should_find_URI_that_is_suffix_of_path() {
+    List<URI> matches = trie.urisMatching(new Path("/home/user/workspace/resource/project2/protos/person.proto"));
+    assertThat(matches, equalTo(singletonList(otherPerson)));
+  }
+
+  @Test public void should_not_find_URI_if_segments_do_not_match() {
+    assertTrue(trie.urisMatching(new Path("test/person.proto")).isEmpty());
+  }
+
+  @Test public void should_find_added_URIs() {
+    trie.descriptionsChanged(eventWith(deltaOf(address, null, descriptionOf(address))));
+    List<URI> matches = trie.urisMatching(new Path("address.proto"));
+    assertThat(matches, equalTo(singletonList(address)));
+  }
+
+  @Test public void should_not_find_removed_URIs() {
+    trie.descriptionsChanged(eventWith(deltaOf(otherPerson, descriptionOf(otherPerson), null)));
+    List<URI> matches = trie.urisMatching(new Path("person.proto"));
+    assertThat(matches, equalTo(singletonList(person)));
+  }
+
+  private static IResourceDescription descriptionOf(URI uri) {
+    IResourceDescription description = mock(IResourceDescription.class);
+    when(description.getURI()).thenReturn(uri);
+    return description;
+  }
+
+  private static Delta deltaOf(URI uri, IResourceDescription oldDescription, IResourceDescription newDescription) {
+    Delta delta = mock(Delta.class);
+    when(delta.getUri()).thenReturn(uri);
+    when(delta.getOld()).thenReturn(oldDescription);
+    when(delta.getNew()).thenReturn(newDescription);
+    return delta;
+  }
+
+  private static Event eventWith(Delta delta) {
+    Event event = mock(Event.class);
+    when(event.getDeltas()).thenReturn(ImmutableList.of(delta));
+    return event;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+import static org.eclipse.emf.common.util.URI.createURI;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.PROTOBUF;
+import static com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionStrategy.IMPORTS;
+import static com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionStrategy.PUBLIC_IMPORTS;
+
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescription.Delta;
+import org.eclipse.xtext.resource.IResourceDescription.Event;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for <code>{@link ReverseImportIndex#dependentsOf(java.util.Collection)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ReverseImportIndex_dependentsOf_Test {
+  private static final URI BASE = createURI("platform:/resource/project/base.proto");
+  private static final URI REEXPORTING = createURI("platform:/resource/project/reexporting.proto");
+  private static final URI IMPORTING_BASE = createURI("platform:/resource/project/importing-base.proto");
+  private static final URI IMPORTING_REEXPORTING = createURI("platform:/resource/project/importing-reexporting.proto");
+  private static final URI UNRELATED = createURI("platform:/resource/project/unrelated.proto");
+
+  private IResourceDescriptions xtextIndex;
+
+  @Before public void setUp() {
+    xtextIndex = mock(IResourceDescriptions.class);
+    List<IResourceDescription> descriptions = asList(
+        description(BASE, null, null),
+        description(REEXPORTING, BASE.toString(), BASE.toString()),
+        description(IMPORTING_BASE, BASE.toString(), null),
+        description(IMPORTING_REEXPORTING, REEXPORTING + " " + UNRELATED, null),
+        description(UNRELATED, null, null));
+    when(xtextIndex.getAllResourceDescriptions()).thenReturn(descriptions);
+  }
+
+  @Test public void should_return_importers_and_importers_of_public_reexports() {
+    ReverseImportIndex index = new ReverseImportIndex(xtextIndex, null);
+    assertThat(index.dependentsOf(singletonList(BASE)),
+        equalTo(newHashSet(REEXPORTING, IMPORTING_BASE, IMPORTING_REEXPORTING)));
+  }
+
+  @Test public void should_return_only_direct_importers_if_file_is_not_publicly_imported() {
+    ReverseImportIndex index = new ReverseImportIndex(xtextIndex, null);
+    assertThat(index.dependentsOf(singletonList(UNRELATED)), equalTo(newHashSet(IMPORTING_REEXPORTING)));
+  }
+
+  @Test public void should_return_no_dependents_if_file_is_not_imported() {
+    ReverseImportIndex index = new ReverseImportIndex(xtextIndex, null);
+    assertTrue(index.dependentsOf(singletonList(IMPORTING_BASE)).isEmpty());
+  }
+
+  @Test public void should_update_dependents_when_imports_change() {
+    ReverseImportIndex index = new ReverseImportIndex(xtextIndex, null);
+    Delta delta = mock(Delta.class);
+    when(delta.getUri()).thenReturn(IMPORTING_BASE);
+    IResourceDescription newDescription = description(IMPORTING_BASE, UNRELATED.toString(), null);
+    when(delta.getNew()).thenReturn(newDescription);
+    Event event = mock(Event.class);
+    when(event.getDeltas()).thenReturn(singletonList(delta));
+    index.descriptionsChanged(event);
+    assertThat(index.dependentsOf(singletonList(BASE)), equalTo(newHashSet(REEXPORTING, IMPORTING_REEXPORTING)));
+    assertThat(index.dependentsOf(singletonList(UNRELATED)),
+        equalTo(newHashSet(IMPORTING_BASE, IMPORTING_REEXPORTING)));
+  }
+
+  private static IResourceDescription description(URI uri, String imports, String publicImports) {
+    IEObjectDescription root = mock(IEObjectDescription.class);
+    when(root.getUserData(IMPORTS)).thenReturn(imports);
+    when(root.getUserData(PUBLIC_IMPORTS)).thenReturn(publicImports);
+    IResourceDescription description = mock(IResourceDescription.class);
+    when(description.getURI()).thenReturn(uri);
+    when(description.getExportedObjectsByType(PROTOBUF)).thenReturn(singletonList(root));
+    return description;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static org.eclipse.emf.common.util.URI.createFileURI;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+
+/**
+ * Tests for <code>{@link SharedResources#resourceFor(URI)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class SharedResources_resourceFor_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule());
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File file;
+  private URI uri;
+  private SharedResources sharedResources;
+
+  @Before public void setUp() throws IOException {
+    file = temporaryFolder.newFile("person.proto");
+    write(file, "message Person { optional string name = 1; }");
+    uri = createFileURI(file.getAbsolutePath());
+    sharedResources = xtext.injector().getInstance(SharedResources.class);
+    sharedResources.verificationIntervalMillis = 0;
+  }
+
+  @Test public void should_parse_file_only_once() {
+    Resource resource = sharedResources.resourceFor(uri);
+    assertNotNull(resource);
+    assertThat(sharedResources.resourceFor(uri), sameInstance(resource));
+  }
+
+  @Test public void should_share_resource_among_resource_sets() {
+    Resource resource1 = newResourceSet().getResource(uri, true);
+    Resource resource2 = newResourceSet().getResource(uri, true);
+    assertThat(resource2, sameInstance(resource1));
+  }
+
+  @Test public void should_reuse_resource_if_file_was_touched_but_contents_did_not_change() {
+    Resource resource = sharedResources.resourceFor(uri);
+    file.setLastModified(file.lastModified() + 10000);
+    assertThat(sharedResources.resourceFor(uri), sameInstance(resource));
+  }
+
+  @Test public void should_parse_file_again_if_contents_changed() throws IOException {
+    Resource resource = sharedResources.resourceFor(uri);
+    write(file, "message Address { optional string street = 1; }");
+    file.setLastModified(file.lastModified() + 10000);
+    assertThat(sharedResources.resourceFor(uri), not(sameInstance(resource)));
+  }
+
+  @Test public void should_return_null_if_file_does_not_exist() {
+    file.delete();
+    assertNull(sharedResources.resourceFor(uri));
+  }
+
+  @Test public void should_parse_importing_file_again_if_missing_import_was_created() throws IOException {
+    File imported = new File(temporaryFolder.getRoot(), "address.proto");
+    write(file, "import '" + createFileURI(imported.getAbsolutePath()) + "'; message Person {}");
+    Resource resource = sharedResources.resourceFor(uri);
+    assertNotNull(resource);
+    write(imported, "message Address {}");
+    assertThat(sharedResources.resourceFor(uri), not(sameInstance(resource)));
+  }
+
+  @Test public void should_parse_importing_file_again_if_privately_loaded_import_changed() throws IOException {
+    File imported = new File(temporaryFolder.getRoot(), "address.proto");
+    URI importedUri = createFileURI(imported.getAbsolutePath());
+    write(file, "import '" + importedUri + "'; message Person {}");
+    // circular import: "address.proto" loads its own copy of "person.proto".
+    write(imported, "import '" + uri + "'; message Address {}");
+    sharedResources.resourceFor(uri);
+    Resource resource = sharedResources.loadedResourceFor(importedUri);
+    assertNotNull(resource);
+    write(file, "import '" + importedUri + "'; message Person { optional Address address = 1; }");
+    file.setLastModified(file.lastModified() + 10000);
+    assertThat(sharedResources.resourceFor(importedUri), not(sameInstance(resource)));
+  }
+
+  @Test public void should_return_loaded_resource_only_if_file_was_already_parsed() {
+    assertNull(sharedResources.loadedResourceFor(uri));
+    Resource resource = sharedResources.resourceFor(uri);
+    assertThat(sharedResources.loadedResourceFor(uri), sameInstance(resource));
+    assertTrue(sharedResources.isCurrent(resource));
+    assertNotNull(SharedResources.cacheOf(resource));
+  }
+
+  private FastXtextResourceSet newResourceSet() {
+    return xtext.injector().getInstance(FastXtextResourceSet.class);
+  }
+
+  private static void write(File file, String text) throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(text.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.validation;
+
+import static org.eclipse.xtext.validation.ValidationMessageAcceptor.INSIGNIFICANT_INDEX;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.RANGE__FROM;
+import static com.google.eclipse.protobuf.validation.ProtobufJavaValidator.INVALID_EXTENSION_RANGE_ERROR;
+
+import org.eclipse.xtext.validation.ValidationMessageAcceptor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.eclipse.protobuf.protobuf.Extensions;
+import com.google.inject.Inject;
+
+/**
+ * Tests for <code>{@link ProtobufJavaValidator#checkExtensionRangesDoNotIncludeFields(Extensions)}</code>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ProtobufJavaValidator_checkExtensionRangesDoNotIncludeFields_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule());
+
+  @Inject private ProtobufJavaValidator validator;
+  private ValidationMessageAcceptor messageAcceptor;
+
+  @Before public void setUp() {
+    messageAcceptor = mock(ValidationMessageAcceptor.class);
+    validator.setMessageAcceptor(messageAcceptor);
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional long id = 1;
+  //   optional string name = 15;
+  //   extensions 10 to max;
+  // }
+  @Test public void should_create_error_if_extension_range_includes_field() {
+    Extensions extensions = xtext.findFirst(Extensions.class);
+    validator.checkExtensionRangesDoNotIncludeFields(extensions);
+    String message = "Extension range 10 to 536870911 includes field \"name\" (15).";
+    verify(messageAcceptor).acceptError(message, extensions.getRanges().get(0), RANGE__FROM, INSIGNIFICANT_INDEX,
+        INVALID_EXTENSION_RANGE_ERROR);
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional long id = 1;
+  //   oneof contact {
+  //     string email = 12;
+  //   }
+  //   extensions 10 to 20;
+  // }
+  @Test public void should_create_error_if_extension_range_includes_oneof_member() {
+    Extensions extensions = xtext.findFirst(Extensions.class);
+    validator.checkExtensionRangesDoNotIncludeFields(extensions);
+    String message = "Extension range 10 to 20 includes field \"email\" (12).";
+    verify(messageAcceptor).acceptError(message, extensions.getRanges().get(0), RANGE__FROM, INSIGNIFICANT_INDEX,
+        INVALID_EXTENSION_RANGE_ERROR);
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional long id = 1;
+  //   optional string name = 21;
+  //   extensions 2, 10 to 20;
+  // }
+  @Test public void should_not_create_error_if_extension_ranges_do_not_include_fields() {
+    Extensions extensions = xtext.findFirst(Extensions.class);
+    validator.checkExtensionRangesDoNotIncludeFields(extensions);
+    verifyZeroInteractions(messageAcceptor);
+  }
+}
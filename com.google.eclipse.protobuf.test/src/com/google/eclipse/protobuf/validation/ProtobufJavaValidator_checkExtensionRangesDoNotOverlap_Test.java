@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.validation;
+
+import static org.eclipse.xtext.validation.ValidationMessageAcceptor.INSIGNIFICANT_INDEX;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.RANGE__FROM;
+import static com.google.eclipse.protobuf.validation.ProtobufJavaValidator.INVALID_EXTENSION_RANGE_ERROR;
+
+import org.eclipse.xtext.validation.ValidationMessageAcceptor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.eclipse.protobuf.protobuf.Extensions;
+import com.google.inject.Inject;
+
+/**
+ * Tests for <code>{@link ProtobufJavaValidator#checkExtensionRangesDoNotOverlap(Extensions)}</code>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ProtobufJavaValidator_checkExtensionRangesDoNotOverlap_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule());
+
+  @Inject private ProtobufJavaValidator validator;
+  private ValidationMessageAcceptor messageAcceptor;
+
+  @Before public void setUp() {
+    messageAcceptor = mock(ValidationMessageAcceptor.class);
+    validator.setMessageAcceptor(messageAcceptor);
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   extensions 10 to 20, 100 to max, 15 to 30;
+  // }
+  @Test public void should_create_error_if_extension_ranges_overlap() {
+    Extensions extensions = xtext.findFirst(Extensions.class);
+    validator.checkExtensionRangesDoNotOverlap(extensions);
+    String message = "Extension range 15 to 30 overlaps with already-defined range 10 to 20.";
+    verify(messageAcceptor).acceptError(message, extensions.getRanges().get(2), RANGE__FROM, INSIGNIFICANT_INDEX,
+        INVALID_EXTENSION_RANGE_ERROR);
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   extensions 10 to 20, 100 to max, 21 to 30;
+  // }
+  @Test public void should_not_create_error_if_extension_ranges_do_not_overlap() {
+    Extensions extensions = xtext.findFirst(Extensions.class);
+    validator.checkExtensionRangesDoNotOverlap(extensions);
+    verifyZeroInteractions(messageAcceptor);
+  }
+}
@@ -15,6 +15,7 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 
 import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
 import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.GROUP__INDEX;
 import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.MESSAGE_FIELD__INDEX;
 import static com.google.eclipse.protobuf.validation.ProtobufJavaValidator.INVALID_FIELD_TAG_NUMBER_ERROR;
 
@@ -24,6 +25,7 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.eclipse.protobuf.protobuf.Group;
 import com.google.eclipse.protobuf.protobuf.IndexedElement;
 import com.google.eclipse.protobuf.protobuf.MessageField;
 import com.google.inject.Inject;
@@ -68,4 +70,49 @@ public class ProtobufJavaValidator_checkTagNumberIsUnique_Test {
     validator.checkTagNumberIsUnique(field);
     verifyZeroInteractions(messageAcceptor);
   }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional long id = 1;
+  //   oneof contact {
+  //     string email = 2;
+  //     string phone = 1;
+  //   }
+  // }
+  @Test public void should_create_error_if_oneof_member_does_not_have_unique_tag_number() {
+    MessageField field = xtext.find("phone", MessageField.class);
+    validator.checkTagNumberIsUnique(field);
+    String message = "Field number 1 has already been used in \"Person\" by field \"id\".";
+    verify(messageAcceptor).acceptError(message, field, MESSAGE_FIELD__INDEX, INSIGNIFICANT_INDEX, INVALID_FIELD_TAG_NUMBER_ERROR);
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional long id = 1;
+  //   optional group Address = 1 {
+  //     optional string street = 1;
+  //   }
+  // }
+  @Test public void should_create_error_if_group_does_not_have_unique_tag_number() {
+    Group group = xtext.find("Address", Group.class);
+    validator.checkTagNumberIsUnique(group);
+    String message = "Field number 1 has already been used in \"Person\" by field \"id\".";
+    verify(messageAcceptor).acceptError(message, group, GROUP__INDEX, INSIGNIFICANT_INDEX, INVALID_FIELD_TAG_NUMBER_ERROR);
+  }
+
+  // syntax = "proto2";
+  //
+  // message Person {
+  //   optional long id = 1;
+  //   optional group Address = 2 {
+  //     optional string street = 1;
+  //   }
+  // }
+  @Test public void should_not_create_error_if_group_member_uses_tag_number_of_message_field() {
+    MessageField field = xtext.find("street", MessageField.class);
+    validator.checkTagNumberIsUnique(field);
+    verifyZeroInteractions(messageAcceptor);
+  }
 }
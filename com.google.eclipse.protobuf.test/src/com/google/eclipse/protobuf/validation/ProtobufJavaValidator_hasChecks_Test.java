@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.validation;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.DEFAULT_VALUE_FIELD_OPTION;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.ENUM;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.MESSAGE;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.PUBLIC_IMPORT;
+
+import org.eclipse.xtext.validation.Check;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.eclipse.protobuf.protobuf.ComplexType;
+
+/**
+ * Tests for <code>{@link ProtobufJavaValidator#hasChecks(org.eclipse.emf.ecore.EClass)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ProtobufJavaValidator_hasChecks_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule());
+
+  @Test public void should_include_types_checked_by_checkElement() {
+    assertTrue(validator().hasChecks(PUBLIC_IMPORT));
+  }
+
+  @Test public void should_include_types_checked_by_composed_validators() {
+    assertTrue(validator().hasChecks(DEFAULT_VALUE_FIELD_OPTION));
+  }
+
+  @Test public void should_include_types_checked_by_annotated_checks() {
+    ProtobufJavaValidator validator = xtext.injector().getInstance(ValidatorWithAnnotatedCheck.class);
+    assertTrue(validator.hasChecks(MESSAGE));
+    assertTrue(validator.hasChecks(ENUM));
+  }
+
+  @Test public void should_not_include_types_without_checks() {
+    assertFalse(validator().hasChecks(MESSAGE));
+  }
+
+  private ProtobufJavaValidator validator() {
+    return xtext.injector().getInstance(ProtobufJavaValidator.class);
+  }
+
+  static class ValidatorWithAnnotatedCheck extends ProtobufJavaValidator {
+    @Check public void checkComplexType(ComplexType type) {}
+  }
+}
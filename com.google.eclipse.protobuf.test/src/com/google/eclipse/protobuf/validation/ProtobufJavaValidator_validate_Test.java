@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.validation;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.BasicDiagnostic;
+import org.eclipse.emf.common.util.Diagnostic;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EValidator;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+
+/**
+ * Tests for <code>{@link ProtobufJavaValidator#validate(org.eclipse.emf.ecore.EClass, EObject,
+ * org.eclipse.emf.common.util.DiagnosticChain, java.util.Map)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ProtobufJavaValidator_validate_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule());
+
+  // syntax = "proto2";
+  //
+  // package com.google.proto;
+  // package com.google.proto2;
+  //
+  // message Person {
+  //   optional string name = 1;
+  //   optional string email = 1;
+  //   optional int32 id = 0;
+  //   oneof contact {
+  //     string phone = 12;
+  //   }
+  //   optional group Address = 3 {
+  //     optional string street = 1;
+  //     optional string city = 1;
+  //   }
+  //   extensions 10 to 20, 15 to 30;
+  // }
+  //
+  // extend Person {
+  //   optional string nickname = 40;
+  // }
+  @Test public void should_create_same_diagnostics_as_reflective_dispatch() {
+    List<String> expected = diagnosticsFrom(xtext.injector().getInstance(ReflectiveProtobufJavaValidator.class));
+    List<String> actual = diagnosticsFrom(xtext.injector().getInstance(ProtobufJavaValidator.class));
+    assertFalse(expected.isEmpty());
+    assertThat(actual, equalTo(expected));
+  }
+
+  private List<String> diagnosticsFrom(EValidator validator) {
+    BasicDiagnostic diagnostics = new BasicDiagnostic();
+    Map<Object, Object> context = newHashMap();
+    Iterator<EObject> contents = xtext.resource().getAllContents();
+    while (contents.hasNext()) {
+      EObject e = contents.next();
+      validator.validate(e.eClass(), e, diagnostics, context);
+    }
+    List<String> messages = newArrayList();
+    for (Diagnostic diagnostic : diagnostics.getChildren()) {
+      messages.add(diagnostic.getMessage());
+    }
+    Collections.sort(messages);
+    return messages;
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.validation;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.validation.Check;
+
+import com.google.eclipse.protobuf.protobuf.Extensions;
+import com.google.eclipse.protobuf.protobuf.Import;
+import com.google.eclipse.protobuf.protobuf.IndexedElement;
+import com.google.eclipse.protobuf.protobuf.Package;
+import com.google.eclipse.protobuf.protobuf.Protobuf;
+import com.google.eclipse.protobuf.protobuf.Syntax;
+
+/**
+ * <code>{@link ProtobufJavaValidator}</code> with every check, including the checks of imports, invoked through
+ * reflection for every element, as Xtext does for annotated checks. Baseline to compare diagnostics against dispatch
+ * on classifier IDs.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class ReflectiveProtobufJavaValidator extends ProtobufJavaValidator {
+  @Override boolean hasChecks(EClass eClass) {
+    return true;
+  }
+
+  @Override public void checkElement(EObject e) {}
+
+  @Check @Override public void checkIsProto2(Protobuf protobuf) {
+    super.checkIsProto2(protobuf);
+  }
+
+  @Check @Override public void checkNonProto2Imports(Protobuf root) {
+    super.checkNonProto2Imports(root);
+  }
+
+  @Check @Override public void checkUriIsResolved(Import anImport) {
+    super.checkUriIsResolved(anImport);
+  }
+
+  @Check @Override public void checkImportedResourceIsLoaded(Import anImport) {
+    super.checkImportedResourceIsLoaded(anImport);
+  }
+
+  @Check @Override public void checkSyntaxIsProto2(Syntax syntax) {
+    super.checkSyntaxIsProto2(syntax);
+  }
+
+  @Check @Override public void checkTagNumberIsUnique(IndexedElement e) {
+    super.checkTagNumberIsUnique(e);
+  }
+
+  @Check @Override public void checkExtensionRangesDoNotIncludeFields(Extensions extensions) {
+    super.checkExtensionRangesDoNotIncludeFields(extensions);
+  }
+
+  @Check @Override public void checkExtensionRangesDoNotOverlap(Extensions extensions) {
+    super.checkExtensionRangesDoNotOverlap(extensions);
+  }
+
+  @Check @Override public void checkExtensionFieldNumberIsDeclared(IndexedElement e) {
+    super.checkExtensionFieldNumberIsDeclared(e);
+  }
+
+  @Check @Override public void checkTagNumberIsGreaterThanZero(IndexedElement e) {
+    super.checkTagNumberIsGreaterThanZero(e);
+  }
+
+  @Check @Override public void checkOnlyOnePackageDefinition(Package aPackage) {
+    super.checkOnlyOnePackageDefinition(aPackage);
+  }
+}
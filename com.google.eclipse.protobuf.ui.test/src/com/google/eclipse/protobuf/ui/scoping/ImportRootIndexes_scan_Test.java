@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.ui.scoping;
+
+import static java.util.Arrays.asList;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.eclipse.protobuf.junit.core.AbstractTestModule;
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.eclipse.protobuf.ui.preferences.paths.DirectoryPath;
+import com.google.inject.Inject;
+
+/**
+ * Tests for <code>{@link ImportRootIndexes#scan(List)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ImportRootIndexes_scan_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule(), new TestModule());
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Inject private ImportRootIndexes indexes;
+
+  private File root1;
+  private File root2;
+
+  @Before public void setUp() throws IOException {
+    root1 = temporaryFolder.newFolder("root1");
+    root2 = temporaryFolder.newFolder("root2");
+  }
+
+  @Test public void should_index_proto_files_in_nested_directories() throws IOException {
+    File file = newFile(root1, "folder1/folder2/types.proto");
+    ImportRootIndex index = indexes.scan(asList(pathOf(root1)));
+    assertThat(index.resolvedUri("folder1/folder2/types.proto"), equalTo(file.toURI().toString()));
+  }
+
+  @Test public void should_give_precedence_to_first_directory() throws IOException {
+    File file = newFile(root1, "folder1/types.proto");
+    newFile(root2, "folder1/types.proto");
+    ImportRootIndex index = indexes.scan(asList(pathOf(root1), pathOf(root2)));
+    assertThat(index.resolvedUri("folder1/types.proto"), equalTo(file.toURI().toString()));
+  }
+
+  @Test public void should_index_files_found_only_in_second_directory() throws IOException {
+    newFile(root1, "types.proto");
+    File file = newFile(root2, "folder1/messages.proto");
+    ImportRootIndex index = indexes.scan(asList(pathOf(root1), pathOf(root2)));
+    assertThat(index.resolvedUri("folder1/messages.proto"), equalTo(file.toURI().toString()));
+  }
+
+  @Test public void should_return_null_if_file_is_not_in_any_directory() throws IOException {
+    newFile(root1, "types.proto");
+    ImportRootIndex index = indexes.scan(asList(pathOf(root1)));
+    assertNull(index.resolvedUri("messages.proto"));
+  }
+
+  private File newFile(File root, String relativePath) throws IOException {
+    File file = new File(root, relativePath);
+    file.getParentFile().mkdirs();
+    file.createNewFile();
+    return file;
+  }
+
+  private DirectoryPath pathOf(File directory) {
+    return DirectoryPath.parse(directory.getAbsolutePath(), null);
+  }
+
+  private static class TestModule extends AbstractTestModule {
+    @Override protected void configure() {
+      mockAndBind(ResourceExistenceCache.class);
+      mockAndBind(ResourceLocations.class);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.ui.scoping;
+
+import static java.util.Arrays.asList;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static com.google.eclipse.protobuf.junit.core.UnitTestModule.unitTestModule;
+import static com.google.eclipse.protobuf.junit.core.XtextRule.overrideRuntimeModuleWith;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.base.Supplier;
+import com.google.eclipse.protobuf.junit.core.AbstractTestModule;
+import com.google.eclipse.protobuf.junit.core.XtextRule;
+import com.google.inject.Inject;
+
+/**
+ * Tests for <code>{@link ImportUriResolutionCache#resolvedUri(List, Supplier)}</code>.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ImportUriResolutionCache_resolvedUri_Test {
+  @Rule public XtextRule xtext = overrideRuntimeModuleWith(unitTestModule(), new TestModule());
+
+  @Inject private ResourceExistenceCache existenceCache;
+  @Inject private ImportUriResolutionCache cache;
+
+  private List<String> key;
+  private Supplier<String> resolver;
+
+  @SuppressWarnings("unchecked")
+  @Before public void setUp() {
+    key = asList("project", "imported.proto");
+    resolver = mock(Supplier.class);
+  }
+
+  @Test public void should_resolve_URI_only_once() {
+    when(resolver.get()).thenReturn("platform:/resource/project/src/imported.proto");
+    cache.resolvedUri(key, resolver);
+    String resolved = cache.resolvedUri(key, resolver);
+    assertThat(resolved, equalTo("platform:/resource/project/src/imported.proto"));
+    verify(resolver, times(1)).get();
+  }
+
+  @Test public void should_remember_URIs_that_cannot_be_resolved() {
+    cache.resolvedUri(key, resolver);
+    assertNull(cache.resolvedUri(key, resolver));
+    verify(resolver, times(1)).get();
+  }
+
+  @Test public void should_resolve_URI_again_if_files_were_added_or_removed() {
+    when(resolver.get()).thenReturn(null, "platform:/resource/project/src/imported.proto");
+    cache.resolvedUri(key, resolver);
+    when(existenceCache.hasChangedSince(anyLong())).thenReturn(true);
+    String resolved = cache.resolvedUri(key, resolver);
+    assertThat(resolved, equalTo("platform:/resource/project/src/imported.proto"));
+    verify(resolver, times(2)).get();
+  }
+
+  private static class TestModule extends AbstractTestModule {
+    @Override protected void configure() {
+      mockAndBind(ResourceExistenceCache.class);
+    }
+  }
+}
@@ -55,6 +55,7 @@ import com.google.eclipse.protobuf.ui.preferences.paths.PathsPreferences;
 import com.google.eclipse.protobuf.ui.resource.ProtobufServiceProvider;
 import com.google.eclipse.protobuf.ui.resource.ResourceVerifier;
 import com.google.eclipse.protobuf.ui.scoping.FileUriResolver;
+import com.google.eclipse.protobuf.ui.scoping.ProtoDescriptorWarmUp;
 import com.google.eclipse.protobuf.ui.validation.ValidateFileOnActivation;
 import com.google.inject.Binder;
 
@@ -147,6 +148,10 @@ public class ProtobufUiModule extends AbstractProtobufUiModule {
     binder.bind(IPreferenceStoreInitializer.class).annotatedWith(named(name)).to(initializerType);
   }
 
+  public void configureProtoDescriptorWarmUp(Binder binder) {
+    binder.bind(ProtoDescriptorWarmUp.class).asEagerSingleton();
+  }
+
   @Override public void configureToggleLinkWithEditorOutlineContribution(Binder binder) {
     binder.bind(IOutlineContribution.class)
           .annotatedWith(IOutlineContribution.LinkWithEditor.class)
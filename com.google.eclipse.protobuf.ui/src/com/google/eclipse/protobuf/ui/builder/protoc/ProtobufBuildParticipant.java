@@ -10,6 +10,7 @@ package com.google.eclipse.protobuf.ui.builder.protoc;
 
 import static org.eclipse.core.resources.IResource.DEPTH_INFINITE;
 
+import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.io.Closeables.closeQuietly;
 import static com.google.eclipse.protobuf.ui.builder.protoc.ConsolePrinter.createAndDisplayConsole;
 import static com.google.eclipse.protobuf.ui.preferences.compiler.CompilerPreferences.compilerPreferences;
@@ -35,11 +36,13 @@ import org.eclipse.xtext.builder.IXtextBuilderParticipant;
 import org.eclipse.xtext.resource.IResourceDescription.Delta;
 import org.eclipse.xtext.ui.editor.preferences.IPreferenceStoreAccess;
 
+import com.google.eclipse.protobuf.resource.ApiFingerprints;
 import com.google.eclipse.protobuf.ui.preferences.compiler.CompilerPreferences;
 import com.google.eclipse.protobuf.ui.preferences.paths.PathsPreferences;
 import com.google.eclipse.protobuf.ui.protoc.command.ProtocCommandBuilder;
 import com.google.eclipse.protobuf.ui.protoc.output.ProtocMarkerFactory;
 import com.google.eclipse.protobuf.ui.protoc.output.ProtocOutputParser;
+import com.google.eclipse.protobuf.ui.validation.ValidationTrigger;
 import com.google.eclipse.protobuf.util.Uris;
 import com.google.inject.Inject;
 
@@ -49,9 +52,11 @@ import com.google.inject.Inject;
  * @author alruiz@google.com (Alex Ruiz)
  */
 public class ProtobufBuildParticipant implements IXtextBuilderParticipant {
+  @Inject private ApiFingerprints apiFingerprints;
   @Inject private ProtocOutputParser outputParser;
   @Inject private IPreferenceStoreAccess storeAccess;
   @Inject private Uris uris;
+  @Inject private ValidationTrigger validationTrigger;
 
   @Override public void build(IBuildContext context, IProgressMonitor monitor) throws CoreException {
     List<Delta> deltas = context.getDeltas();
@@ -63,6 +68,7 @@ public class ProtobufBuildParticipant implements IXtextBuilderParticipant {
     }
     SubMonitor subMonitor = SubMonitor.convert(monitor, deltas.size() * 2 + 2);
     IProject project = context.getBuiltProject();
+    validationTrigger.validateOpenEditorsDependingOn(changedFiles(deltas));
     CompilerPreferences compilerPreferences = compilerPreferences(storeAccess, project);
     if (!compilerPreferences.shouldCompileProtoFiles()) {
       return;
@@ -88,6 +94,17 @@ public class ProtobufBuildParticipant implements IXtextBuilderParticipant {
     }
   }
 
+  // only changes in the API of a file can affect the files importing it.
+  private List<URI> changedFiles(List<Delta> deltas) {
+    List<URI> changed = newArrayList();
+    for (Delta delta : deltas) {
+      if (apiFingerprints.hasApiChanged(delta)) {
+        changed.add(delta.getUri());
+      }
+    }
+    return changed;
+  }
+
   private IFile protoFile(URI resourceUri, IProject project) {
     String path = filePathIfIsProtoFile(resourceUri);
     return (path == null) ? null : workspaceRoot().getFile(Path.fromOSString(path));
@@ -8,6 +8,7 @@
  */
 package com.google.eclipse.protobuf.ui.commands.semicolon;
 
+import static com.google.eclipse.protobuf.model.util.TagNumberAllocator.Strategy.NEXT_FREE_OUTSIDE_EXTENSION_RANGES;
 import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.LITERAL__INDEX;
 import static java.util.regex.Pattern.compile;
 import static org.eclipse.xtext.util.Strings.isEmpty;
@@ -25,6 +26,7 @@ import com.google.eclipse.protobuf.protobuf.Literal;
 import com.google.eclipse.protobuf.protobuf.MessageField;
 import com.google.eclipse.protobuf.protobuf.Protobuf;
 import com.google.eclipse.protobuf.ui.commands.SmartInsertHandler;
+import com.google.eclipse.protobuf.ui.preferences.PreferenceSnapshots;
 import com.google.eclipse.protobuf.ui.preferences.editor.numerictag.NumericTagPreferences;
 import com.google.inject.Inject;
 
@@ -39,7 +41,6 @@ import org.eclipse.xtext.ui.editor.XtextEditor;
 import org.eclipse.xtext.ui.editor.contentassist.ContentAssistContext;
 import org.eclipse.xtext.ui.editor.contentassist.antlr.ParserBasedContentAssistContextFactory;
 import org.eclipse.xtext.ui.editor.model.IXtextDocument;
-import org.eclipse.xtext.ui.editor.preferences.IPreferenceStoreAccess;
 import org.eclipse.xtext.util.Pair;
 import org.eclipse.xtext.util.Tuples;
 import org.eclipse.xtext.util.concurrent.IUnitOfWork;
@@ -70,7 +71,7 @@ public class SmartSemicolonHandler extends SmartInsertHandler {
   @Inject private INodes nodes;
   @Inject private Protobufs protobufs;
   @Inject private Resources resources;
-  @Inject private IPreferenceStoreAccess storeAccess;
+  @Inject private PreferenceSnapshots preferenceSnapshots;
 
   private static final String SEMICOLON = CommonKeyword.SEMICOLON.toString();
 
@@ -126,7 +127,7 @@ public class SmartSemicolonHandler extends SmartInsertHandler {
             if (model instanceof MessageField) {
               MessageField field = (MessageField) model;
               if (shouldCalculateIndex(field)) {
-                long index = indexedElements.calculateNewIndexFor(field);
+                long index = indexedElements.calculateNewIndexFor(field, NEXT_FREE_OUTSIDE_EXTENSION_RANGES);
                 field.setIndex(index);
                 commentsToUpdate.add(Tuples.create(model, index));
                 shouldInsertSemicolon.set(false);
@@ -174,7 +175,7 @@ public class SmartSemicolonHandler extends SmartInsertHandler {
     if (parent == null) {
       return;
     }
-    NumericTagPreferences preferences = new NumericTagPreferences(storeAccess);
+    NumericTagPreferences preferences = preferenceSnapshots.numericTagPreferences();
     for (String pattern : preferences.patterns()) {
       Pair<INode, Matcher> match = commentNodesFinder.matchingCommentNode(parent, pattern);
       if (match == null) {
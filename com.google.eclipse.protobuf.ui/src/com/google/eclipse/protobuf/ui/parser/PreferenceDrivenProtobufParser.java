@@ -13,11 +13,11 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.nodemodel.impl.NodeModelBuilder;
 import org.eclipse.xtext.parser.IParseResult;
 import org.eclipse.xtext.parser.ParseResult;
-import org.eclipse.xtext.ui.editor.preferences.IPreferenceStoreAccess;
 
 import com.google.eclipse.protobuf.parser.NonProto2Protobuf;
 import com.google.eclipse.protobuf.parser.antlr.ProtobufParser;
 import com.google.eclipse.protobuf.protobuf.Protobuf;
+import com.google.eclipse.protobuf.ui.preferences.PreferenceSnapshots;
 import com.google.eclipse.protobuf.ui.preferences.misc.MiscellaneousPreferences;
 import com.google.inject.Inject;
 
@@ -25,12 +25,12 @@ import com.google.inject.Inject;
  * @author alruiz@google.com (Alex Ruiz)
  */
 public class PreferenceDrivenProtobufParser extends ProtobufParser {
-  @Inject private IPreferenceStoreAccess storeAccess;
+  @Inject private PreferenceSnapshots preferenceSnapshots;
 
   @Override protected IParseResult doParse(String ruleName, CharStream in, NodeModelBuilder builder,
       int initialLookAhead) {
     IParseResult result = super.doParse(ruleName, in, builder, initialLookAhead);
-    MiscellaneousPreferences preferences = new MiscellaneousPreferences(storeAccess);
+    MiscellaneousPreferences preferences = preferenceSnapshots.miscellaneousPreferences();
     if (preferences.isGoogleInternal() && isNotProto2(result)) {
       return new ParseResult(new NonProto2Protobuf(), result.getRootNode(), false);
     }
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.ui.preferences;
+
+import static java.util.Collections.unmodifiableList;
+
+import static org.eclipse.core.resources.IResourceChangeEvent.POST_CHANGE;
+import static org.eclipse.core.resources.IResourceDelta.ADDED;
+import static org.eclipse.core.resources.IResourceDelta.DESCRIPTION;
+import static org.eclipse.core.resources.IResourceDelta.OPEN;
+import static org.eclipse.core.resources.IResourceDelta.REMOVED;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.eclipse.protobuf.util.Workspaces.workspaceRoot;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchListener;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.xtext.ui.XtextProjectHelper;
+import org.eclipse.xtext.ui.editor.preferences.IPreferenceStoreAccess;
+
+import com.google.eclipse.protobuf.ui.preferences.editor.numerictag.NumericTagPreferences;
+import com.google.eclipse.protobuf.ui.preferences.misc.MiscellaneousPreferences;
+import com.google.eclipse.protobuf.ui.preferences.paths.PathsPreferences;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Provides preferences that are read and parsed only once. Cached preferences are replaced when the preference stores
+ * they are read from report a change, so callers on hot paths can ask for them as often as they need.
+ * <p>
+ * The listeners registered with the preference stores and the workspace are removed when the project they listen to
+ * is closed or removed, and all of them are removed by <code>{@link #dispose()}</code>, which is called when the
+ * workbench shuts down.
+ * </p>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton public class PreferenceSnapshots {
+  private final ConcurrentMap<IProject, PathsPreferences> pathsPreferencesByProject =
+      new ConcurrentHashMap<IProject, PathsPreferences>();
+  private final AtomicReference<List<PathsPreferences>> pathsPreferencesOfAllProjects =
+      new AtomicReference<List<PathsPreferences>>();
+  private final AtomicReference<MiscellaneousPreferences> miscellaneousPreferences =
+      new AtomicReference<MiscellaneousPreferences>();
+  private final AtomicReference<NumericTagPreferences> numericTagPreferences =
+      new AtomicReference<NumericTagPreferences>();
+  private final ConcurrentMap<IProject, StoreListener> projectListeners =
+      new ConcurrentHashMap<IProject, StoreListener>();
+
+  private final IPreferenceStoreAccess storeAccess;
+  // IPreferenceStoreAccess returns a new store on every call: listeners are removed from the store they were added to.
+  private final IPreferenceStore workspaceStore;
+
+  private final IPropertyChangeListener workspaceListener = new IPropertyChangeListener() {
+    @Override public void propertyChange(PropertyChangeEvent event) {
+      discardAll();
+    }
+  };
+
+  private final IResourceChangeListener projectsListener = new IResourceChangeListener() {
+    @Override public void resourceChanged(IResourceChangeEvent event) {
+      if (projectsChanged(event.getDelta())) {
+        pathsPreferencesOfAllProjects.set(null);
+      }
+    }
+  };
+
+  @Inject public PreferenceSnapshots(IPreferenceStoreAccess storeAccess) {
+    this.storeAccess = storeAccess;
+    workspaceStore = storeAccess.getWritablePreferenceStore();
+    workspaceStore.addPropertyChangeListener(workspaceListener);
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(projectsListener, POST_CHANGE);
+    if (PlatformUI.isWorkbenchRunning()) {
+      PlatformUI.getWorkbench().addWorkbenchListener(new IWorkbenchListener() {
+        @Override public boolean preShutdown(IWorkbench workbench, boolean forced) {
+          return true;
+        }
+
+        @Override public void postShutdown(IWorkbench workbench) {
+          dispose();
+        }
+      });
+    }
+  }
+
+  /**
+   * Removes all the listeners registered by this object and discards all the cached preferences.
+   */
+  public void dispose() {
+    workspaceStore.removePropertyChangeListener(workspaceListener);
+    ResourcesPlugin.getWorkspace().removeResourceChangeListener(projectsListener);
+    for (IProject project : projectListeners.keySet()) {
+      stopListeningToChangesIn(project);
+    }
+    discardAll();
+  }
+
+  /**
+   * Returns the "paths" preferences of the given project.
+   * @param project the given project.
+   * @return the "paths" preferences of the given project.
+   */
+  public PathsPreferences pathsPreferences(IProject project) {
+    PathsPreferences preferences = pathsPreferencesByProject.get(project);
+    if (preferences == null) {
+      listenToChangesIn(project);
+      // values are read lazily, a change reported before the put is not lost.
+      PathsPreferences created = new PathsPreferences(storeAccess, project);
+      preferences = pathsPreferencesByProject.putIfAbsent(project, created);
+      if (preferences == null) {
+        preferences = created;
+      }
+    }
+    return preferences;
+  }
+
+  private void listenToChangesIn(final IProject project) {
+    IPropertyChangeListener listener = new IPropertyChangeListener() {
+      @Override public void propertyChange(PropertyChangeEvent event) {
+        pathsPreferencesByProject.remove(project);
+        pathsPreferencesOfAllProjects.set(null);
+      }
+    };
+    StoreListener storeListener = new StoreListener(storeAccess.getWritablePreferenceStore(project), listener);
+    if (projectListeners.putIfAbsent(project, storeListener) != null) {
+      return;
+    }
+    storeListener.store.addPropertyChangeListener(listener);
+  }
+
+  private void stopListeningToChangesIn(IProject project) {
+    StoreListener storeListener = projectListeners.remove(project);
+    if (storeListener != null) {
+      storeListener.store.removePropertyChangeListener(storeListener.listener);
+    }
+    pathsPreferencesByProject.remove(project);
+  }
+
+  /**
+   * Returns the "paths" preferences of all the accessible projects in the workspace that have the Xtext nature.
+   * @return the "paths" preferences of all the accessible projects in the workspace that have the Xtext nature.
+   */
+  public List<PathsPreferences> pathsPreferencesOfAllProjects() {
+    List<PathsPreferences> allPreferences = pathsPreferencesOfAllProjects.get();
+    if (allPreferences == null) {
+      List<PathsPreferences> preferences = newArrayList();
+      for (IProject project : workspaceRoot().getProjects()) {
+        if (project.isHidden() || !project.isAccessible() || !XtextProjectHelper.hasNature(project)) {
+          continue;
+        }
+        preferences.add(pathsPreferences(project));
+      }
+      allPreferences = unmodifiableList(preferences);
+      pathsPreferencesOfAllProjects.compareAndSet(null, allPreferences);
+    }
+    return allPreferences;
+  }
+
+  /**
+   * Returns the "miscellaneous" preferences.
+   * @return the "miscellaneous" preferences.
+   */
+  public MiscellaneousPreferences miscellaneousPreferences() {
+    MiscellaneousPreferences preferences = miscellaneousPreferences.get();
+    if (preferences == null) {
+      preferences = new MiscellaneousPreferences(storeAccess);
+      miscellaneousPreferences.compareAndSet(null, preferences);
+    }
+    return preferences;
+  }
+
+  /**
+   * Returns the "numeric tag" preferences.
+   * @return the "numeric tag" preferences.
+   */
+  public NumericTagPreferences numericTagPreferences() {
+    NumericTagPreferences preferences = numericTagPreferences.get();
+    if (preferences == null) {
+      preferences = new NumericTagPreferences(storeAccess);
+      numericTagPreferences.compareAndSet(null, preferences);
+    }
+    return preferences;
+  }
+
+  private void discardAll() {
+    pathsPreferencesByProject.clear();
+    pathsPreferencesOfAllProjects.set(null);
+    miscellaneousPreferences.set(null);
+    numericTagPreferences.set(null);
+  }
+
+  private boolean projectsChanged(IResourceDelta delta) {
+    if (delta == null) {
+      return false;
+    }
+    boolean changed = false;
+    for (IResourceDelta projectDelta : delta.getAffectedChildren()) {
+      if ((projectDelta.getKind() & (ADDED | REMOVED)) != 0 || (projectDelta.getFlags() & (OPEN | DESCRIPTION)) != 0) {
+        IProject project = projectDelta.getResource().getProject();
+        if (project != null && !project.isAccessible()) {
+          // the preference store of a closed or removed project is not used anymore.
+          stopListeningToChangesIn(project);
+        }
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  private static class StoreListener {
+    final IPreferenceStore store;
+    final IPropertyChangeListener listener;
+
+    StoreListener(IPreferenceStore store, IPropertyChangeListener listener) {
+      this.store = store;
+      this.listener = listener;
+    }
+  }
+}
@@ -8,6 +8,8 @@
  */
 package com.google.eclipse.protobuf.ui.preferences.editor.numerictag;
 
+import static java.util.Collections.unmodifiableList;
+
 import static com.google.eclipse.protobuf.ui.preferences.editor.numerictag.PreferenceNames.NUMERIC_TAG_PATTERNS;
 
 import java.util.List;
@@ -17,18 +19,26 @@ import org.eclipse.xtext.ui.editor.preferences.IPreferenceStoreAccess;
 import org.eclipse.xtext.ui.editor.preferences.IPreferenceStoreInitializer;
 
 /**
+ * Patterns of the comments that track the next available tag number (e.g. "Next Id: 6"), retrieved from an
+ * <code>{@link IPreferenceStore}</code>. The patterns are split once, when first requested.
+ *
  * @author alruiz@google.com (Alex Ruiz)
  */
 public class NumericTagPreferences {
   private final IPreferenceStore store;
 
+  private volatile List<String> patterns;
+
   public NumericTagPreferences(IPreferenceStoreAccess storeAccess) {
     store = storeAccess.getWritablePreferenceStore();
   }
 
   public List<String> patterns() {
-    String value = store.getString(NUMERIC_TAG_PATTERNS);
-    return NumericTagPatternSplitter.instance().splitIntoList(value);
+    if (patterns == null) {
+      String value = store.getString(NUMERIC_TAG_PATTERNS);
+      patterns = unmodifiableList(NumericTagPatternSplitter.instance().splitIntoList(value));
+    }
+    return patterns;
   }
 
   public static class Initializer implements IPreferenceStoreInitializer {
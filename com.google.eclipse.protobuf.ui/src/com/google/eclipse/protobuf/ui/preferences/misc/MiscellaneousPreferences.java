@@ -15,19 +15,25 @@ import org.eclipse.xtext.ui.editor.preferences.IPreferenceStoreAccess;
 import org.eclipse.xtext.ui.editor.preferences.IPreferenceStoreInitializer;
 
 /**
- * "Miscellaneous" preferences, retrieved from an <code>{@link IPreferenceStore}</code>.
+ * "Miscellaneous" preferences, retrieved from an <code>{@link IPreferenceStore}</code>. The "Google internal" flag is
+ * read once and not updated afterwards.
  *
  * @author alruiz@google.com (Alex Ruiz)
  */
 public class MiscellaneousPreferences {
   private final IPreferenceStore store;
 
+  private volatile Boolean googleInternal;
+
   public MiscellaneousPreferences(IPreferenceStoreAccess storeAccess) {
     this.store = storeAccess.getWritablePreferenceStore();
   }
 
   public boolean isGoogleInternal() {
-    return store.getBoolean(IS_GOOGLE_INTERNAL);
+    if (googleInternal == null) {
+      googleInternal = store.getBoolean(IS_GOOGLE_INTERNAL);
+    }
+    return googleInternal;
   }
 
   public static class Initializer implements IPreferenceStoreInitializer {
@@ -8,12 +8,17 @@
  */
 package com.google.eclipse.protobuf.ui.preferences.paths;
 
+import static java.util.Collections.unmodifiableList;
+
+import static com.google.common.collect.Lists.newArrayList;
 import static com.google.eclipse.protobuf.ui.preferences.paths.DirectoryPath.parse;
 import static com.google.eclipse.protobuf.ui.preferences.paths.PreferenceNames.DIRECTORY_PATHS;
 import static com.google.eclipse.protobuf.ui.preferences.paths.PreferenceNames.FILES_IN_MULTIPLE_DIRECTORIES;
 import static com.google.eclipse.protobuf.ui.preferences.paths.PreferenceNames.FILES_IN_ONE_DIRECTORY_ONLY;
 import static com.google.eclipse.protobuf.ui.util.CommaSeparatedValues.splitCsv;
 
+import java.util.List;
+
 import org.eclipse.core.resources.IProject;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.xtext.ui.editor.preferences.IPreferenceStoreAccess;
@@ -22,7 +27,8 @@ import org.eclipse.xtext.ui.editor.preferences.IPreferenceStoreInitializer;
 import com.google.common.base.Function;
 
 /**
- * "Paths" preferences, retrieved from an <code>{@link IPreferenceStore}</code>.
+ * "Paths" preferences of a project, retrieved from an <code>{@link IPreferenceStore}</code>. The list of import root
+ * directories is parsed once, the first time it is iterated, and kept for the life of this object.
  *
  * @author alruiz@google.com (Alex Ruiz)
  */
@@ -30,19 +36,35 @@ public class PathsPreferences {
   private final IProject project;
   private final IPreferenceStore store;
 
+  private volatile List<DirectoryPath> directoryPaths;
+  private volatile String directoryPathsText;
+  private volatile Boolean filesInMultipleDirectories;
+
   public PathsPreferences(IPreferenceStoreAccess storeAccess, IProject project) {
     this.store = storeAccess.getWritablePreferenceStore(project);
     this.project = project;
   }
 
+  public IProject project() {
+    return project;
+  }
+
   public boolean areFilesInMultipleDirectories() {
-    return store.getBoolean(FILES_IN_MULTIPLE_DIRECTORIES);
+    if (filesInMultipleDirectories == null) {
+      filesInMultipleDirectories = store.getBoolean(FILES_IN_MULTIPLE_DIRECTORIES);
+    }
+    return filesInMultipleDirectories;
+  }
+
+  public String directoryPaths() {
+    if (directoryPathsText == null) {
+      directoryPathsText = store.getString(DIRECTORY_PATHS);
+    }
+    return directoryPathsText;
   }
 
   public <T> T applyToEachDirectoryPath(Function<DirectoryPath, T> function) {
-    String directoryPaths = store.getString(DIRECTORY_PATHS);
-    for (String s : splitCsv(directoryPaths)) {
-      DirectoryPath path = parse(s, project);
+    for (DirectoryPath path : parsedDirectoryPaths()) {
       T value = function.apply(path);
       if (value != null) {
         return value;
@@ -51,6 +73,17 @@ public class PathsPreferences {
     return null;
   }
 
+  private List<DirectoryPath> parsedDirectoryPaths() {
+    if (directoryPaths == null) {
+      List<DirectoryPath> paths = newArrayList();
+      for (String s : splitCsv(directoryPaths())) {
+        paths.add(parse(s, project));
+      }
+      directoryPaths = unmodifiableList(paths);
+    }
+    return directoryPaths;
+  }
+
   public static class Initializer implements IPreferenceStoreInitializer {
     @Override public void initialize(IPreferenceStoreAccess access) {
       IPreferenceStore store = access.getWritablePreferenceStore();
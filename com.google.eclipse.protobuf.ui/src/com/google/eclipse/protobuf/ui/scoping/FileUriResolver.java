@@ -9,24 +9,21 @@
 package com.google.eclipse.protobuf.ui.scoping;
 
 import static java.util.Collections.singletonList;
-import static java.util.Collections.unmodifiableList;
 
 import static com.google.common.collect.Lists.newArrayList;
-import static com.google.eclipse.protobuf.util.Workspaces.workspaceRoot;
 
 import java.util.List;
 
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
-import org.eclipse.xtext.ui.XtextProjectHelper;
-import org.eclipse.xtext.ui.editor.preferences.IPreferenceStoreAccess;
 
+import com.google.common.base.Supplier;
 import com.google.eclipse.protobuf.model.util.Imports;
 import com.google.eclipse.protobuf.protobuf.Import;
 import com.google.eclipse.protobuf.scoping.IFileUriResolver;
 import com.google.eclipse.protobuf.scoping.ProtoDescriptorProvider;
+import com.google.eclipse.protobuf.ui.preferences.PreferenceSnapshots;
 import com.google.eclipse.protobuf.ui.preferences.paths.PathsPreferences;
 import com.google.eclipse.protobuf.util.Uris;
 import com.google.inject.Inject;
@@ -39,10 +36,11 @@ import com.google.inject.Inject;
 public class FileUriResolver implements IFileUriResolver {
   @Inject private ProtoDescriptorProvider descriptorProvider;
   @Inject private Imports imports;
-  @Inject private MultipleDirectoriesFileResolverStrategy multipleDirectories;
+  @Inject private ImportUriResolutionCache resolutionCache;
+  @Inject private IndexedDirectoriesFileResolverStrategy multipleDirectories;
   @Inject private Uris uris;
   @Inject private SingleDirectoryFileResolverStrategy singleDirectory;
-  @Inject private IPreferenceStoreAccess storeAccess;
+  @Inject private PreferenceSnapshots preferenceSnapshots;
 
   /*
    * The import URI is relative to the file where the import is. Protoc works fine, but the editor doesn't.
@@ -69,34 +67,38 @@ public class FileUriResolver implements IFileUriResolver {
     }
   }
 
-  private String resolveUri(String importUri, Resource resource) {
+  private String resolveUri(final String importUri, Resource resource) {
     URI location = descriptorProvider.descriptorLocation(importUri);
     if (location != null) {
       return location.toString();
     }
-    URI resourceUri = resource.getURI();
+    final URI resourceUri = resource.getURI();
     IProject project = uris.projectOfReferredFile(resourceUri);
-    FileResolverStrategy resolver = multipleDirectories;
+    List<Object> key = newArrayList();
+    key.add(importUri);
+    final List<PathsPreferences> allPreferences;
+    FileResolverStrategy strategy = multipleDirectories;
     if (project == null) {
-      return resolver.resolveUri(importUri, resourceUri, preferencesFromAllProjects());
+      allPreferences = preferenceSnapshots.pathsPreferencesOfAllProjects();
+    } else {
+      PathsPreferences preferences = preferenceSnapshots.pathsPreferences(project);
+      allPreferences = singletonList(preferences);
+      if (!preferences.areFilesInMultipleDirectories()) {
+        // the resolved URI depends on the location of the file containing the import.
+        strategy = singleDirectory;
+        key.add(resourceUri.trimSegments(1));
+      }
     }
-    PathsPreferences preferences = new PathsPreferences(storeAccess, project);
-    if (!preferences.areFilesInMultipleDirectories()) {
-      resolver = singleDirectory;
+    for (PathsPreferences preferences : allPreferences) {
+      key.add(preferences.project().getName());
+      key.add(preferences.areFilesInMultipleDirectories());
+      key.add(preferences.directoryPaths());
     }
-    return resolver.resolveUri(importUri, resourceUri, singletonList(preferences));
-  }
-
-  private Iterable<PathsPreferences> preferencesFromAllProjects() {
-    List<PathsPreferences> allPreferences = newArrayList();
-    IWorkspaceRoot root = workspaceRoot();
-    for (IProject project : root.getProjects()) {
-      if (project.isHidden() || !project.isAccessible() || !XtextProjectHelper.hasNature(project)) {
-        continue;
+    final FileResolverStrategy resolver = strategy;
+    return resolutionCache.resolvedUri(key, new Supplier<String>() {
+      @Override public String get() {
+        return resolver.resolveUri(importUri, resourceUri, allPreferences);
       }
-      PathsPreferences preferences = new PathsPreferences(storeAccess, project);
-      allPreferences.add(preferences);
-    }
-    return unmodifiableList(allPreferences);
+    });
   }
 }
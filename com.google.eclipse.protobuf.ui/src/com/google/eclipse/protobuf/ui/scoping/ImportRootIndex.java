@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.ui.scoping;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.eclipse.protobuf.ui.scoping.ResourceExistenceCache.ChangeMarker;
+
+/**
+ * Maps the paths of all the ".proto" files under a list of import root directories, relative to their root, to their
+ * resolved URIs. When the same relative path exists under more than one root, the first root wins.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class ImportRootIndex {
+  private final List<Root> roots;
+
+  ImportRootIndex(List<Root> roots) {
+    this.roots = unmodifiableList(roots);
+  }
+
+  /**
+   * Returns the resolved URI of the given "import" URI.
+   * @param importUri the "import" URI, relative to an import root directory.
+   * @return the resolved URI, or {@code null} if the given "import" URI is not under any of the indexed directories.
+   */
+  String resolvedUri(String importUri) {
+    for (Root root : roots) {
+      String resolved = root.files.get(importUri);
+      if (resolved != null) {
+        return resolved;
+      }
+    }
+    // as MultipleDirectoriesFileResolverStrategy does, the file system locations of workspace directories come last.
+    for (Root root : roots) {
+      String resolved = root.fileSystemFiles.get(importUri);
+      if (resolved != null) {
+        return resolved;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Indicates whether this index was built from the given roots.
+   * @param others the roots to compare to.
+   * @return {@code true} if this index was built from the same roots, in the same order, {@code false} otherwise.
+   */
+  boolean isBuiltFrom(List<Root> others) {
+    if (roots.size() != others.size()) {
+      return false;
+    }
+    for (int i = 0; i < roots.size(); i++) {
+      if (roots.get(i) != others.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Indicates whether the given "import" URI can be looked up in an index. Only normalized relative paths to ".proto"
+   * files can, any other "import" URI has to be resolved by probing each import root.
+   * @param importUri the "import" URI to check.
+   * @return {@code true} if the given "import" URI can be looked up in an index, {@code false} otherwise.
+   */
+  static boolean canLookUp(String importUri) {
+    if (!importUri.endsWith(".proto") || importUri.startsWith("/") || importUri.indexOf('\\') != -1) {
+      return false;
+    }
+    for (String segment : importUri.split("/")) {
+      if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The ".proto" files under a single import root directory.
+   */
+  static class Root {
+    final Map<String, String> files;
+    final Map<String, String> fileSystemFiles;
+    final ChangeMarker marker;
+
+    /**
+     * Creates a new <code>{@link Root}</code>.
+     * @param files the resolved URIs of the files under the directory, by relative path.
+     * @param fileSystemFiles if the directory is in the workspace, the resolved URIs of the files under its location
+     * in the file system, by relative path.
+     * @param marker reports changes in the contents of the directory.
+     */
+    Root(Map<String, String> files, Map<String, String> fileSystemFiles, ChangeMarker marker) {
+      this.files = unmodifiableMap(files);
+      this.fileSystemFiles = unmodifiableMap(fileSystemFiles);
+      this.marker = marker;
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.ui.scoping;
+
+import static org.eclipse.core.resources.IResource.FILE;
+import static org.eclipse.core.resources.IResource.NONE;
+import static org.eclipse.core.runtime.Status.OK_STATUS;
+import static org.eclipse.xtext.util.Strings.isEmpty;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.eclipse.protobuf.util.Workspaces.workspaceRoot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.emf.common.util.URI;
+
+import com.google.common.base.Function;
+import com.google.eclipse.protobuf.ui.preferences.paths.DirectoryPath;
+import com.google.eclipse.protobuf.ui.preferences.paths.PathsPreferences;
+import com.google.eclipse.protobuf.ui.scoping.ImportRootIndex.Root;
+import com.google.eclipse.protobuf.ui.scoping.ResourceExistenceCache.ChangeMarker;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Keeps an <code>{@link ImportRootIndex}</code> for each list of import root directories. Each directory is scanned in
+ * the background the first time it is requested, and scanned again once <code>{@link ResourceExistenceCache}</code>
+ * reports that ".proto" files or directories under it may have been added or removed. Directories not affected by a
+ * change are not scanned again.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton class ImportRootIndexes {
+  @Inject private ResourceExistenceCache existenceCache;
+  @Inject private ResourceLocations locations;
+  @Inject private FileSystemPathResolver pathResolver;
+
+  private final ConcurrentMap<String, Root> roots = new ConcurrentHashMap<String, Root>();
+  private final ConcurrentMap<List<String>, ImportRootIndex> indexes =
+      new ConcurrentHashMap<List<String>, ImportRootIndex>();
+  private final ConcurrentMap<String, Job> scans = new ConcurrentHashMap<String, Job>();
+
+  /**
+   * Returns the up-to-date index of the import root directories in the given preferences. If any of the directories
+   * has not been scanned yet, or has changed since it was scanned, a background scan of that directory is scheduled.
+   * @param preferences the preferences containing the import root directories.
+   * @return the up-to-date index, or {@code null} if it is still being built.
+   */
+  ImportRootIndex indexOf(PathsPreferences preferences) {
+    List<DirectoryPath> paths = directoryPathsIn(preferences);
+    List<String> keys = newArrayList();
+    List<Root> current = newArrayList();
+    boolean upToDate = true;
+    for (DirectoryPath path : paths) {
+      String key = keyOf(path);
+      keys.add(key);
+      Root root = roots.get(key);
+      if (root == null || root.marker.hasChanged()) {
+        scheduleScan(key, path);
+        upToDate = false;
+      }
+      current.add(root);
+    }
+    if (!upToDate) {
+      return null;
+    }
+    ImportRootIndex index = indexes.get(keys);
+    if (index == null || !index.isBuiltFrom(current)) {
+      index = new ImportRootIndex(current);
+      indexes.put(keys, index);
+    }
+    return index;
+  }
+
+  private void scheduleScan(final String key, final DirectoryPath path) {
+    Job scan = new Job("Indexing import directories") {
+      @Override protected IStatus run(IProgressMonitor monitor) {
+        try {
+          Root old = roots.put(key, scan(path));
+          if (old != null) {
+            existenceCache.stopWatching(old.marker);
+          }
+        } finally {
+          scans.remove(key);
+        }
+        return OK_STATUS;
+      }
+    };
+    if (scans.putIfAbsent(key, scan) == null) {
+      scan.setSystem(true);
+      scan.schedule();
+    }
+  }
+
+  private List<DirectoryPath> directoryPathsIn(PathsPreferences preferences) {
+    final List<DirectoryPath> paths = newArrayList();
+    preferences.applyToEachDirectoryPath(new Function<DirectoryPath, Void>() {
+      @Override public Void apply(DirectoryPath path) {
+        paths.add(path);
+        return null;
+      }
+    });
+    return paths;
+  }
+
+  private String keyOf(DirectoryPath path) {
+    return (path.isWorkspacePath() ? "workspace:" : "file:") + path.value();
+  }
+
+  /**
+   * Scans the given import root directories, in order. As <code>{@link MultipleDirectoriesFileResolverStrategy}</code>
+   * does, ".proto" files are looked up in the workspace first and then in the file system locations of the workspace
+   * directories.
+   * @param paths the import root directories.
+   * @return the index of the given directories.
+   */
+  ImportRootIndex scan(List<DirectoryPath> paths) {
+    List<Root> scanned = newArrayList();
+    for (DirectoryPath path : paths) {
+      scanned.add(scan(path));
+    }
+    return new ImportRootIndex(scanned);
+  }
+
+  private Root scan(DirectoryPath path) {
+    ChangeMarker marker = new ChangeMarker();
+    Map<String, String> files = newHashMap();
+    Map<String, String> fileSystemFiles = newHashMap();
+    if (path.isWorkspacePath()) {
+      addWorkspaceFiles(path.value(), marker, files);
+      String location = directoryLocation(path.value());
+      if (location != null) {
+        addFiles(location, marker, fileSystemFiles);
+      }
+    } else {
+      addFiles(path.value(), marker, files);
+    }
+    return new Root(files, fileSystemFiles, marker);
+  }
+
+  private void addWorkspaceFiles(String rootPath, ChangeMarker marker, final Map<String, String> resolvedUris) {
+    // the marker has to be registered before reading the directory, otherwise changes in between would go unnoticed.
+    existenceCache.watch(new Path(rootPath).makeAbsolute(), marker);
+    IResource root = workspaceRoot().findMember(new Path(rootPath));
+    if (!(root instanceof IContainer) || !root.isAccessible()) {
+      return;
+    }
+    final IPath rootFullPath = root.getFullPath();
+    try {
+      root.accept(new IResourceProxyVisitor() {
+        @Override public boolean visit(IResourceProxy proxy) {
+          if (proxy.getType() == FILE && proxy.getName().endsWith(".proto")) {
+            IPath fullPath = proxy.requestFullPath();
+            String relativePath = fullPath.makeRelativeTo(rootFullPath).toString();
+            addIfAbsent(relativePath, URI.createPlatformResourceURI(fullPath.toString(), true), resolvedUris);
+          }
+          return true;
+        }
+      }, NONE);
+    } catch (CoreException e) {
+      // the directory has been removed, the index will be rebuilt.
+    }
+  }
+
+  private String directoryLocation(String workspacePath) {
+    try {
+      return locations.directoryLocation(workspacePath);
+    } catch (RuntimeException e) {
+      // the path does not refer to a folder that has a location in the file system.
+      return null;
+    }
+  }
+
+  private void addFiles(String rootPath, ChangeMarker marker, Map<String, String> resolvedUris) {
+    existenceCache.watch(new File(rootPath), marker);
+    String resolvedRootPath = pathResolver.resolvePath(rootPath);
+    if (isEmpty(resolvedRootPath)) {
+      return;
+    }
+    addFiles(new File(resolvedRootPath), "", resolvedRootPath, marker, newHashSet(), resolvedUris);
+  }
+
+  private void addFiles(File directory, String relativePath, String rootPath, ChangeMarker marker, Set<Object> visited,
+      Map<String, String> resolvedUris) {
+    if (!visited.add(canonicalPathOf(directory))) {
+      // symbolic links pointing to a parent directory.
+      return;
+    }
+    existenceCache.watch(directory, marker);
+    File[] children = directory.listFiles();
+    if (children == null) {
+      return;
+    }
+    for (File child : children) {
+      String childRelativePath = relativePath + child.getName();
+      if (child.getName().endsWith(".proto") && child.isFile()) {
+        addIfAbsent(childRelativePath, URI.createFileURI(rootPath + childRelativePath), resolvedUris);
+      } else if (child.isDirectory()) {
+        addFiles(child, childRelativePath + "/", rootPath, marker, visited, resolvedUris);
+      }
+    }
+  }
+
+  private Object canonicalPathOf(File directory) {
+    try {
+      return directory.getCanonicalPath();
+    } catch (IOException e) {
+      return directory;
+    }
+  }
+
+  private void addIfAbsent(String relativePath, URI uri, Map<String, String> resolvedUris) {
+    if (!resolvedUris.containsKey(relativePath)) {
+      resolvedUris.put(relativePath, uri.toString());
+    }
+  }
+}
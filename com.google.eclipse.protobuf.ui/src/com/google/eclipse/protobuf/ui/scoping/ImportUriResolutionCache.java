@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.ui.scoping;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Supplier;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Remembers how "import" URIs were resolved. All entries are discarded as soon as
+ * <code>{@link ResourceExistenceCache}</code> reports that a file may have been added or removed.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton class ImportUriResolutionCache {
+  private static final String UNRESOLVED = "";
+
+  private final ConcurrentMap<List<?>, String> resolvedUris = new ConcurrentHashMap<List<?>, String>();
+
+  @Inject private ResourceExistenceCache existenceCache;
+
+  private volatile long generation;
+
+  /**
+   * Returns the resolved URI stored under the given key. If there is none, the URI is resolved using the given
+   * {@code Supplier} and stored.
+   * @param key identifies the "import" URI and everything its resolution depends on.
+   * @param resolver resolves the "import" URI.
+   * @return the resolved URI, or {@code null} if the "import" URI cannot be resolved.
+   */
+  String resolvedUri(List<?> key, Supplier<String> resolver) {
+    discardIfOutdated();
+    String resolved = resolvedUris.get(key);
+    if (resolved == null) {
+      long current = existenceCache.generation();
+      resolved = resolver.get();
+      if (resolved == null) {
+        resolved = UNRESOLVED;
+      }
+      if (current == existenceCache.generation()) {
+        resolvedUris.put(key, resolved);
+      }
+    }
+    return UNRESOLVED.equals(resolved) ? null : resolved;
+  }
+
+  private void discardIfOutdated() {
+    if (existenceCache.hasChangedSince(generation)) {
+      long latest = existenceCache.generation();
+      resolvedUris.clear();
+      generation = latest;
+    }
+  }
+}
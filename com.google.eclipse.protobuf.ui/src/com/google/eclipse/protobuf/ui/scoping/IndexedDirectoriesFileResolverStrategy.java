@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.ui.scoping;
+
+import static java.util.Collections.singletonList;
+
+import static com.google.eclipse.protobuf.ui.scoping.ImportRootIndex.canLookUp;
+
+import org.eclipse.emf.common.util.URI;
+
+import com.google.eclipse.protobuf.ui.preferences.paths.PathsPreferences;
+import com.google.inject.Inject;
+
+/**
+ * Resolves "import" URIs with a single lookup in an index of the import root directories. Falls back to
+ * <code>{@link MultipleDirectoriesFileResolverStrategy}</code> while the index is being built, or when the "import"
+ * URI is not a plain relative path.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class IndexedDirectoriesFileResolverStrategy implements FileResolverStrategy {
+  @Inject private ImportRootIndexes indexes;
+  @Inject private MultipleDirectoriesFileResolverStrategy multipleDirectories;
+
+  @Override
+  public String resolveUri(String importUri, URI declaringResourceUri, Iterable<PathsPreferences> allPathPreferences) {
+    boolean canLookUp = canLookUp(importUri);
+    for (PathsPreferences preferences : allPathPreferences) {
+      ImportRootIndex index = canLookUp ? indexes.indexOf(preferences) : null;
+      String resolved = (index != null) ? index.resolvedUri(importUri) :
+          multipleDirectories.resolveUri(importUri, declaringResourceUri, singletonList(preferences));
+      if (resolved != null) {
+        return resolved;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.ui.scoping;
+
+import com.google.eclipse.protobuf.scoping.ProtoDescriptorProvider;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Starts loading descriptor.proto in the background as soon as the editor's injector is created, so the first editor
+ * (usually in the UI thread, while highlighting) does not have to wait for it to be parsed.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton public class ProtoDescriptorWarmUp {
+  @Inject public ProtoDescriptorWarmUp(ProtoDescriptorProvider descriptorProvider) {
+    descriptorProvider.warmUp();
+  }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.ui.scoping;
+
+import static org.eclipse.core.resources.IResource.FILE;
+import static org.eclipse.core.resources.IResourceChangeEvent.POST_CHANGE;
+import static org.eclipse.core.resources.IResourceDelta.ADDED;
+import static org.eclipse.core.resources.IResourceDelta.OPEN;
+import static org.eclipse.core.resources.IResourceDelta.REMOVED;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.eclipse.protobuf.util.Workspaces.workspaceRoot;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.emf.common.util.URI;
+
+import com.google.eclipse.protobuf.util.Uris;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Remembers whether the files referred by resolved "import" URIs exist.
+ * <p>
+ * Answers for workspace files are discarded when ".proto" files, folders or projects are added, removed, opened or
+ * closed. Answers for files in the file system are discarded when the modification time of their parent directory
+ * changes; each directory is checked at most once every {@link #DIRECTORY_CHECK_INTERVAL_MILLIS} milliseconds.
+ * </p>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton class ResourceExistenceCache implements IResourceChangeListener {
+  static final long DIRECTORY_CHECK_INTERVAL_MILLIS = 1000;
+
+  private final ConcurrentMap<File, DirectoryStamp> directories = new ConcurrentHashMap<File, DirectoryStamp>();
+  private final ConcurrentMap<File, Boolean> files = new ConcurrentHashMap<File, Boolean>();
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicLong lastDirectoryCheck = new AtomicLong();
+  private final ConcurrentMap<URI, Boolean> workspaceFiles = new ConcurrentHashMap<URI, Boolean>();
+  private final Set<ChangeMarker> workspaceMarkers = new CopyOnWriteArraySet<ChangeMarker>();
+
+  private final Uris uris;
+
+  @Inject ResourceExistenceCache(Uris uris) {
+    this.uris = uris;
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(this, POST_CHANGE);
+  }
+
+  /**
+   * Indicates whether the resource or file referred by the given URI exists.
+   * @param uri the URI to check. It may be {@code null}.
+   * @return {@code true} if the resource or file referred by the given URI exists, {@code false} otherwise.
+   */
+  boolean exists(URI uri) {
+    if (uri == null) {
+      return false;
+    }
+    if (uri.isFile()) {
+      return fileExists(new File(uri.path()));
+    }
+    if (uri.isPlatformResource()) {
+      return workspaceFileExists(uri);
+    }
+    return false;
+  }
+
+  private boolean fileExists(File file) {
+    File directory = file.getAbsoluteFile().getParentFile();
+    if (directory != null) {
+      checkForChanges(stampOf(directory));
+    }
+    Boolean exists = files.get(file);
+    if (exists == null) {
+      exists = file.exists();
+      files.put(file, exists);
+    }
+    return exists;
+  }
+
+  private boolean workspaceFileExists(URI uri) {
+    Boolean exists = workspaceFiles.get(uri);
+    if (exists == null) {
+      exists = uris.referredFileExists(uri);
+      workspaceFiles.put(uri, exists);
+    }
+    return exists;
+  }
+
+  /**
+   * Starts tracking the modification time of the given directory, so that changes in its contents are reported by
+   * <code>{@link #hasChangedSince(long)}</code> and by the given marker. This method should be called before the
+   * contents of the directory are read.
+   * @param directory the directory to track. It does not need to exist.
+   * @param marker the marker to notify when the contents of the given directory change.
+   */
+  void watch(File directory, ChangeMarker marker) {
+    DirectoryStamp stamp = stampOf(directory.getAbsoluteFile());
+    stamp.markers.add(marker);
+    marker.watch(this, stamp);
+  }
+
+  /**
+   * Notifies the given marker when ".proto" files or folders are added or removed under the given workspace path.
+   * @param path the full path of a workspace folder.
+   * @param marker the marker to notify.
+   */
+  void watch(IPath path, ChangeMarker marker) {
+    marker.workspacePath = path;
+    workspaceMarkers.add(marker);
+  }
+
+  /**
+   * Stops notifying the given marker of any change.
+   * @param marker the given marker.
+   */
+  void stopWatching(ChangeMarker marker) {
+    workspaceMarkers.remove(marker);
+    for (DirectoryStamp stamp : marker.stamps) {
+      stamp.markers.remove(marker);
+    }
+  }
+
+  private DirectoryStamp stampOf(File directory) {
+    DirectoryStamp stamp = directories.get(directory);
+    if (stamp == null) {
+      // the stamp has to be taken before checking any file in the directory, otherwise files created in between would
+      // go unnoticed.
+      directories.putIfAbsent(directory, new DirectoryStamp(directory));
+      stamp = directories.get(directory);
+    }
+    return stamp;
+  }
+
+  /**
+   * Returns a number that changes every time answers given by this cache are discarded.
+   * @return a number that changes every time answers given by this cache are discarded.
+   */
+  long generation() {
+    return generation.get();
+  }
+
+  /**
+   * Indicates whether any answer given by this cache has been discarded since the given generation was obtained. It
+   * checks the modification time of directories whose last check is older than
+   * {@link #DIRECTORY_CHECK_INTERVAL_MILLIS}.
+   * @param previous a value previously obtained from {@link #generation()}.
+   * @return {@code true} if any answer has been discarded, {@code false} otherwise.
+   */
+  boolean hasChangedSince(long previous) {
+    long now = System.currentTimeMillis();
+    long lastCheck = lastDirectoryCheck.get();
+    // directories are not checked more often than each of them would be.
+    if (now - lastCheck >= DIRECTORY_CHECK_INTERVAL_MILLIS && lastDirectoryCheck.compareAndSet(lastCheck, now)) {
+      for (DirectoryStamp stamp : directories.values()) {
+        checkForChanges(stamp);
+      }
+    }
+    return generation.get() != previous;
+  }
+
+  private void checkForChanges(DirectoryStamp stamp) {
+    if (!stamp.hasChanged()) {
+      return;
+    }
+    for (Iterator<File> i = files.keySet().iterator(); i.hasNext();) {
+      if (stamp.directory.equals(i.next().getAbsoluteFile().getParentFile())) {
+        i.remove();
+      }
+    }
+    for (ChangeMarker marker : stamp.markers) {
+      marker.changed = true;
+    }
+    generation.incrementAndGet();
+  }
+
+  @Override public void resourceChanged(IResourceChangeEvent event) {
+    IResourceDelta delta = event.getDelta();
+    if (delta == null) {
+      return;
+    }
+    WorkspaceStructureChangeDetector detector = new WorkspaceStructureChangeDetector();
+    try {
+      delta.accept(detector);
+    } catch (CoreException e) {
+      detector.changedPaths.add(workspaceRoot().getFullPath());
+    }
+    if (detector.changedPaths.isEmpty()) {
+      return;
+    }
+    workspaceFiles.clear();
+    for (ChangeMarker marker : workspaceMarkers) {
+      if (detector.affects(marker.workspacePath)) {
+        marker.changed = true;
+      }
+    }
+    generation.incrementAndGet();
+  }
+
+  /**
+   * Reports changes in the contents of an import root directory: in the workspace, in the file system, or both.
+   * Directories in the file system are checked at most once every {@link #DIRECTORY_CHECK_INTERVAL_MILLIS}
+   * milliseconds, only when the marker is queried.
+   */
+  static class ChangeMarker {
+    private final List<DirectoryStamp> stamps = new CopyOnWriteArrayList<DirectoryStamp>();
+
+    private volatile ResourceExistenceCache owner;
+    private volatile IPath workspacePath;
+    private volatile boolean changed;
+    private volatile long lastChecked = System.currentTimeMillis();
+
+    private void watch(ResourceExistenceCache cache, DirectoryStamp stamp) {
+      owner = cache;
+      stamps.add(stamp);
+    }
+
+    /**
+     * Indicates whether the contents of the watched directories may have changed since this marker was created.
+     * @return {@code true} if the contents of the watched directories may have changed, {@code false} otherwise.
+     */
+    boolean hasChanged() {
+      if (changed) {
+        return true;
+      }
+      long now = System.currentTimeMillis();
+      ResourceExistenceCache cache = owner;
+      if (cache != null && now - lastChecked >= DIRECTORY_CHECK_INTERVAL_MILLIS) {
+        lastChecked = now;
+        for (DirectoryStamp stamp : stamps) {
+          cache.checkForChanges(stamp);
+        }
+      }
+      return changed;
+    }
+  }
+
+  private static class DirectoryStamp {
+    final File directory;
+    final Set<ChangeMarker> markers = new CopyOnWriteArraySet<ChangeMarker>();
+
+    private long lastChecked;
+    private long lastModified;
+
+    DirectoryStamp(File directory) {
+      this.directory = directory;
+      lastChecked = System.currentTimeMillis();
+      lastModified = directory.lastModified();
+    }
+
+    synchronized boolean hasChanged() {
+      long now = System.currentTimeMillis();
+      if (now - lastChecked < DIRECTORY_CHECK_INTERVAL_MILLIS) {
+        return false;
+      }
+      lastChecked = now;
+      long modified = directory.lastModified();
+      if (modified == lastModified) {
+        return false;
+      }
+      lastModified = modified;
+      return true;
+    }
+  }
+
+  private static class WorkspaceStructureChangeDetector implements IResourceDeltaVisitor {
+    final List<IPath> changedPaths = newArrayList();
+
+    @Override public boolean visit(IResourceDelta delta) {
+      boolean addedOrRemoved = (delta.getKind() & (ADDED | REMOVED)) != 0 && affectsImports(delta.getResource());
+      if (addedOrRemoved || (delta.getFlags() & OPEN) != 0) {
+        changedPaths.add(delta.getFullPath());
+        // everything below has been added, removed, opened or closed too.
+        return false;
+      }
+      return true;
+    }
+
+    boolean affects(IPath path) {
+      if (path == null) {
+        return false;
+      }
+      for (IPath changed : changedPaths) {
+        if (changed.isPrefixOf(path) || path.isPrefixOf(changed)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean affectsImports(IResource resource) {
+      return resource.getType() != FILE || "proto".equals(resource.getFileExtension());
+    }
+  }
+}
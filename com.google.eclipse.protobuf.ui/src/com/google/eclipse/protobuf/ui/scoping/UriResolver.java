@@ -14,7 +14,6 @@ import static org.eclipse.xtext.util.Strings.isEmpty;
 import org.eclipse.emf.common.util.URI;
 
 import com.google.eclipse.protobuf.ui.preferences.paths.DirectoryPath;
-import com.google.eclipse.protobuf.util.Uris;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -24,8 +23,8 @@ import com.google.inject.Singleton;
 @Singleton class UriResolver {
   private static final String PATH_SEPARATOR = new String(new char[] { SEPARATOR });
 
+  @Inject private ResourceExistenceCache existenceCache;
   @Inject private FileSystemPathResolver pathResolver;
-  @Inject private Uris uris;
 
   String resolveUri(String importUri, DirectoryPath importRootPath) {
     URI uri = resolveUri(importUri, importRootPath.value(), importRootPath.isWorkspacePath());
@@ -68,6 +67,6 @@ import com.google.inject.Singleton;
   }
 
   private String resolveUri(URI uri) {
-    return (uris.referredResourceExists(uri)) ? uri.toString() : null;
+    return (existenceCache.exists(uri)) ? uri.toString() : null;
   }
 }
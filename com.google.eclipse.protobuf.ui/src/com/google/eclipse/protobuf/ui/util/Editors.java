@@ -31,6 +31,16 @@ import com.google.inject.Singleton;
     return (resource == null) ? null : resource.getProject();
   }
 
+  /**
+   * Returns the file displayed in the given editor.
+   * @param editor the given editor.
+   * @return the file displayed in the given editor, or {@code null} if the editor does not display a file in the
+   *         workspace.
+   */
+  public IResource fileDisplayedIn(IEditorPart editor) {
+    return resourceFrom(editor);
+  }
+
   private IResource resourceFrom(IEditorPart editor) {
     if (editor == null) {
       return null;
@@ -12,17 +12,24 @@ import static com.google.common.base.Objects.equal;
 import static com.google.eclipse.protobuf.ui.validation.ProtobufValidation.validate;
 
 import java.net.URI;
+import java.util.Collection;
+import java.util.Set;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.IEditorReference;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsProvider;
 
+import com.google.eclipse.protobuf.resource.ReverseImportIndexes;
 import com.google.eclipse.protobuf.ui.util.Editors;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 
 /**
  * Triggers validation of .proto files.
@@ -33,6 +40,8 @@ import com.google.inject.Singleton;
   private final String PROTO_EDITOR_ID = "com.google.eclipse.protobuf.Protobuf";
 
   @Inject private Editors editors;
+  @Inject private ReverseImportIndexes reverseImportIndexes;
+  @Inject @Named(ResourceDescriptionsProvider.PERSISTED_DESCRIPTIONS) private IResourceDescriptions xtextIndex;
 
   /**
    * Triggers validation of all open .proto files belonging to the given project.
@@ -48,6 +57,45 @@ import com.google.inject.Singleton;
     }
   }
 
+  /**
+   * Triggers validation of the open .proto files that import any of the given files, directly or through public
+   * imports. Open files that do not depend on the given ones are not validated.
+   * @param changedFiles the URIs of the changed files.
+   */
+  public void validateOpenEditorsDependingOn(Collection<org.eclipse.emf.common.util.URI> changedFiles) {
+    final Set<org.eclipse.emf.common.util.URI> dependents = reverseImportIndexes.dependentsOf(changedFiles, xtextIndex);
+    if (dependents.isEmpty() || !PlatformUI.isWorkbenchRunning()) {
+      return;
+    }
+    PlatformUI.getWorkbench().getDisplay().asyncExec(new Runnable() {
+      @Override public void run() {
+        for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
+          for (IWorkbenchPage page : window.getPages()) {
+            for (IEditorReference editorRef : page.getEditorReferences()) {
+              validateFileInEditor(editorRef, dependents);
+            }
+          }
+        }
+      }
+    });
+  }
+
+  private void validateFileInEditor(IEditorReference editorRef, Set<org.eclipse.emf.common.util.URI> files) {
+    if (!PROTO_EDITOR_ID.equals(editorRef.getId())) {
+      return;
+    }
+    // editors that were not restored yet are validated when activated.
+    IEditorPart editor = editorRef.getEditor(false);
+    IResource file = editors.fileDisplayedIn(editor);
+    if (file == null) {
+      return;
+    }
+    String path = file.getFullPath().toString();
+    if (files.contains(org.eclipse.emf.common.util.URI.createPlatformResourceURI(path, true))) {
+      validate(editor);
+    }
+  }
+
   private void validateFileInEditor(IEditorReference editorRef, IProject project) {
     if (!PROTO_EDITOR_ID.equals(editorRef.getId())) {
       return;
@@ -14,6 +14,9 @@ import com.google.eclipse.protobuf.naming.ProtobufQualifiedNameConverter;
 import com.google.eclipse.protobuf.naming.ProtobufQualifiedNameProvider;
 import com.google.eclipse.protobuf.resource.FastXtextResourceSet;
 import com.google.eclipse.protobuf.resource.GlobalResourceServiceProvider;
+import com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionManager;
+import com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionStrategy;
+import com.google.eclipse.protobuf.resource.ProtobufResourceScopeCache;
 import com.google.eclipse.protobuf.scoping.ExtensionRegistryProvider;
 import com.google.eclipse.protobuf.scoping.ProtobufImportUriResolver;
 import com.google.eclipse.protobuf.validation.ProtobufResourceValidator;
@@ -25,16 +28,23 @@ import org.eclipse.xtext.conversion.IValueConverterService;
 import org.eclipse.xtext.naming.IQualifiedNameConverter;
 import org.eclipse.xtext.naming.IQualifiedNameProvider;
 import org.eclipse.xtext.parser.antlr.ISyntaxErrorMessageProvider;
+import org.eclipse.xtext.resource.IDefaultResourceDescriptionStrategy;
 import org.eclipse.xtext.resource.IGlobalServiceProvider;
+import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.XtextResource;
 import org.eclipse.xtext.resource.XtextResourceSet;
 import org.eclipse.xtext.scoping.impl.ImportUriResolver;
+import org.eclipse.xtext.util.IResourceScopeCache;
 import org.eclipse.xtext.validation.IResourceValidator;
 
 /**
  * Use this class to register components to be used at runtime / without the Equinox extension registry.
  */
 public class ProtobufRuntimeModule extends AbstractProtobufRuntimeModule {
+  public Class<? extends IDefaultResourceDescriptionStrategy> bindIDefaultResourceDescriptionStrategy() {
+    return ProtobufResourceDescriptionStrategy.class;
+  }
+
   public Class<? extends IGlobalServiceProvider> bindIGlobalServiceProvider() {
     return GlobalResourceServiceProvider.class;
   }
@@ -51,6 +61,14 @@ public class ProtobufRuntimeModule extends AbstractProtobufRuntimeModule {
     return ProtobufQualifiedNameProvider.class;
   }
 
+  public Class<? extends IResourceDescription.Manager> bindIResourceDescription$Manager() {
+    return ProtobufResourceDescriptionManager.class;
+  }
+
+  public Class<? extends IResourceScopeCache> bindIResourceScopeCache() {
+    return ProtobufResourceScopeCache.class;
+  }
+
   public Class<? extends IResourceValidator> bindIResourceValidator() {
     return ProtobufResourceValidator.class;
   }
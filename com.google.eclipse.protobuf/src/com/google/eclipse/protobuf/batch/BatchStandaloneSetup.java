@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.batch;
+
+import java.io.File;
+import java.util.List;
+
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.RegistryFactory;
+
+import com.google.eclipse.protobuf.ProtobufRuntimeModule;
+import com.google.eclipse.protobuf.ProtobufStandaloneSetup;
+import com.google.eclipse.protobuf.scoping.IFileUriResolver;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+
+/**
+ * Initialization support for validating files outside Eclipse: the runtime module, with imports resolved against a
+ * list of import root directories and an empty extension registry.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class BatchStandaloneSetup extends ProtobufStandaloneSetup {
+  private final List<File> importRoots;
+
+  /**
+   * Creates a new <code>{@link BatchStandaloneSetup}</code>.
+   * @param importRoots the directories to look up imported files in.
+   */
+  public BatchStandaloneSetup(List<File> importRoots) {
+    this.importRoots = importRoots;
+  }
+
+  @Override public Injector createInjector() {
+    return Guice.createInjector(Modules.override(new ProtobufRuntimeModule()).with(new BatchModule()));
+  }
+
+  private class BatchModule extends AbstractModule {
+    @Override protected void configure() {
+      bind(IFileUriResolver.class).toInstance(new ImportRootsFileUriResolver(importRoots));
+      // there is no Equinox extension registry outside Eclipse, and therefore no contributed descriptors.
+      bind(IExtensionRegistry.class).toInstance(RegistryFactory.createRegistry(null, this, null));
+    }
+  }
+}
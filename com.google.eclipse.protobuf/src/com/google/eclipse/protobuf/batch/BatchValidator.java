@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.batch;
+
+import static java.util.Arrays.sort;
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+import static org.eclipse.emf.ecore.resource.ContentHandler.UNSPECIFIED_CONTENT_TYPE;
+import static org.eclipse.xtext.util.CancelIndicator.NullImpl;
+import static org.eclipse.xtext.validation.CheckMode.NORMAL_AND_FAST;
+
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.eclipse.protobuf.util.Encodings.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.validation.IResourceValidator;
+import org.eclipse.xtext.validation.Issue;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+/**
+ * Validates ".proto" files outside Eclipse, with the same rules used by the editor and the builder. Files are parsed,
+ * linked and validated in parallel, each thread using its own resource set. Imported files are parsed once and shared
+ * by all threads (see <code>{@link com.google.eclipse.protobuf.resource.SharedResources}</code>): each one is parsed
+ * and linked by a single thread, while holding the lock of its URI, and is only read afterwards.
+ * <p>
+ * Usage: {@code BatchValidator [-I <import root>]... [-j <threads>] [--throughput] <file or directory>...}
+ * </p>
+ * <p>
+ * Results are written to the standard output as JSON (see <code>{@link JsonReport}</code>.) In throughput mode, only
+ * the number of files, issues and files validated per second are written. The exit code is 1 if any error is found.
+ * </p>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class BatchValidator {
+  @Inject private Provider<XtextResourceSet> resourceSetProvider;
+  @Inject private IResourceValidator resourceValidator;
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    List<File> importRoots = newArrayList();
+    List<File> files = newArrayList();
+    int threadCount = Runtime.getRuntime().availableProcessors();
+    boolean throughputMode = false;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (arg.equals("-I") && i + 1 < args.length) {
+        importRoots.add(new File(args[++i]));
+      } else if (arg.startsWith("-I") && arg.length() > 2) {
+        importRoots.add(new File(arg.substring(2)));
+      } else if (arg.equals("-j") && i + 1 < args.length) {
+        threadCount = Math.max(1, Integer.parseInt(args[++i]));
+      } else if (arg.equals("--throughput")) {
+        throughputMode = true;
+      } else if (arg.startsWith("-")) {
+        exitWithUsage("Unknown option: " + arg);
+      } else {
+        addProtoFiles(new File(arg), files);
+      }
+    }
+    if (files.isEmpty()) {
+      exitWithUsage("No .proto files to validate");
+    }
+    if (importRoots.isEmpty()) {
+      // protoc uses the current directory when no import roots are specified.
+      importRoots.add(new File("."));
+    }
+    BatchValidator validator = new BatchStandaloneSetup(importRoots).createInjectorAndDoEMFRegistration()
+                                                                     .getInstance(BatchValidator.class);
+    long start = System.currentTimeMillis();
+    List<FileIssues> results = validator.validate(files, threadCount);
+    long millis = System.currentTimeMillis() - start;
+    Writer out = new BufferedWriter(new OutputStreamWriter(System.out, UTF_8));
+    new JsonReport(out).write(results, millis, throughputMode);
+    out.flush();
+    for (FileIssues result : results) {
+      if (result.errorCount() > 0) {
+        System.exit(1);
+      }
+    }
+    System.exit(0);
+  }
+
+  private static void exitWithUsage(String message) {
+    System.err.println(message);
+    System.err.println("Usage: BatchValidator [-I <import root>]... [-j <threads>] [--throughput] "
+        + "<file or directory>...");
+    System.exit(2);
+  }
+
+  private static void addProtoFiles(File file, List<File> files) {
+    if (file.isFile()) {
+      files.add(file);
+      return;
+    }
+    File[] children = file.listFiles();
+    if (children == null) {
+      return;
+    }
+    sort(children);
+    for (File child : children) {
+      if (child.isDirectory() || child.getName().endsWith(".proto")) {
+        addProtoFiles(child, files);
+      }
+    }
+  }
+
+  /**
+   * Validates the given files in parallel.
+   * @param files the files to validate.
+   * @param threadCount the number of threads to use.
+   * @return the issues found in each file, in the same order as the given files.
+   * @throws InterruptedException if this thread is interrupted while waiting for the validation to finish.
+   */
+  public List<FileIssues> validate(List<File> files, int threadCount) throws InterruptedException {
+    final ThreadLocal<XtextResourceSet> resourceSets = new ThreadLocal<XtextResourceSet>() {
+      @Override protected XtextResourceSet initialValue() {
+        return resourceSetProvider.get();
+      }
+    };
+    ExecutorService executor = newFixedThreadPool(threadCount);
+    try {
+      List<Future<FileIssues>> tasks = newArrayList();
+      for (final File file : files) {
+        tasks.add(executor.submit(new Callable<FileIssues>() {
+          @Override public FileIssues call() {
+            return validate(file, resourceSets.get());
+          }
+        }));
+      }
+      List<FileIssues> results = newArrayList();
+      for (Future<FileIssues> task : tasks) {
+        results.add(resultOf(task));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private FileIssues validate(File file, XtextResourceSet resourceSet) {
+    URI uri = URI.createFileURI(file.getAbsolutePath());
+    try {
+      Resource resource = resourceSet.createResource(uri, UNSPECIFIED_CONTENT_TYPE);
+      resource.load(resourceSet.getLoadOptions());
+      List<Issue> issues = resourceValidator.validate(resource, NORMAL_AND_FAST, NullImpl);
+      return new FileIssues(file, (issues == null) ? noIssues() : issues, null);
+    } catch (IOException e) {
+      return new FileIssues(file, noIssues(), e.getMessage());
+    } catch (RuntimeException e) {
+      return new FileIssues(file, noIssues(), String.valueOf(e));
+    } finally {
+      // shared imported files are not in this resource set; anything else loaded for this file is discarded.
+      for (Resource resource : resourceSet.getResources()) {
+        resource.unload();
+      }
+      resourceSet.getResources().clear();
+    }
+  }
+
+  private static List<Issue> noIssues() {
+    return emptyList();
+  }
+
+  private static FileIssues resultOf(Future<FileIssues> task) throws InterruptedException {
+    try {
+      return task.get();
+    } catch (ExecutionException e) {
+      throw propagate(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.batch;
+
+import static java.util.Collections.unmodifiableList;
+
+import static org.eclipse.xtext.diagnostics.Severity.ERROR;
+import static org.eclipse.xtext.diagnostics.Severity.WARNING;
+
+import java.io.File;
+import java.util.List;
+
+import org.eclipse.xtext.diagnostics.Severity;
+import org.eclipse.xtext.validation.Issue;
+
+/**
+ * The issues found when validating a single file.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class FileIssues {
+  private final File file;
+  private final List<Issue> issues;
+  private final String failure;
+
+  FileIssues(File file, List<Issue> issues, String failure) {
+    this.file = file;
+    this.issues = unmodifiableList(issues);
+    this.failure = failure;
+  }
+
+  public File file() {
+    return file;
+  }
+
+  public List<Issue> issues() {
+    return issues;
+  }
+
+  /**
+   * Returns the reason why the file could not be validated.
+   * @return the reason why the file could not be validated, or {@code null} if the file was validated.
+   */
+  public String failure() {
+    return failure;
+  }
+
+  public int errorCount() {
+    return count(ERROR) + (failure != null ? 1 : 0);
+  }
+
+  public int warningCount() {
+    return count(WARNING);
+  }
+
+  private int count(Severity severity) {
+    int count = 0;
+    for (Issue issue : issues) {
+      if (issue.getSeverity() == severity) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.batch;
+
+import static java.util.Collections.unmodifiableList;
+
+import static org.eclipse.xtext.util.Strings.isEmpty;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+import java.io.File;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+
+import com.google.eclipse.protobuf.protobuf.Import;
+import com.google.eclipse.protobuf.scoping.IFileUriResolver;
+
+/**
+ * Resolves "import" URIs the way protoc does with its "--proto_path" option: the imported file is looked up in each of
+ * the given import root directories, in order.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ImportRootsFileUriResolver implements IFileUriResolver {
+  private final List<File> importRoots;
+
+  /**
+   * Creates a new <code>{@link ImportRootsFileUriResolver}</code>.
+   * @param importRoots the directories to look up imported files in.
+   */
+  public ImportRootsFileUriResolver(List<File> importRoots) {
+    this.importRoots = unmodifiableList(newArrayList(importRoots));
+  }
+
+  @Override public void resolveAndUpdateUri(Import anImport) {
+    String importUri = anImport.getImportURI();
+    if (isEmpty(importUri) || !isEmpty(URI.createURI(importUri).scheme())) {
+      return; // already resolved.
+    }
+    for (File root : importRoots) {
+      File file = new File(root, importUri);
+      if (file.isFile()) {
+        anImport.setImportURI(URI.createFileURI(file.getAbsolutePath()).toString());
+        return;
+      }
+    }
+  }
+}
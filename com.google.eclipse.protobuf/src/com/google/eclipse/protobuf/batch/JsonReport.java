@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.batch;
+
+import static java.util.Locale.ENGLISH;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.eclipse.xtext.validation.Issue;
+
+/**
+ * Writes the results of a <code>{@link BatchValidator}</code> run as a JSON document:
+ *
+ * <pre>
+ * {"files":[{"path":"a.proto","issues":[{"severity":"ERROR","line":3,"offset":42,"length":5,"code":"...","message":"..."}]}],
+ *  "summary":{"files":1,"errors":1,"warnings":0,"millis":120,"filesPerSecond":8.3}}
+ * </pre>
+ *
+ * In throughput mode only the summary is written.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class JsonReport {
+  private final Appendable out;
+
+  JsonReport(Appendable out) {
+    this.out = out;
+  }
+
+  void write(List<FileIssues> results, long millis, boolean summaryOnly) throws IOException {
+    out.append("{");
+    if (!summaryOnly) {
+      out.append("\"files\":[");
+      for (int i = 0; i < results.size(); i++) {
+        if (i > 0) {
+          out.append(",");
+        }
+        out.append("\n");
+        writeFile(results.get(i));
+      }
+      out.append("],\n");
+    }
+    writeSummary(results, millis);
+    out.append("}\n");
+  }
+
+  private void writeFile(FileIssues result) throws IOException {
+    out.append("{\"path\":");
+    writeString(result.file().getPath());
+    if (result.failure() != null) {
+      out.append(",\"failure\":");
+      writeString(result.failure());
+    }
+    out.append(",\"issues\":[");
+    boolean first = true;
+    for (Issue issue : result.issues()) {
+      if (!first) {
+        out.append(",");
+      }
+      first = false;
+      writeIssue(issue);
+    }
+    out.append("]}");
+  }
+
+  private void writeIssue(Issue issue) throws IOException {
+    out.append("{\"severity\":");
+    writeString(issue.getSeverity().name());
+    writeNumber("line", issue.getLineNumber());
+    writeNumber("offset", issue.getOffset());
+    writeNumber("length", issue.getLength());
+    if (issue.getCode() != null) {
+      out.append(",\"code\":");
+      writeString(issue.getCode());
+    }
+    out.append(",\"message\":");
+    writeString(issue.getMessage());
+    out.append("}");
+  }
+
+  private void writeSummary(List<FileIssues> results, long millis) throws IOException {
+    int errors = 0;
+    int warnings = 0;
+    for (FileIssues result : results) {
+      errors += result.errorCount();
+      warnings += result.warningCount();
+    }
+    double filesPerSecond = (millis == 0) ? results.size() * 1000d : results.size() * 1000d / millis;
+    out.append("\"summary\":{\"files\":").append(String.valueOf(results.size()))
+       .append(",\"errors\":").append(String.valueOf(errors))
+       .append(",\"warnings\":").append(String.valueOf(warnings))
+       .append(",\"millis\":").append(String.valueOf(millis))
+       .append(",\"filesPerSecond\":").append(String.format(ENGLISH, "%.1f", filesPerSecond))
+       .append("}");
+  }
+
+  private void writeNumber(String name, Integer value) throws IOException {
+    if (value != null) {
+      out.append(",\"").append(name).append("\":").append(String.valueOf(value));
+    }
+  }
+
+  private void writeString(String s) throws IOException {
+    out.append('"');
+    if (s != null) {
+      for (int i = 0; i < s.length(); i++) {
+        char c = s.charAt(i);
+        switch (c) {
+          case '"':
+            out.append("\\\"");
+            break;
+          case '\\':
+            out.append("\\\\");
+            break;
+          case '\n':
+            out.append("\\n");
+            break;
+          case '\r':
+            out.append("\\r");
+            break;
+          case '\t':
+            out.append("\\t");
+            break;
+          default:
+            if (c < 0x20) {
+              out.append(String.format("\\u%04x", (int) c));
+            } else {
+              out.append(c);
+            }
+        }
+      }
+    }
+    out.append('"');
+  }
+}
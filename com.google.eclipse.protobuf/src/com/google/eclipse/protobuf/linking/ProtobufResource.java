@@ -8,8 +8,10 @@
  */
 package com.google.eclipse.protobuf.linking;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.util.Map;
 
 import org.eclipse.emf.ecore.EObject;
@@ -19,6 +21,7 @@ import org.eclipse.xtext.linking.lazy.LazyLinkingResource;
 import org.eclipse.xtext.nodemodel.INode;
 import org.eclipse.xtext.util.Triple;
 
+import com.google.eclipse.protobuf.resource.FileContents;
 import com.google.eclipse.protobuf.resource.IResourceVerifier;
 import com.google.inject.Inject;
 
@@ -28,6 +31,8 @@ import com.google.inject.Inject;
 public class ProtobufResource extends LazyLinkingResource {
   @Inject private IResourceVerifier resourceVerifier;
 
+  private String contentHash;
+
   @Override
   protected ProtobufDiagnostic createDiagnostic(Triple<EObject, EReference, INode> t, DiagnosticMessage message) {
     return new ProtobufDiagnostic(message.getIssueCode(), message.getIssueData(), message.getMessage(), t.getThird());
@@ -39,4 +44,23 @@ public class ProtobufResource extends LazyLinkingResource {
     }
     super.doLoad(inputStream, options);
   }
+
+  @Override protected Reader createReader(InputStream inputStream) throws IOException {
+    if (inputStream instanceof FileInputStream) {
+      FileContents contents = FileContents.read(((FileInputStream) inputStream).getChannel(), getEncoding());
+      contentHash = contents.hash();
+      return contents.reader();
+    }
+    contentHash = null;
+    return super.createReader(inputStream);
+  }
+
+  /**
+   * Returns the hash of the contents this resource was loaded from.
+   * @return the hash of the contents this resource was loaded from, or {@code null} if this resource was not loaded
+   * from a file.
+   */
+  public String contentHash() {
+    return contentHash;
+  }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.model.util;
+
+import static java.lang.Math.max;
+import static java.util.Collections.sort;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.eclipse.protobuf.protobuf.Range;
+
+/**
+ * Extension ranges declared by a message or group. Overlapping ranges are merged into a sorted array of disjoint
+ * ranges, so finding whether a tag number is inside a declared range takes logarithmic time.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ExtensionRangeIndex {
+  private final long[] starts;
+  private final long[] ends;
+  private final Map<Range, Range> overlaps = newHashMap();
+
+  ExtensionRangeIndex(List<Range> ranges, final ExtensionRanges extensionRanges) {
+    List<Range> sorted = newArrayList(ranges);
+    sort(sorted, new Comparator<Range>() {
+      @Override public int compare(Range r1, Range r2) {
+        long from1 = extensionRanges.fromOf(r1);
+        long from2 = extensionRanges.fromOf(r2);
+        return (from1 < from2) ? -1 : ((from1 == from2) ? 0 : 1);
+      }
+    });
+    List<long[]> merged = newArrayList();
+    Range farthestReaching = null;
+    for (Range range : sorted) {
+      long from = extensionRanges.fromOf(range);
+      long to = extensionRanges.toOf(range);
+      if (farthestReaching != null && from <= extensionRanges.toOf(farthestReaching)) {
+        overlaps.put(range, farthestReaching);
+      }
+      if (farthestReaching == null || to > extensionRanges.toOf(farthestReaching)) {
+        farthestReaching = range;
+      }
+      long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+      // adjacent ranges are merged too: "1 to 5, 6 to 10" is the same as "1 to 10".
+      if (last != null && from <= last[1] + 1) {
+        last[1] = max(last[1], to);
+      } else {
+        merged.add(new long[] { from, to });
+      }
+    }
+    starts = new long[merged.size()];
+    ends = new long[merged.size()];
+    for (int i = 0; i < starts.length; i++) {
+      starts[i] = merged.get(i)[0];
+      ends[i] = merged.get(i)[1];
+    }
+  }
+
+  /**
+   * Indicates whether the given tag number is inside any of the declared extension ranges.
+   * @param tagNumber the given tag number.
+   * @return {@code true} if the given tag number is inside a declared extension range; {@code false} otherwise.
+   */
+  public boolean contains(long tagNumber) {
+    return indexOfRangeContaining(tagNumber) >= 0;
+  }
+
+  /**
+   * Returns the upper bound of the declared extension range containing the given tag number. Adjacent and overlapping
+   * ranges count as a single one.
+   * @param tagNumber the given tag number.
+   * @return the upper bound of the range containing the given tag number, or {@code Long.MIN_VALUE} if the tag number
+   * is not inside any declared range.
+   */
+  public long upperBoundOfRangeContaining(long tagNumber) {
+    int index = indexOfRangeContaining(tagNumber);
+    return (index < 0) ? Long.MIN_VALUE : ends[index];
+  }
+
+  private int indexOfRangeContaining(long tagNumber) {
+    int low = 0;
+    int high = starts.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (ends[middle] < tagNumber) {
+        low = middle + 1;
+      } else if (starts[middle] > tagNumber) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns a range, declared in the same type, that overlaps with the given one. Of two overlapping ranges, only the
+   * one starting at the higher tag number is reported as overlapping.
+   * @param range the given range.
+   * @return a range that overlaps with the given one, or {@code null} if the given range does not overlap with others.
+   */
+  public Range rangeOverlapping(Range range) {
+    return overlaps.get(range);
+  }
+
+  /**
+   * Indicates whether no extension ranges are declared.
+   * @return {@code true} if no extension ranges are declared; {@code false} otherwise.
+   */
+  public boolean isEmpty() {
+    return starts.length == 0;
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.model.util;
+
+import static org.eclipse.xtext.util.Tuples.pair;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.util.IResourceScopeCache;
+import org.eclipse.xtext.util.Pair;
+
+import com.google.eclipse.protobuf.protobuf.Extensions;
+import com.google.eclipse.protobuf.protobuf.OneOf;
+import com.google.eclipse.protobuf.protobuf.Range;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * Utility methods related to extension <code>{@link Range}</code>s.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton public class ExtensionRanges {
+  /** The highest tag number a field can have, which is the upper bound of a range ending in "max". */
+  public static final long MAX_TAG_NUMBER = 536870911;
+
+  private static final String MAX_KEYWORD = "max";
+
+  @Inject private final IResourceScopeCache cache = IResourceScopeCache.NullImpl.INSTANCE;
+
+  /**
+   * Returns the extension ranges declared by the given message or group. The index is built only once, and it is
+   * discarded when the resource containing the given type is modified.
+   * @param type the given message or group.
+   * @return the extension ranges declared by the given type.
+   */
+  public ExtensionRangeIndex extensionRangeIndexOf(final EObject type) {
+    Resource resource = type.eResource();
+    if (resource == null) {
+      return createExtensionRangeIndex(type);
+    }
+    Pair<EObject, String> key = pair(type, "extensionRangeIndex");
+    return cache.get(key, resource, new Provider<ExtensionRangeIndex>() {
+      @Override public ExtensionRangeIndex get() {
+        return createExtensionRangeIndex(type);
+      }
+    });
+  }
+
+  private ExtensionRangeIndex createExtensionRangeIndex(EObject type) {
+    List<Range> ranges = newArrayList();
+    addRanges(type.eContents(), ranges);
+    return new ExtensionRangeIndex(ranges, this);
+  }
+
+  private void addRanges(Iterable<? extends EObject> contents, List<Range> ranges) {
+    for (EObject e : contents) {
+      if (e instanceof OneOf) {
+        addRanges(((OneOf) e).getElements(), ranges);
+      } else if (e instanceof Extensions) {
+        ranges.addAll(((Extensions) e).getRanges());
+      }
+    }
+  }
+
+  /**
+   * Returns the lower bound of the given range.
+   * @param range the given range.
+   * @return the lower bound of the given range, inclusive.
+   */
+  public long fromOf(Range range) {
+    return range.getFrom();
+  }
+
+  /**
+   * Returns the upper bound of the given range. If the range has a single tag number, its upper bound is the same as
+   * its lower bound.
+   * @param range the given range.
+   * @return the upper bound of the given range, inclusive.
+   */
+  public long toOf(Range range) {
+    String to = range.getTo();
+    if (to == null) {
+      return range.getFrom();
+    }
+    if (MAX_KEYWORD.equals(to)) {
+      return MAX_TAG_NUMBER;
+    }
+    try {
+      return Long.parseLong(to);
+    } catch (NumberFormatException e) {
+      return range.getFrom();
+    }
+  }
+}
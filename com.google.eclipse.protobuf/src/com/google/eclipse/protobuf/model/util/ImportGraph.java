@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.model.util;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+
+import static org.eclipse.emf.ecore.util.EcoreUtil.getAdapter;
+import static org.eclipse.xtext.util.Tuples.pair;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+import static com.google.common.collect.Sets.newLinkedHashSet;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.util.IResourceScopeCache;
+import org.eclipse.xtext.util.Pair;
+
+import com.google.eclipse.protobuf.protobuf.Import;
+import com.google.eclipse.protobuf.protobuf.Protobuf;
+import com.google.eclipse.protobuf.protobuf.PublicImport;
+import com.google.eclipse.protobuf.resource.ResourceSets;
+import com.google.eclipse.protobuf.resource.SharedResources;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * Import graph of the resources in a <code>{@link ResourceSet}</code>.
+ * <p>
+ * The resolved imports of a resource are computed once and cached until the resource is modified or unloaded. Imports
+ * that could not be resolved are resolved again on each lookup, so creating a missing file updates the graph. The
+ * transitive closures computed from them are stored in the {@code ResourceSet} and are discarded as soon as any of the
+ * resources they include changes.
+ * </p>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton public class ImportGraph {
+  @Inject private final IResourceScopeCache cache = IResourceScopeCache.NullImpl.INSTANCE;
+
+  @Inject private Imports imports;
+  @Inject private Protobufs protobufs;
+  @Inject private Resources resources;
+  @Inject private ResourceSets resourceSets;
+  @Inject private SharedResources sharedResources;
+
+  /**
+   * Returns the imports in the given root, in declaration order, together with their resolved URIs.
+   * @param root the given root.
+   * @return the imports in the given root.
+   */
+  public List<ResolvedImport> importsOf(Protobuf root) {
+    Resource resource = root.eResource();
+    if (resource == null) {
+      return emptyList();
+    }
+    return nodeOf(resource).imports;
+  }
+
+  /**
+   * Returns the public imports in the given root, in declaration order, together with their resolved URIs.
+   * @param root the given root.
+   * @return the public imports in the given root.
+   */
+  public List<ResolvedImport> publicImportsOf(Protobuf root) {
+    List<ResolvedImport> publicImports = newArrayList();
+    for (ResolvedImport anImport : importsOf(root)) {
+      if (anImport.isPublic()) {
+        publicImports.add(anImport);
+      }
+    }
+    return unmodifiableList(publicImports);
+  }
+
+  /**
+   * Returns the resource imported by the given import.
+   * @param anImport the given import.
+   * @param resourceSet the {@code ResourceSet} containing the importing resource.
+   * @return the resource imported by the given import, or {@code null} if the import is not resolved, imports
+   * descriptor.proto or refers to a resource that cannot be loaded.
+   */
+  public Resource importedResource(ResolvedImport anImport, ResourceSet resourceSet) {
+    URI uri = anImport.resolvedUri();
+    return (uri == null || resourceSet == null) ? null : resourceSets.findResource(resourceSet, uri);
+  }
+
+  /**
+   * Returns all the resources imported, directly or indirectly, by the given one. Imports of descriptor.proto are
+   * not included.
+   * @param resource the given resource.
+   * @return all the resources imported by the given one.
+   */
+  public Set<Resource> closureOf(Resource resource) {
+    return closureOf(resource, false);
+  }
+
+  /**
+   * Returns the resources imported by the given one, either directly or through a chain of public imports.
+   * @param resource the given resource.
+   * @return the resources imported by the given one, directly or through public imports.
+   */
+  public Set<Resource> publicClosureOf(Resource resource) {
+    return closureOf(resource, true);
+  }
+
+  private Set<Resource> closureOf(Resource resource, boolean publicOnly) {
+    ResourceSet resourceSet = resource.getResourceSet();
+    if (resourceSet == null) {
+      return computeClosure(resource, null, publicOnly).imported;
+    }
+    Map<Pair<URI, Boolean>, Closure> closures = closuresIn(resourceSet);
+    Pair<URI, Boolean> key = pair(resource.getURI(), publicOnly);
+    Closure closure = closures.get(key);
+    if (closure == null || !isUpToDate(closure, resourceSet)) {
+      closure = computeClosure(resource, resourceSet, publicOnly);
+      closures.put(key, closure);
+    }
+    return closure.imported;
+  }
+
+  private Closure computeClosure(Resource resource, ResourceSet resourceSet, boolean publicOnly) {
+    Map<Resource, Node> members = newLinkedHashMap();
+    LinkedList<Resource> pending = new LinkedList<Resource>();
+    members.put(resource, nodeOf(resource));
+    pending.add(resource);
+    while (!pending.isEmpty()) {
+      Node node = members.get(pending.removeFirst());
+      for (ResolvedImport anImport : node.imports) {
+        if (publicOnly && !anImport.isPublic()) {
+          continue;
+        }
+        Resource imported = importedResource(anImport, resourceSet);
+        if (imported == null || members.containsKey(imported)) {
+          continue;
+        }
+        members.put(imported, nodeOf(imported));
+        pending.add(imported);
+      }
+    }
+    return new Closure(resource, members);
+  }
+
+  private boolean isUpToDate(Closure closure, ResourceSet resourceSet) {
+    for (Map.Entry<Resource, Node> member : closure.members.entrySet()) {
+      Resource resource = member.getKey();
+      if (!resource.isLoaded() || !isUsableFrom(resourceSet, resource)) {
+        return false;
+      }
+      if (nodeOf(resource) != member.getValue()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // shared resources do not belong to any of the resource sets they are imported into.
+  private boolean isUsableFrom(ResourceSet resourceSet, Resource resource) {
+    return resource.getResourceSet() == resourceSet || sharedResources.isCurrent(resource);
+  }
+
+  private Node nodeOf(final Resource resource) {
+    Pair<Resource, String> key = pair(resource, "importGraphNode");
+    NodeHolder holder = cache.get(key, resource, new Provider<NodeHolder>() {
+      @Override public NodeHolder get() {
+        return new NodeHolder(createNode(resources.rootOf(resource)));
+      }
+    });
+    Node node = holder.node;
+    if (node.hasUnresolvedImports) {
+      // the files missing when the node was created may exist now.
+      Node refreshed = resolveAgain(node);
+      if (refreshed != node) {
+        holder.node = refreshed;
+      }
+      return refreshed;
+    }
+    return node;
+  }
+
+  private Node createNode(Protobuf root) {
+    if (root == null) {
+      return new Node(ResolvedImport.NONE);
+    }
+    List<ResolvedImport> resolved = newArrayList();
+    for (Import anImport : protobufs.importsIn(root)) {
+      if (imports.isImportingDescriptor(anImport)) {
+        resolved.add(new ResolvedImport(anImport, null, true));
+        continue;
+      }
+      resolved.add(new ResolvedImport(anImport, imports.resolvedUriOf(anImport), false));
+    }
+    return new Node(unmodifiableList(resolved));
+  }
+
+  private Node resolveAgain(Node node) {
+    List<ResolvedImport> resolved = null;
+    for (int i = 0; i < node.imports.size(); i++) {
+      ResolvedImport anImport = node.imports.get(i);
+      if (!anImport.isUnresolved()) {
+        continue;
+      }
+      URI uri = imports.resolvedUriOf(anImport.anImport());
+      if (uri == null) {
+        continue;
+      }
+      if (resolved == null) {
+        resolved = newArrayList(node.imports);
+      }
+      resolved.set(i, new ResolvedImport(anImport.anImport(), uri, false));
+    }
+    return (resolved == null) ? node : new Node(unmodifiableList(resolved));
+  }
+
+  private Map<Pair<URI, Boolean>, Closure> closuresIn(ResourceSet resourceSet) {
+    synchronized (resourceSet) {
+      ClosureCache closureCache = (ClosureCache) getAdapter(resourceSet.eAdapters(), ClosureCache.class);
+      if (closureCache == null) {
+        closureCache = new ClosureCache();
+        resourceSet.eAdapters().add(closureCache);
+      }
+      return closureCache.closures;
+    }
+  }
+
+  /**
+   * An {@code Import} together with its resolved URI.
+   */
+  public static class ResolvedImport {
+    static final List<ResolvedImport> NONE = emptyList();
+
+    private final Import anImport;
+    private final URI resolvedUri;
+    private final boolean importingDescriptor;
+
+    ResolvedImport(Import anImport, URI resolvedUri, boolean importingDescriptor) {
+      this.anImport = anImport;
+      this.resolvedUri = resolvedUri;
+      this.importingDescriptor = importingDescriptor;
+    }
+
+    /**
+     * Returns the import as defined in the model.
+     * @return the import as defined in the model.
+     */
+    public Import anImport() {
+      return anImport;
+    }
+
+    /**
+     * Returns the resolved URI of the import.
+     * @return the resolved URI of the import, or {@code null} if the URI was not resolved or the import is pointing to
+     * descriptor.proto.
+     */
+    public URI resolvedUri() {
+      return resolvedUri;
+    }
+
+    /**
+     * Indicates whether the import is pointing to descriptor.proto.
+     * @return {@code true} if the import is pointing to descriptor.proto, {@code false} otherwise.
+     */
+    public boolean isImportingDescriptor() {
+      return importingDescriptor;
+    }
+
+    /**
+     * Indicates whether the import is a public one.
+     * @return {@code true} if the import is a public one, {@code false} otherwise.
+     */
+    public boolean isPublic() {
+      return anImport instanceof PublicImport;
+    }
+
+    boolean isUnresolved() {
+      return resolvedUri == null && !importingDescriptor;
+    }
+  }
+
+  private static class Node {
+    final List<ResolvedImport> imports;
+    final boolean hasUnresolvedImports;
+
+    Node(List<ResolvedImport> imports) {
+      this.imports = imports;
+      boolean unresolved = false;
+      for (ResolvedImport anImport : imports) {
+        unresolved |= anImport.isUnresolved();
+      }
+      hasUnresolvedImports = unresolved;
+    }
+  }
+
+  private static class NodeHolder {
+    volatile Node node;
+
+    NodeHolder(Node node) {
+      this.node = node;
+    }
+  }
+
+  private static class Closure {
+    final Map<Resource, Node> members;
+    final Set<Resource> imported;
+
+    Closure(Resource start, Map<Resource, Node> members) {
+      this.members = members;
+      Set<Resource> imported = newLinkedHashSet(members.keySet());
+      imported.remove(start);
+      this.imported = unmodifiableSet(imported);
+    }
+  }
+
+  private static class ClosureCache extends AdapterImpl {
+    final Map<Pair<URI, Boolean>, Closure> closures = new ConcurrentHashMap<Pair<URI, Boolean>, Closure>();
+
+    @Override public boolean isAdapterForType(Object type) {
+      return ClosureCache.class == type;
+    }
+  }
+}
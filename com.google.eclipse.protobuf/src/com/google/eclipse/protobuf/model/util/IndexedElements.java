@@ -8,22 +8,30 @@
  */
 package com.google.eclipse.protobuf.model.util;
 
-import static java.lang.Math.max;
 import static java.util.Collections.emptyList;
 
 import static org.eclipse.xtext.util.SimpleAttributeResolver.newResolver;
+import static org.eclipse.xtext.util.Tuples.pair;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.eclipse.protobuf.model.util.TagNumberAllocator.Strategy.NEXT_FREE;
 
 import java.util.List;
 
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.util.IResourceScopeCache;
+import org.eclipse.xtext.util.Pair;
 import org.eclipse.xtext.util.SimpleAttributeResolver;
 
+import com.google.eclipse.protobuf.model.util.TagNumberAllocator.Strategy;
 import com.google.eclipse.protobuf.protobuf.FieldOption;
 import com.google.eclipse.protobuf.protobuf.IndexedElement;
 import com.google.eclipse.protobuf.protobuf.MessageElement;
 import com.google.eclipse.protobuf.protobuf.OneOf;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
 
 /**
@@ -34,11 +42,15 @@ import com.google.inject.Singleton;
 @Singleton public class IndexedElements {
   private final static SimpleAttributeResolver<EObject, Long> INDEX_RESOLVER = newResolver(long.class, "index");
 
+  @Inject private final IResourceScopeCache cache = IResourceScopeCache.NullImpl.INSTANCE;
+
   @Inject private ModelObjects modelObjects;
+  @Inject private TagNumberAllocators allocators;
 
   /**
    * Calculates the index value for the given element. The calculated index value is the maximum of all the index values
-   * of the given element's siblings, plus one. The minimum index value is 1.
+   * of the given element's siblings, plus one. The minimum index value is 1, and the numbers reserved by the Protocol
+   * Buffers implementation (19000 to 19999) are skipped.
    * <p>
    * For example, in the following message:
    * <pre>
@@ -53,23 +65,54 @@ import com.google.inject.Singleton;
    * @return the calculated value for the index of the given element.
    */
   public long calculateNewIndexFor(IndexedElement e) {
-    EObject type = e.eContainer();
-    long index = findMaxIndex(type.eContents());
-    return ++index;
+    return calculateNewIndexFor(e, NEXT_FREE);
+  }
+
+  /**
+   * Calculates the index value for the given element, using the given strategy to choose among the tag numbers not
+   * used by the given element's siblings.
+   * @param e the given element.
+   * @param strategy how to choose the tag number.
+   * @return the calculated value for the index of the given element.
+   */
+  public long calculateNewIndexFor(IndexedElement e, Strategy strategy) {
+    return allocators.allocatorForElementsOf(e).nextFree(strategy);
+  }
+
+  /**
+   * Returns the tag numbers used by the elements of the given message or group, including the ones of groups and of
+   * the members of "oneof"s. The index is built only once, and it is discarded when the resource containing the given
+   * type is modified.
+   * @param type the given message or group.
+   * @return the tag numbers used by the elements of the given type.
+   */
+  public TagNumberIndex tagNumberIndexOf(final EObject type) {
+    Resource resource = type.eResource();
+    if (resource == null) {
+      return createTagNumberIndex(type);
+    }
+    Pair<EObject, String> key = pair(type, "tagNumberIndex");
+    return cache.get(key, resource, new Provider<TagNumberIndex>() {
+      @Override public TagNumberIndex get() {
+        return createTagNumberIndex(type);
+      }
+    });
+  }
+
+  private TagNumberIndex createTagNumberIndex(EObject type) {
+    List<IndexedElement> elements = newArrayList();
+    addIndexedElements(type.eContents(), elements);
+    return new TagNumberIndex(elements, this);
   }
-  
-  private long findMaxIndex(Iterable<? extends EObject> elements) {
-    long maxIndex = 0;
 
-    for (EObject e : elements) {
+  private void addIndexedElements(Iterable<? extends EObject> contents, List<IndexedElement> elements) {
+    for (EObject e : contents) {
       if (e instanceof OneOf) {
-        maxIndex = max(maxIndex, findMaxIndex(((OneOf) e).getElements()));
+        addIndexedElements(((OneOf) e).getElements(), elements);
       } else if (e instanceof IndexedElement) {
-        maxIndex  = max(maxIndex, indexOf((IndexedElement) e));
+        elements.add((IndexedElement) e);
       }
     }
-    
-    return maxIndex;
   }
 
   /**
@@ -8,13 +8,10 @@
  */
 package com.google.eclipse.protobuf.model.util;
 
-import static java.lang.Math.max;
-
-import static org.eclipse.xtext.EcoreUtil2.getAllContentsOfType;
-
-import java.util.List;
+import static com.google.eclipse.protobuf.model.util.TagNumberAllocator.Strategy.NEXT_FREE;
 
 import com.google.eclipse.protobuf.protobuf.Literal;
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
 /**
@@ -23,6 +20,8 @@ import com.google.inject.Singleton;
  * @author alruiz@google.com (Alex Ruiz)
  */
 @Singleton public class Literals {
+  @Inject private TagNumberAllocators allocators;
+
   /**
    * Calculates the index value for the given literal. The calculated index value is the maximum of all the index values
    * of the given literal's siblings, plus one. The minimum index value is zero.
@@ -40,14 +39,6 @@ import com.google.inject.Singleton;
    * @return the calculated index value.
    */
   public long calculateNewIndexOf(Literal literal) {
-    long index = -1;
-    List<Literal> allLiterals = getAllContentsOfType(literal.eContainer(), Literal.class);
-    for (Literal c : allLiterals) {
-      if (c == literal) {
-        continue;
-      }
-      index = max(index, c.getIndex());
-    }
-    return ++index;
+    return allocators.allocatorForElementsOf(literal).nextFreeExcluding(literal, NEXT_FREE);
   }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.model.util;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.naming.IQualifiedNameConverter;
+import org.eclipse.xtext.naming.QualifiedName;
+
+/**
+ * Trie of package names, shared by all the resources in a <code>{@link ResourceSet}</code>. Each node represents a
+ * package name (or a prefix of one,) so questions like "is package a.b a sub-package of a.b.c?" or "how many segments
+ * do a.b.c and a.b.d have in common?" are answered by walking the trie instead of splitting and comparing names.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class PackageTrie extends AdapterImpl {
+  private final Node root = new Node(null, null);
+  private final ConcurrentMap<String, Node> nodesByName = new ConcurrentHashMap<String, Node>();
+
+  private final IQualifiedNameConverter qualifiedNameConverter;
+
+  PackageTrie(IQualifiedNameConverter qualifiedNameConverter) {
+    this.qualifiedNameConverter = qualifiedNameConverter;
+  }
+
+  /**
+   * Returns the node for the package with the given name.
+   * @param packageName the name of the package.
+   * @return the node for the package with the given name, or {@code null} if the given name is empty.
+   */
+  Node nodeFor(String packageName) {
+    Node node = nodesByName.get(packageName);
+    if (node == null) {
+      node = nodeFor(qualifiedNameConverter.toQualifiedName(packageName));
+      if (node == null) {
+        return null;
+      }
+      nodesByName.putIfAbsent(packageName, node);
+    }
+    return node;
+  }
+
+  /**
+   * Returns the node for the package with the given name.
+   * @param packageName the name of the package.
+   * @return the node for the package with the given name, or {@code null} if the given name is empty.
+   */
+  Node nodeFor(QualifiedName packageName) {
+    if (packageName == null || packageName.isEmpty()) {
+      return null;
+    }
+    Node current = root;
+    for (String segment : packageName.getSegments()) {
+      current = current.child(segment);
+    }
+    return current;
+  }
+
+  @Override public boolean isAdapterForType(Object type) {
+    return PackageTrie.class == type;
+  }
+
+  /**
+   * A package name, or a prefix of one, in a <code>{@link PackageTrie}</code>.
+   */
+  public static class Node {
+    private final Node parent;
+    private final String segment;
+    private final int depth;
+    private final ConcurrentMap<String, Node> children = new ConcurrentHashMap<String, Node>();
+
+    private volatile List<String> segments;
+    private volatile QualifiedName name;
+
+    Node(Node parent, String segment) {
+      this.parent = parent;
+      this.segment = segment;
+      depth = (parent == null) ? 0 : parent.depth + 1;
+    }
+
+    Node child(String childSegment) {
+      Node child = children.get(childSegment);
+      if (child == null) {
+        Node newChild = new Node(this, childSegment);
+        child = children.putIfAbsent(childSegment, newChild);
+        if (child == null) {
+          child = newChild;
+        }
+      }
+      return child;
+    }
+
+    /**
+     * Returns the segments of the package name represented by this node.
+     * @return the segments of the package name represented by this node.
+     */
+    public List<String> segments() {
+      if (segments == null) {
+        if (parent == null) {
+          segments = emptyList();
+        } else {
+          List<String> all = newArrayList(parent.segments());
+          all.add(segment);
+          segments = unmodifiableList(all);
+        }
+      }
+      return segments;
+    }
+
+    /**
+     * Returns the package name represented by this node.
+     * @return the package name represented by this node.
+     */
+    public QualifiedName name() {
+      if (name == null) {
+        name = QualifiedName.create(segments());
+      }
+      return name;
+    }
+
+    /**
+     * Indicates whether the package represented by this node and the given one are "related:" both packages are equal
+     * or one is a sub-package of the other.
+     * @param other the node to compare to.
+     * @return {@code true} if the packages are related, {@code false} otherwise.
+     */
+    public boolean isRelatedTo(Node other) {
+      Node deeper = (depth >= other.depth) ? this : other;
+      Node shallower = (deeper == this) ? other : this;
+      return deeper.ancestorAt(shallower.depth) == shallower;
+    }
+
+    /**
+     * Returns the number of leading segments the package represented by this node has in common with the given one.
+     * @param other the node to compare to.
+     * @return the number of leading segments both packages have in common.
+     */
+    public int commonSegmentCount(Node other) {
+      int commonDepth = Math.min(depth, other.depth);
+      Node n1 = ancestorAt(commonDepth);
+      Node n2 = other.ancestorAt(commonDepth);
+      while (n1 != n2) {
+        n1 = n1.parent;
+        n2 = n2.parent;
+      }
+      return n1.depth;
+    }
+
+    private Node ancestorAt(int ancestorDepth) {
+      Node current = this;
+      while (current.depth > ancestorDepth) {
+        current = current.parent;
+      }
+      return current;
+    }
+  }
+}
@@ -11,6 +11,7 @@ package com.google.eclipse.protobuf.model.util;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableList;
 
+import static org.eclipse.emf.ecore.util.EcoreUtil.getAdapter;
 import static org.eclipse.xtext.util.Strings.isEmpty;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -18,9 +19,12 @@ import static com.google.common.collect.Lists.newArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.xtext.naming.IQualifiedNameConverter;
 import org.eclipse.xtext.naming.QualifiedName;
 
+import com.google.eclipse.protobuf.model.util.PackageTrie.Node;
 import com.google.eclipse.protobuf.protobuf.Package;
 import com.google.inject.Inject;
 
@@ -32,6 +36,9 @@ import com.google.inject.Inject;
 public class Packages {
   @Inject private IQualifiedNameConverter qualifiedNameConverter;
 
+  // used by packages that do not belong to a ResourceSet.
+  private PackageTrie detachedTrie;
+
   /**
    * Indicates whether the given packages are "related." "Related" means that the names of the packages are equal or one
    * package is a sub-package of the other one.
@@ -43,30 +50,48 @@ public class Packages {
     if (p1 == null || p2 == null) {
       return false;
     }
-    QualifiedName name1 = nameOf(p1);
-    QualifiedName name2 = nameOf(p2);
-    if (name1 == null || name2 == null) {
+    return areRelated(nodeOf(p1), nodeOf(p2));
+  }
+
+  /**
+   * Indicates whether the given package is "related" to the package with the given name.
+   * @param p1 package to verify against the package named {@code name2}.
+   * @param name2 the name of the package to verify against {@code p1}.
+   * @return {@code true} if the given packages are related; {@code false} otherwise.
+   * @see #areRelated(Package, Package)
+   */
+  public boolean areRelated(Package p1, QualifiedName name2) {
+    if (p1 == null) {
       return false;
     }
-    if (name1.equals(name2)) {
-      return true;
+    return areRelated(nodeOf(p1), trieOf(p1).nodeFor(name2));
+  }
+
+  private boolean areRelated(Node node1, Node node2) {
+    if (node1 == null || node2 == null) {
+      return false;
     }
-    return (isSubPackage(name1, name2));
+    return node1.isRelatedTo(node2);
   }
 
-  private boolean isSubPackage(QualifiedName name1, QualifiedName name2) {
-    List<String> segments = name2.getSegments();
-    int segment2Count = segments.size();
-    int counter = 0;
-    for (String segment1 : name1.getSegments()) {
-      if (!segment1.equals(segments.get(counter++))) {
-        return false;
-      }
-      if (counter == segment2Count) {
-        break;
-      }
+  /**
+   * Returns the number of leading segments the names of the given packages have in common, if neither package is a
+   * sub-package of the other one.
+   * @param p1 package to compare against the package named {@code name2}.
+   * @param name2 the name of the package to compare against {@code p1}.
+   * @return the number of leading segments the names of the given packages have in common, or zero if the packages
+   * are related or if any of them is {@code null}.
+   */
+  public int commonSegmentCountOfUnrelated(Package p1, QualifiedName name2) {
+    if (p1 == null) {
+      return 0;
+    }
+    Node node1 = nodeOf(p1);
+    Node node2 = trieOf(p1).nodeFor(name2);
+    if (node1 == null || node2 == null || node1.isRelatedTo(node2)) {
+      return 0;
     }
-    return true;
+    return node1.commonSegmentCount(node2);
   }
 
   /**
@@ -122,15 +147,48 @@ public class Packages {
    * @return the segments in the name of the given package.
    */
   public List<String> segmentsOf(Package p) {
-    QualifiedName name = (p == null) ? null : nameOf(p);
-    if (name == null) {
+    Node node = (p == null) ? null : nodeOf(p);
+    if (node == null) {
       return emptyList();
     }
-    return name.getSegments();
+    return node.segments();
   }
 
-  private QualifiedName nameOf(Package p) {
+  /**
+   * Returns the name of the given package.
+   * @param p the given package.
+   * @return the name of the given package, or {@code null} if the given package is {@code null} or its name is empty.
+   */
+  public QualifiedName nameOf(Package p) {
+    Node node = (p == null) ? null : nodeOf(p);
+    return (node == null) ? null : node.name();
+  }
+
+  private Node nodeOf(Package p) {
     String name = p.getName();
-    return (isEmpty(name)) ? null : qualifiedNameConverter.toQualifiedName(name);
+    return (isEmpty(name)) ? null : trieOf(p).nodeFor(name);
+  }
+
+  private PackageTrie trieOf(Package p) {
+    Resource resource = p.eResource();
+    ResourceSet resourceSet = (resource == null) ? null : resource.getResourceSet();
+    if (resourceSet == null) {
+      return detachedTrie();
+    }
+    synchronized (resourceSet) {
+      PackageTrie trie = (PackageTrie) getAdapter(resourceSet.eAdapters(), PackageTrie.class);
+      if (trie == null) {
+        trie = new PackageTrie(qualifiedNameConverter);
+        resourceSet.eAdapters().add(trie);
+      }
+      return trie;
+    }
+  }
+
+  private synchronized PackageTrie detachedTrie() {
+    if (detachedTrie == null) {
+      detachedTrie = new PackageTrie(qualifiedNameConverter);
+    }
+    return detachedTrie;
   }
 }
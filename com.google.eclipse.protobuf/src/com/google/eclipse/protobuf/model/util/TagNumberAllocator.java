@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.model.util;
+
+import static org.eclipse.emf.common.notify.Notification.ADD;
+import static org.eclipse.emf.common.notify.Notification.ADD_MANY;
+import static org.eclipse.emf.common.notify.Notification.REMOVE;
+import static org.eclipse.emf.common.notify.Notification.REMOVE_MANY;
+import static org.eclipse.emf.common.notify.Notification.SET;
+import static org.eclipse.emf.common.notify.Notification.UNSET;
+
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.eclipse.protobuf.model.util.ExtensionRanges.MAX_TAG_NUMBER;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import com.google.eclipse.protobuf.protobuf.Enum;
+import com.google.eclipse.protobuf.protobuf.IndexedElement;
+import com.google.eclipse.protobuf.protobuf.Literal;
+import com.google.eclipse.protobuf.protobuf.OneOf;
+
+/**
+ * Allocates tag numbers for new fields of a message or group, or new literals of an enum.
+ * <p>
+ * The numbers in use are stored as runs of consecutive numbers, so finding a free number takes logarithmic time
+ * regardless of how many elements the type has. The numbers in use are collected the first time a number is requested;
+ * afterwards, the allocator is attached to the type and updated as elements are added, removed or renumbered, without
+ * scanning the type again.
+ * </p>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class TagNumberAllocator extends AdapterImpl {
+  /**
+   * How to choose a free tag number.
+   */
+  public static enum Strategy {
+    /** The highest number in use, plus one. */
+    NEXT_FREE,
+    /** The lowest number not in use. */
+    LOWEST_FREE,
+    /** The lowest number, higher than the ones in use, that is not inside an extension range of the type. */
+    NEXT_FREE_OUTSIDE_EXTENSION_RANGES;
+  }
+
+  // numbers reserved by the Protocol Buffers implementation.
+  private static final long FIRST_RESERVED = 19000;
+  private static final long LAST_RESERVED = 19999;
+
+  private final EObject type;
+  private final ExtensionRanges extensionRanges;
+  private final long minimum;
+  private final boolean isEnum;
+
+  private final Map<Long, Integer> useCounts = newHashMap();
+  private final TreeMap<Long, Long> usedRuns = new TreeMap<Long, Long>();
+  private final Set<EObject> observed = newHashSet();
+  private final ElementObserver elementObserver = new ElementObserver();
+  private boolean outdated = true;
+
+  TagNumberAllocator(EObject type, ExtensionRanges extensionRanges) {
+    this.type = type;
+    this.extensionRanges = extensionRanges;
+    isEnum = type instanceof Enum;
+    minimum = isEnum ? 0 : 1;
+  }
+
+  /**
+   * Returns a free tag number for a new element of this allocator's type.
+   * @param strategy how to choose the free number.
+   * @return a free tag number.
+   */
+  public synchronized long nextFree(Strategy strategy) {
+    updateIfOutdated();
+    return find(strategy);
+  }
+
+  /**
+   * Returns a free tag number for the given element, ignoring the number the element currently has.
+   * @param element an element of this allocator's type.
+   * @param strategy how to choose the free number.
+   * @return a free tag number.
+   */
+  public synchronized long nextFreeExcluding(EObject element, Strategy strategy) {
+    updateIfOutdated();
+    Long current = observed.contains(element) ? indexOf(element) : null;
+    if (current != null) {
+      release(current);
+    }
+    try {
+      return find(strategy);
+    } finally {
+      if (current != null) {
+        use(current);
+      }
+    }
+  }
+
+  private long find(Strategy strategy) {
+    long next = highestUsed() + 1;
+    switch (strategy) {
+      case LOWEST_FREE:
+        return skipReserved(freeFrom(minimum));
+      case NEXT_FREE_OUTSIDE_EXTENSION_RANGES:
+        ExtensionRangeIndex ranges = extensionRanges.extensionRangeIndexOf(type);
+        long free = freeOutside(ranges, next);
+        if (free <= MAX_TAG_NUMBER) {
+          return free;
+        }
+        // no free number above the ones in use: look for one in the gaps.
+        long gap = freeOutside(ranges, minimum);
+        // if there is none, any number is too big; the one returned is at least not inside an extension range.
+        return (gap <= MAX_TAG_NUMBER) ? gap : free;
+      default:
+        return skipReserved(next);
+    }
+  }
+
+  private long freeOutside(ExtensionRangeIndex ranges, long from) {
+    long candidate = skipReserved(freeFrom(from));
+    while (true) {
+      long rangeEnd = ranges.upperBoundOfRangeContaining(candidate);
+      if (rangeEnd < candidate) {
+        return candidate;
+      }
+      candidate = skipReserved(freeFrom(rangeEnd + 1));
+    }
+  }
+
+  private long skipReserved(long candidate) {
+    if (isEnum || candidate < FIRST_RESERVED || candidate > LAST_RESERVED) {
+      return candidate;
+    }
+    return freeFrom(LAST_RESERVED + 1);
+  }
+
+  private long highestUsed() {
+    return usedRuns.isEmpty() ? minimum - 1 : usedRuns.lastEntry().getValue();
+  }
+
+  // runs of used numbers are merged when they touch, so the number after a run is always free.
+  private long freeFrom(long candidate) {
+    Map.Entry<Long, Long> run = usedRuns.floorEntry(candidate);
+    return (run != null && run.getValue() >= candidate) ? run.getValue() + 1 : candidate;
+  }
+
+  private void use(long number) {
+    if (number < minimum) {
+      return;
+    }
+    Integer count = useCounts.get(number);
+    useCounts.put(number, (count == null) ? 1 : count + 1);
+    if (count != null) {
+      return;
+    }
+    long start = number;
+    long end = number;
+    Map.Entry<Long, Long> lower = usedRuns.floorEntry(number - 1);
+    if (lower != null && lower.getValue() == number - 1) {
+      start = lower.getKey();
+    }
+    Long higherEnd = usedRuns.remove(number + 1);
+    if (higherEnd != null) {
+      end = higherEnd;
+    }
+    usedRuns.put(start, end);
+  }
+
+  private void release(long number) {
+    Integer count = useCounts.get(number);
+    if (count == null) {
+      return;
+    }
+    if (count > 1) {
+      useCounts.put(number, count - 1);
+      return;
+    }
+    useCounts.remove(number);
+    Map.Entry<Long, Long> run = usedRuns.floorEntry(number);
+    usedRuns.remove(run.getKey());
+    if (run.getKey() < number) {
+      usedRuns.put(run.getKey(), number - 1);
+    }
+    if (run.getValue() > number) {
+      usedRuns.put(number + 1, run.getValue());
+    }
+  }
+
+  private void updateIfOutdated() {
+    if (!outdated) {
+      return;
+    }
+    addElements(type.eContents());
+    outdated = false;
+  }
+
+  private void addElements(Collection<?> contents) {
+    for (Object o : contents) {
+      addElement(o);
+    }
+  }
+
+  private void addElement(Object o) {
+    if (!(o instanceof OneOf || o instanceof IndexedElement || o instanceof Literal)) {
+      return;
+    }
+    EObject e = (EObject) o;
+    if (!observed.add(e)) {
+      return;
+    }
+    e.eAdapters().add(elementObserver);
+    if (e instanceof OneOf) {
+      addElements(e.eContents());
+      return;
+    }
+    Long index = indexOf(e);
+    if (index != null) {
+      use(index);
+    }
+  }
+
+  private void removeElements(Collection<?> contents) {
+    for (Object o : contents) {
+      removeElement(o);
+    }
+  }
+
+  private void removeElement(Object o) {
+    if (!(o instanceof EObject) || !observed.remove(o)) {
+      return;
+    }
+    EObject e = (EObject) o;
+    e.eAdapters().remove(elementObserver);
+    if (e instanceof OneOf) {
+      removeElements(e.eContents());
+      return;
+    }
+    Long index = indexOf(e);
+    if (index != null) {
+      release(index);
+    }
+  }
+
+  private static Long indexOf(EObject e) {
+    EStructuralFeature feature = e.eClass().getEStructuralFeature("index");
+    Object value = (feature == null) ? null : e.eGet(feature);
+    return (value instanceof Long) ? (Long) value : null;
+  }
+
+  @Override public void notifyChanged(Notification notification) {
+    updateContents(notification);
+  }
+
+  // until the numbers in use are collected for the first time, there is nothing to update.
+  private synchronized void updateContents(Notification notification) {
+    if (outdated || notification.isTouch()) {
+      return;
+    }
+    Object feature = notification.getFeature();
+    if (!(feature instanceof EReference) || !((EReference) feature).isContainment()) {
+      return;
+    }
+    switch (notification.getEventType()) {
+      case ADD:
+        addElement(notification.getNewValue());
+        break;
+      case ADD_MANY:
+        addElements((Collection<?>) notification.getNewValue());
+        break;
+      case REMOVE:
+        removeElement(notification.getOldValue());
+        break;
+      case REMOVE_MANY:
+        removeElements((Collection<?>) notification.getOldValue());
+        break;
+      case SET:
+      case UNSET:
+        removeElement(notification.getOldValue());
+        addElement(notification.getNewValue());
+        break;
+      default:
+        // moving an element does not change the numbers in use.
+    }
+  }
+
+  private synchronized void updateIndex(Notification notification) {
+    if (outdated || notification.isTouch() || notification.getEventType() != SET) {
+      return;
+    }
+    Object feature = notification.getFeature();
+    if (!(feature instanceof EStructuralFeature) || !"index".equals(((EStructuralFeature) feature).getName())) {
+      return;
+    }
+    Object oldValue = notification.getOldValue();
+    Object newValue = notification.getNewValue();
+    if (oldValue instanceof Long) {
+      release((Long) oldValue);
+    }
+    if (newValue instanceof Long) {
+      use((Long) newValue);
+    }
+  }
+
+  @Override public boolean isAdapterForType(Object type) {
+    return TagNumberAllocator.class == type;
+  }
+
+  // observes the elements of the type and its "oneof"s, which may be types with their own allocator (e.g. groups.)
+  private class ElementObserver extends AdapterImpl {
+    @Override public void notifyChanged(Notification notification) {
+      if (notification.getNotifier() instanceof OneOf) {
+        updateContents(notification);
+        return;
+      }
+      updateIndex(notification);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.model.util;
+
+import static org.eclipse.emf.ecore.util.EcoreUtil.getAdapter;
+
+import org.eclipse.emf.ecore.EObject;
+
+import com.google.eclipse.protobuf.protobuf.OneOf;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Provides the <code>{@link TagNumberAllocator}</code> of messages, groups and enums.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton public class TagNumberAllocators {
+  @Inject private ExtensionRanges extensionRanges;
+
+  /**
+   * Returns the allocator of tag numbers for new elements of the type containing the given element. Members of a
+   * "oneof" share the tag numbers of the type containing the "oneof."
+   * @param element the given element.
+   * @return the allocator of tag numbers of the type containing the given element.
+   */
+  public TagNumberAllocator allocatorForElementsOf(EObject element) {
+    EObject type = element.eContainer();
+    if (type instanceof OneOf) {
+      type = type.eContainer();
+    }
+    return allocatorFor(type);
+  }
+
+  /**
+   * Returns the allocator of tag numbers for new elements of the given type. The allocator is created the first time
+   * it is requested, and it is kept up to date while the type changes.
+   * @param type a message, group or enum.
+   * @return the allocator of tag numbers of the given type.
+   */
+  public TagNumberAllocator allocatorFor(EObject type) {
+    synchronized (type) {
+      TagNumberAllocator allocator = (TagNumberAllocator) getAdapter(type.eAdapters(), TagNumberAllocator.class);
+      if (allocator == null) {
+        allocator = new TagNumberAllocator(type, extensionRanges);
+        type.eAdapters().add(allocator);
+      }
+      return allocator;
+    }
+  }
+}
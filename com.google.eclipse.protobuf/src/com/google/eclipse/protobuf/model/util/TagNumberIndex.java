@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.model.util;
+
+import static java.util.Arrays.binarySearch;
+import static java.util.Arrays.sort;
+
+import static com.google.common.collect.Maps.newHashMap;
+
+import java.util.Map;
+
+import com.google.eclipse.protobuf.protobuf.IndexedElement;
+
+/**
+ * Tag numbers used by the elements of a message or group, including the ones of groups and of the members of "oneof"s.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class TagNumberIndex {
+  private final Map<Long, IndexedElement> firstElements = newHashMap();
+  private final long[] sortedTagNumbers;
+
+  TagNumberIndex(Iterable<IndexedElement> elements, IndexedElements indexedElements) {
+    for (IndexedElement e : elements) {
+      Long tagNumber = indexedElements.indexOf(e);
+      if (!firstElements.containsKey(tagNumber)) {
+        firstElements.put(tagNumber, e);
+      }
+    }
+    sortedTagNumbers = new long[firstElements.size()];
+    int i = 0;
+    for (Long tagNumber : firstElements.keySet()) {
+      sortedTagNumbers[i++] = tagNumber;
+    }
+    sort(sortedTagNumbers);
+  }
+
+  /**
+   * Returns the first element, in declaration order, that uses the given tag number.
+   * @param tagNumber the given tag number.
+   * @return the first element that uses the given tag number, or {@code null} if the tag number is not used.
+   */
+  public IndexedElement firstElementWithTagNumber(long tagNumber) {
+    return firstElements.get(tagNumber);
+  }
+
+  /**
+   * Returns the element using the lowest tag number in the given range.
+   * @param from the lower bound of the range, inclusive.
+   * @param to the upper bound of the range, inclusive.
+   * @return the element using the lowest tag number in the given range, or {@code null} if no tag number in the range
+   * is used.
+   */
+  public IndexedElement firstElementWithTagNumberIn(long from, long to) {
+    int position = binarySearch(sortedTagNumbers, from);
+    if (position < 0) {
+      position = -(position + 1);
+    }
+    if (position == sortedTagNumbers.length || sortedTagNumbers[position] > to) {
+      return null;
+    }
+    return firstElements.get(sortedTagNumbers[position]);
+  }
+}
@@ -73,6 +73,7 @@ public class LocalNamesProvider {
   @Inject private NameResolver nameResolver;
   @Inject private IQualifiedNameConverter qualifiedNameConverter;
   @Inject private Packages packages;
+  @Inject private QualifiedNamePools namePools;
 
   public List<QualifiedName> localNames(final EObject e, final NamingStrategy strategy) {
     Pair<EObject, String> key = pair(e, "localFqns");
@@ -97,6 +98,9 @@ public class LocalNamesProvider {
           allNames.add(qualifiedName);
         }
         allNames.addAll(packages.addPackageNameSegments(modelObjects.packageOf(e), qualifiedName));
+        for (int i = 0; i < allNames.size(); i++) {
+          allNames.set(i, namePools.intern(allNames.get(i), e));
+        }
         return pair(name.getFirst(), allNames);
       }
     });
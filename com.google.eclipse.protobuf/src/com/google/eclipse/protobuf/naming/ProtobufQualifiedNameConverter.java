@@ -17,6 +17,7 @@ import java.util.regex.Pattern;
 import org.eclipse.xtext.naming.IQualifiedNameConverter.DefaultImpl;
 import org.eclipse.xtext.naming.QualifiedName;
 
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
 /**
@@ -27,6 +28,8 @@ import com.google.inject.Singleton;
 @Singleton public class ProtobufQualifiedNameConverter extends DefaultImpl {
   private final Pattern delimiterPattern = Pattern.compile(delimiterPlusWhitespace());
 
+  @Inject private QualifiedNamePools namePools;
+
   private String delimiterPlusWhitespace() {
     return "\\s*" + Pattern.quote(getDelimiter()) + "\\s*";
   }
@@ -42,6 +45,6 @@ import com.google.inject.Singleton;
     }
     String withoutLineBreaks = removeLineBreaksFrom(s);
     String[] segments = delimiterPattern.split(withoutLineBreaks);
-    return QualifiedName.create(segments);
+    return QualifiedName.create(namePools.internSegments(segments));
   }
 }
@@ -58,6 +58,7 @@ public class ProtobufQualifiedNameProvider extends IQualifiedNameProvider.Abstra
   @Inject private ModelObjects modelObjects;
   @Inject private NormalNamingStrategy normalNamingStrategy;
   @Inject private Packages packages;
+  @Inject private QualifiedNamePools namePools;
   @Inject private QualifiedNames qualifiedNames;
 
   @Override public QualifiedName getFullyQualifiedName(EObject target) {
@@ -81,10 +82,10 @@ public class ProtobufQualifiedNameProvider extends IQualifiedNameProvider.Abstra
           current = current.eContainer();
           QualifiedName parentsQualifiedName = getFullyQualifiedName(current, namingStrategy);
           if (parentsQualifiedName != null) {
-            return pair(name.getFirst(), parentsQualifiedName.append(qualifiedName));
+            return pair(name.getFirst(), namePools.intern(parentsQualifiedName.append(qualifiedName), e));
           }
         }
-        return pair(name.getFirst(), addPackage(e, qualifiedName));
+        return pair(name.getFirst(), namePools.intern(addPackage(e, qualifiedName), e));
       }
     });
     return cached.getSecond();
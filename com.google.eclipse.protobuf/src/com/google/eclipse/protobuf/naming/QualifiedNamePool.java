@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.naming;
+
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.naming.QualifiedName;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Pool of <code>{@link QualifiedName}</code>s and name segments, shared by all the resources in a
+ * <code>{@link ResourceSet}</code>. Equal names are represented by the same instance, and so are their segments.
+ * <p>
+ * Names and segments are held weakly: once the resources using them are unloaded and their caches discarded, they are
+ * removed from the pool.
+ * </p>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class QualifiedNamePool extends AdapterImpl {
+  private final Interner<String> segments = Interners.newWeakInterner();
+  private final Interner<QualifiedName> names = Interners.newWeakInterner();
+
+  /**
+   * Returns the pooled instance of the given name, adding the given name to this pool if it is not already there.
+   * @param name the given name.
+   * @return the pooled instance of the given name.
+   */
+  QualifiedName intern(QualifiedName name) {
+    int segmentCount = name.getSegmentCount();
+    String[] internedSegments = new String[segmentCount];
+    boolean segmentsInterned = true;
+    for (int i = 0; i < segmentCount; i++) {
+      String segment = name.getSegment(i);
+      internedSegments[i] = segments.intern(segment);
+      segmentsInterned &= (internedSegments[i] == segment);
+    }
+    return names.intern(segmentsInterned ? name : QualifiedName.create(internedSegments));
+  }
+
+  @Override public boolean isAdapterForType(Object type) {
+    return QualifiedNamePool.class == type;
+  }
+}
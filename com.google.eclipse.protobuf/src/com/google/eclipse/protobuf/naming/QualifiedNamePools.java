@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.naming;
+
+import static org.eclipse.emf.ecore.util.EcoreUtil.getAdapter;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.naming.QualifiedName;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.inject.Singleton;
+
+/**
+ * Interns <code>{@link QualifiedName}</code>s and their segments, so the names of the elements in a
+ * <code>{@link ResourceSet}</code> are not duplicated every time scopes are calculated.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton public class QualifiedNamePools {
+  // segments parsed without knowing their ResourceSet are held weakly, so they can be collected once unused.
+  private final Interner<String> sharedSegments = Interners.newWeakInterner();
+
+  /**
+   * Returns the pooled instance of the given name, in the pool of the {@code ResourceSet} containing the given element.
+   * @param name the given name.
+   * @param e the element the given name belongs to.
+   * @return the pooled instance of the given name, or the given name if it is {@code null} or if the given element
+   * does not belong to a {@code ResourceSet}.
+   */
+  public QualifiedName intern(QualifiedName name, EObject e) {
+    if (name == null) {
+      return null;
+    }
+    QualifiedNamePool pool = poolOf(e);
+    return (pool == null) ? name : pool.intern(name);
+  }
+
+  /**
+   * Replaces each of the given segments with its pooled instance.
+   * @param segments the segments to intern.
+   * @return the given array, containing the pooled segments.
+   */
+  public String[] internSegments(String[] segments) {
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = sharedSegments.intern(segments[i]);
+    }
+    return segments;
+  }
+
+  private QualifiedNamePool poolOf(EObject e) {
+    Resource resource = e.eResource();
+    ResourceSet resourceSet = (resource == null) ? null : resource.getResourceSet();
+    if (resourceSet == null) {
+      return null;
+    }
+    synchronized (resourceSet) {
+      QualifiedNamePool pool = (QualifiedNamePool) getAdapter(resourceSet.eAdapters(), QualifiedNamePool.class);
+      if (pool == null) {
+        pool = new QualifiedNamePool();
+        resourceSet.eAdapters().add(pool);
+      }
+      return pool;
+    }
+  }
+}
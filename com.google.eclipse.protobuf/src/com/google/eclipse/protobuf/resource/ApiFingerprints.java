@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static java.nio.charset.Charset.forName;
+
+import static org.eclipse.xtext.nodemodel.util.NodeModelUtils.getNode;
+
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.PROTOBUF;
+import static com.google.eclipse.protobuf.resource.FileContents.hashOf;
+import static com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionStrategy.API_FINGERPRINT;
+import static com.google.eclipse.protobuf.util.Encodings.UTF_8;
+
+import java.util.Iterator;
+
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.ILeafNode;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+
+import com.google.eclipse.protobuf.protobuf.Protobuf;
+import com.google.inject.Singleton;
+
+/**
+ * Fingerprints of the API of a file: everything its importers can depend on, like the names of its types, the types
+ * and tag numbers of their fields and the types of their options. The fingerprint is a hash of all the text of the
+ * file except comments and whitespace, exported with the root of the file (see
+ * <code>{@link ProtobufResourceDescriptionStrategy}</code>.)
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton public class ApiFingerprints {
+  /**
+   * Returns the fingerprint of the API of the file with the given root.
+   * @param root the root of the file.
+   * @return the fingerprint of the API of the file, or {@code null} if the file was not parsed from text.
+   */
+  public String fingerprintOf(Protobuf root) {
+    ICompositeNode node = getNode(root);
+    if (node == null) {
+      return null;
+    }
+    StringBuilder tokens = new StringBuilder();
+    for (ILeafNode leaf : node.getLeafNodes()) {
+      if (!leaf.isHidden()) {
+        tokens.append(leaf.getText()).append(' ');
+      }
+    }
+    return hashOf(forName(UTF_8).encode(tokens.toString()));
+  }
+
+  /**
+   * Indicates whether the API of the file described by the given delta changed. Unlike
+   * <code>{@link IResourceDescription.Delta#haveEObjectDescriptionsChanged()}</code>, this method also detects changes
+   * in the types, tag numbers and options of the exported elements.
+   * @param delta the given delta.
+   * @return {@code true} if the API of the file changed, {@code false} otherwise.
+   */
+  public boolean hasApiChanged(IResourceDescription.Delta delta) {
+    String oldFingerprint = fingerprintIn(delta.getOld());
+    String newFingerprint = fingerprintIn(delta.getNew());
+    if (oldFingerprint == null || newFingerprint == null) {
+      // the file was added or removed, or it was described before fingerprints were exported.
+      return delta.haveEObjectDescriptionsChanged();
+    }
+    return !oldFingerprint.equals(newFingerprint);
+  }
+
+  private String fingerprintIn(IResourceDescription description) {
+    if (description == null) {
+      return null;
+    }
+    Iterator<IEObjectDescription> roots = description.getExportedObjectsByType(PROTOBUF).iterator();
+    return roots.hasNext() ? roots.next().getUserData(API_FINGERPRINT) : null;
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static org.eclipse.core.runtime.Status.OK_STATUS;
+import static org.eclipse.emf.ecore.resource.ContentHandler.UNSPECIFIED_CONTENT_TYPE;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.io.Closeables.closeQuietly;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.osgi.framework.Bundle;
+
+import com.google.eclipse.protobuf.linking.ProtobufResource;
+import com.google.eclipse.protobuf.model.util.Protobufs;
+import com.google.eclipse.protobuf.model.util.Resources;
+import com.google.eclipse.protobuf.protobuf.Import;
+import com.google.eclipse.protobuf.protobuf.Protobuf;
+import com.google.eclipse.protobuf.util.Uris;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * Index of ".proto" files outside the workspace, which are not in the Xtext index. For each file, the index keeps the
+ * hash of its contents, the URIs it imports and the elements it exports.
+ * <p>
+ * The index is stored in the state location of this plug-in, so it survives restarts. A stored file is parsed again
+ * only if its modification time or size changed, and the hash of its contents is different from the stored one.
+ * </p>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton public class ExternalFileIndex {
+  private static final String PLUGIN_ID = "com.google.eclipse.protobuf";
+  private static final String INDEX_FILE_NAME = "external-files.index";
+  private static final long SAVE_DELAY_MILLIS = 5000;
+
+  @Inject private IResourceDescription.Manager descriptionManager;
+  @Inject private Provider<XtextResourceSet> resourceSetProvider;
+  @Inject private Protobufs protobufs;
+  @Inject private Resources resources;
+  @Inject private Uris uris;
+
+  private final Map<URI, IndexedExternalFile> files = newHashMap();
+  private boolean loaded;
+
+  private final Job saveJob = new Job("Saving index of external .proto files") {
+    @Override protected IStatus run(IProgressMonitor monitor) {
+      File indexFile = indexFile();
+      if (indexFile != null) {
+        save(indexFile);
+      }
+      return OK_STATUS;
+    }
+  };
+
+  public ExternalFileIndex() {
+    saveJob.setSystem(true);
+  }
+
+  /**
+   * Indicates whether the file referred by the given URI can be described by this index.
+   * @param uri the URI of the file.
+   * @return {@code true} if the given URI refers to a ".proto" file in the file system; {@code false} otherwise.
+   */
+  public boolean canDescribe(URI uri) {
+    return uri.isFile() && uris.hasProtoExtension(uri);
+  }
+
+  /**
+   * Returns the description of the file referred by the given URI, parsing the file only if it is not in this index
+   * or if it changed since it was indexed.
+   * @param uri the URI of the file.
+   * @return the description of the file, or {@code null} if the file does not exist or cannot be parsed.
+   */
+  public synchronized IResourceDescription descriptionOf(URI uri) {
+    IndexedExternalFile indexed = indexedFile(uri);
+    return (indexed == null) ? null : indexed.description();
+  }
+
+  /**
+   * Returns the URIs imported by the file referred by the given URI, as written in its "import" statements.
+   * @param uri the URI of the file.
+   * @return the URIs imported by the file, or {@code null} if the file does not exist or cannot be parsed.
+   */
+  public synchronized List<String> importUrisOf(URI uri) {
+    IndexedExternalFile indexed = indexedFile(uri);
+    return (indexed == null) ? null : indexed.importUris;
+  }
+
+  private IndexedExternalFile indexedFile(URI uri) {
+    if (!loaded) {
+      loaded = true;
+      File indexFile = indexFile();
+      if (indexFile != null) {
+        load(indexFile);
+      }
+    }
+    File file = new File(uri.toFileString());
+    if (!file.isFile()) {
+      if (files.remove(uri) != null) {
+        saveJob.schedule(SAVE_DELAY_MILLIS);
+      }
+      return null;
+    }
+    IndexedExternalFile indexed = files.get(uri);
+    if (indexed != null && indexed.isCurrent(file)) {
+      return indexed;
+    }
+    indexed = index(uri, file);
+    if (indexed == null) {
+      files.remove(uri);
+    } else {
+      files.put(uri, indexed);
+    }
+    saveJob.schedule(SAVE_DELAY_MILLIS);
+    return indexed;
+  }
+
+  private IndexedExternalFile index(URI uri, File file) {
+    long lastModified = file.lastModified();
+    long length = file.length();
+    ResourceSet resourceSet = resourceSetProvider.get();
+    try {
+      // exported names do not depend on cross-references: the file is parsed, but not linked.
+      Resource resource = resourceSet.createResource(uri, UNSPECIFIED_CONTENT_TYPE);
+      resource.load(resourceSet.getLoadOptions());
+      String hash = (resource instanceof ProtobufResource) ? ((ProtobufResource) resource).contentHash() : null;
+      // describing the file resolves its imports, which replaces the URIs as entered by the user.
+      List<String> importUris = importUrisIn(resource);
+      List<IEObjectDescription> exportedObjects = newArrayList();
+      for (IEObjectDescription exported : descriptionManager.getResourceDescription(resource).getExportedObjects()) {
+        exportedObjects.add(ExternalFileIndexFormat.detached(exported));
+      }
+      return new IndexedExternalFile(uri, lastModified, length, hash, importUris, exportedObjects);
+    } catch (IOException e) {
+      return null;
+    } catch (RuntimeException e) {
+      return null;
+    } finally {
+      for (Resource resource : resourceSet.getResources()) {
+        resource.unload();
+      }
+      resourceSet.getResources().clear();
+    }
+  }
+
+  private List<String> importUrisIn(Resource resource) {
+    List<String> importUris = newArrayList();
+    Protobuf root = resources.rootOf(resource);
+    if (root != null) {
+      for (Import anImport : protobufs.importsIn(root)) {
+        if (anImport.getImportURI() != null) {
+          importUris.add(anImport.getImportURI());
+        }
+      }
+    }
+    return importUris;
+  }
+
+  synchronized void load(File indexFile) {
+    if (!indexFile.isFile()) {
+      return;
+    }
+    InputStream in = null;
+    try {
+      in = new BufferedInputStream(new FileInputStream(indexFile));
+      for (IndexedExternalFile indexed : ExternalFileIndexFormat.read(in)) {
+        files.put(indexed.uri, indexed);
+      }
+    } catch (IOException e) {
+      // the index is corrupt or was written by a different version: files will be indexed again.
+      files.clear();
+    } catch (RuntimeException e) {
+      files.clear();
+    } finally {
+      closeQuietly(in);
+    }
+  }
+
+  synchronized void save(File indexFile) {
+    File temporaryFile = new File(indexFile.getPath() + ".tmp");
+    OutputStream out = null;
+    try {
+      out = new BufferedOutputStream(new FileOutputStream(temporaryFile));
+      ExternalFileIndexFormat.write(files.values(), out);
+      out.close();
+      out = null;
+      if (!temporaryFile.renameTo(indexFile)) {
+        indexFile.delete();
+        temporaryFile.renameTo(indexFile);
+      }
+    } catch (IOException e) {
+      temporaryFile.delete();
+    } finally {
+      closeQuietly(out);
+    }
+  }
+
+  private File indexFile() {
+    // the platform is not running in standalone mode.
+    if (!Platform.isRunning()) {
+      return null;
+    }
+    Bundle bundle = Platform.getBundle(PLUGIN_ID);
+    return (bundle == null) ? null : Platform.getStateLocation(bundle).append(INDEX_FILE_NAME).toFile();
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static org.eclipse.emf.common.util.URI.createURI;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.EObjectDescription;
+import org.eclipse.xtext.resource.IEObjectDescription;
+
+/**
+ * Binary format of <code>{@link ExternalFileIndex}</code>. Strings are written once and then referred by their
+ * position in a table, since the names of classes, packages and user data keys repeat across exported elements.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class ExternalFileIndexFormat {
+  private static final int MAGIC_NUMBER = 0x70726f78;
+  private static final int VERSION = 1;
+
+  /**
+   * Creates a copy of the given description that refers to its element through a proxy, so the copy does not keep the
+   * resource containing the element in memory.
+   * @param description the description to copy.
+   * @return the created copy.
+   */
+  static IEObjectDescription detached(IEObjectDescription description) {
+    Map<String, String> userData = newHashMap();
+    for (String key : description.getUserDataKeys()) {
+      userData.put(key, description.getUserData(key));
+    }
+    InternalEObject proxy = (InternalEObject) EcoreUtil.create(description.getEClass());
+    proxy.eSetProxyURI(description.getEObjectURI());
+    return EObjectDescription.create(description.getName(), proxy, userData);
+  }
+
+  static void write(Collection<IndexedExternalFile> files, OutputStream out) throws IOException {
+    Writer writer = new Writer(new DataOutputStream(out));
+    writer.out.writeInt(MAGIC_NUMBER);
+    writer.out.writeInt(VERSION);
+    writer.writeCount(files.size());
+    for (IndexedExternalFile file : files) {
+      writer.writeString(file.uri.toString());
+      writer.out.writeLong(file.lastModified());
+      writer.out.writeLong(file.length());
+      writer.writeString(file.hash == null ? "" : file.hash);
+      writer.writeCount(file.importUris.size());
+      for (String importUri : file.importUris) {
+        writer.writeString(importUri);
+      }
+      writer.writeCount(file.exportedObjects.size());
+      for (IEObjectDescription exported : file.exportedObjects) {
+        writer.writeDescription(exported);
+      }
+    }
+    writer.out.flush();
+  }
+
+  static List<IndexedExternalFile> read(InputStream in) throws IOException {
+    Reader reader = new Reader(new DataInputStream(in));
+    if (reader.in.readInt() != MAGIC_NUMBER || reader.in.readInt() != VERSION) {
+      throw new IOException("Unsupported index format");
+    }
+    int fileCount = reader.readCount();
+    List<IndexedExternalFile> files = newArrayList();
+    for (int i = 0; i < fileCount; i++) {
+      String uri = reader.readString();
+      long lastModified = reader.in.readLong();
+      long length = reader.in.readLong();
+      String hash = reader.readString();
+      int importCount = reader.readCount();
+      List<String> importUris = newArrayList();
+      for (int j = 0; j < importCount; j++) {
+        importUris.add(reader.readString());
+      }
+      int exportedCount = reader.readCount();
+      List<IEObjectDescription> exportedObjects = newArrayList();
+      for (int j = 0; j < exportedCount; j++) {
+        exportedObjects.add(reader.readDescription());
+      }
+      files.add(new IndexedExternalFile(createURI(uri), lastModified, length, hash.isEmpty() ? null : hash,
+          importUris, exportedObjects));
+    }
+    return files;
+  }
+
+  private static class Writer {
+    final DataOutputStream out;
+    private final Map<String, Integer> table = newHashMap();
+
+    Writer(DataOutputStream out) {
+      this.out = out;
+    }
+
+    void writeDescription(IEObjectDescription description) throws IOException {
+      QualifiedName name = description.getName();
+      writeCount(name.getSegmentCount());
+      for (String segment : name.getSegments()) {
+        writeString(segment);
+      }
+      EClass type = description.getEClass();
+      writeString(type.getEPackage().getNsURI());
+      writeString(type.getName());
+      writeString(description.getEObjectURI().toString());
+      String[] keys = description.getUserDataKeys();
+      writeCount(keys.length);
+      for (String key : keys) {
+        writeString(key);
+        writeString(description.getUserData(key));
+      }
+    }
+
+    void writeString(String s) throws IOException {
+      Integer index = table.get(s);
+      if (index != null) {
+        writeCount(index + 1);
+        return;
+      }
+      writeCount(0);
+      out.writeUTF(s);
+      table.put(s, table.size());
+    }
+
+    // variable-length encoding: most counts and table positions fit in one or two bytes.
+    void writeCount(int count) throws IOException {
+      int value = count;
+      while ((value & ~0x7F) != 0) {
+        out.writeByte((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      out.writeByte(value);
+    }
+  }
+
+  private static class Reader {
+    final DataInputStream in;
+    private final List<String> table = newArrayList();
+
+    Reader(DataInputStream in) {
+      this.in = in;
+    }
+
+    IEObjectDescription readDescription() throws IOException {
+      int segmentCount = readCount();
+      String[] segments = new String[segmentCount];
+      for (int i = 0; i < segmentCount; i++) {
+        segments[i] = readString();
+      }
+      EClass type = eClass(readString(), readString());
+      InternalEObject proxy = (InternalEObject) EcoreUtil.create(type);
+      proxy.eSetProxyURI(createURI(readString()));
+      int userDataCount = readCount();
+      Map<String, String> userData = newHashMap();
+      for (int i = 0; i < userDataCount; i++) {
+        userData.put(readString(), readString());
+      }
+      return EObjectDescription.create(QualifiedName.create(segments), (EObject) proxy, userData);
+    }
+
+    private EClass eClass(String nsUri, String name) throws IOException {
+      EPackage ePackage = EPackage.Registry.INSTANCE.getEPackage(nsUri);
+      EClassifier type = (ePackage == null) ? null : ePackage.getEClassifier(name);
+      if (!(type instanceof EClass)) {
+        throw new IOException("Unknown type " + nsUri + "#" + name);
+      }
+      return (EClass) type;
+    }
+
+    String readString() throws IOException {
+      int index = readCount();
+      if (index > 0) {
+        if (index > table.size()) {
+          throw new IOException("Invalid string reference");
+        }
+        return table.get(index - 1);
+      }
+      String s = in.readUTF();
+      table.add(s);
+      return s;
+    }
+
+    int readCount() throws IOException {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        int b = in.readUnsignedByte();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IOException("Malformed count");
+    }
+  }
+}
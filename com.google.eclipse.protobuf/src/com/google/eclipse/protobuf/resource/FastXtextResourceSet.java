@@ -10,6 +10,7 @@ import java.util.Map;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.URIConverter;
 import org.eclipse.emf.ecore.resource.impl.ExtensibleURIConverterImpl;
 import org.eclipse.xtext.resource.ClasspathUriResolutionException;
@@ -20,6 +21,19 @@ import com.google.inject.Inject;
 
 public class FastXtextResourceSet extends SynchronizedXtextResourceSet {
   @Inject private Uris uris;
+  @Inject private SharedResources sharedResources;
+
+  @Override public Resource getResource(URI uri, boolean loadOnDemand) {
+    if (sharedResources == null || !sharedResources.canShare(uri)) {
+      return super.getResource(uri, loadOnDemand);
+    }
+    // a copy in this resource set (e.g. the one loaded by an editor) takes precedence over the shared one.
+    Resource resource = super.getResource(uri, false);
+    if (resource == null && loadOnDemand) {
+      resource = sharedResources.resourceFor(uri);
+    }
+    return (resource != null) ? resource : super.getResource(uri, loadOnDemand);
+  }
 
   @Override public URIConverter getURIConverter() {
     if (uriConverter == null) {
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.CodingErrorAction.REPLACE;
+
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The decoded text of a file, together with a hash of its bytes.
+ * <p>
+ * Files are read through a <code>{@link FileChannel}</code>: large files are memory-mapped, small ones are read into a
+ * single buffer. Bytes are decoded in one pass into a character buffer that backs the returned reader, avoiding the
+ * intermediate copies made by a buffered {@code InputStreamReader}.
+ * </p>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class FileContents {
+  static final long MAPPING_THRESHOLD = 256 * 1024;
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final CharBuffer text;
+  private final String hash;
+
+  /**
+   * Reads the whole contents of the given channel, starting at its current position.
+   * @param channel the channel to read from. It is not closed by this method.
+   * @param encoding the name of the encoding of the file.
+   * @return the contents of the file.
+   * @throws IOException if the file cannot be read.
+   */
+  public static FileContents read(FileChannel channel, String encoding) throws IOException {
+    ByteBuffer bytes = bytesIn(channel);
+    String hash = hashOf(bytes.duplicate());
+    CharBuffer text = Charset.forName(encoding).newDecoder()
+                                               .onMalformedInput(REPLACE)
+                                               .onUnmappableCharacter(REPLACE)
+                                               .decode(bytes);
+    return new FileContents(text, hash);
+  }
+
+  /**
+   * Returns the hash of the contents of the given file, without decoding them.
+   * @param file the file to read.
+   * @return the hash of the contents of the given file.
+   * @throws IOException if the file cannot be read.
+   */
+  public static String hashOf(File file) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      return hashOf(bytesIn(in.getChannel()));
+    } finally {
+      in.close();
+    }
+  }
+
+  private static ByteBuffer bytesIn(FileChannel channel) throws IOException {
+    long position = channel.position();
+    long size = channel.size() - position;
+    if (size >= MAPPING_THRESHOLD) {
+      return channel.map(READ_ONLY, position, size);
+    }
+    ByteBuffer bytes = ByteBuffer.allocate((int) size);
+    while (bytes.hasRemaining() && channel.read(bytes) >= 0) {}
+    bytes.flip();
+    return bytes;
+  }
+
+  static String hashOf(ByteBuffer bytes) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    digest.update(bytes);
+    byte[] hash = digest.digest();
+    char[] hex = new char[hash.length * 2];
+    for (int i = 0; i < hash.length; i++) {
+      hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+      hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+    }
+    return new String(hex);
+  }
+
+  private FileContents(CharBuffer text, String hash) {
+    this.text = text;
+    this.hash = hash;
+  }
+
+  /**
+   * Returns a reader of the decoded text. The reader does not copy the text.
+   * @return a reader of the decoded text.
+   */
+  public Reader reader() {
+    return new CharArrayReader(text.array(), text.arrayOffset() + text.position(), text.remaining());
+  }
+
+  /**
+   * Returns the hash of the bytes of the file, as a hexadecimal {@code String}.
+   * @return the hash of the bytes of the file.
+   */
+  public String hash() {
+    return hash;
+  }
+}
@@ -8,7 +8,12 @@
  */
 package com.google.eclipse.protobuf.resource;
 
+import static java.util.Collections.singletonList;
+
 import static com.google.common.base.Objects.equal;
+import static com.google.common.collect.Lists.newArrayList;
+
+import java.util.List;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.emf.common.util.URI;
@@ -24,6 +29,7 @@ import com.google.inject.Inject;
  * @author alruiz@google.com (Alex Ruiz)
  */
 public class IndexLookup {
+  @Inject private ResourceUriSuffixTries tries;
   @Inject private IResourceDescriptions xtextIndex;
 
   /**
@@ -33,9 +39,21 @@ public class IndexLookup {
    * found.
    */
   public IResourceDescription resourceIn(IPath path) {
+    List<IResourceDescription> descriptions = resourcesIn(path);
+    return descriptions.isEmpty() ? null : descriptions.get(0);
+  }
+
+  /**
+   * Finds the resource descriptions for the given path. If the path does not match the URI of a resource exactly, all
+   * the resources whose URI ends with the given path (or whose URI is a suffix of the given path) are returned.
+   * @param path the given path.
+   * @return the found resource descriptions, or an empty list if a resource description with a matching path could
+   * not be found.
+   */
+  public List<IResourceDescription> resourcesIn(IPath path) {
     IResourceDescription description = lookup(path);
     if (description != null) {
-      return description;
+      return singletonList(description);
     }
     return segmentMatching(path);
   }
@@ -45,14 +63,24 @@ public class IndexLookup {
     return xtextIndex.getResourceDescription(uri);
   }
 
-  private IResourceDescription segmentMatching(IPath path) {
-    for (IResourceDescription description : xtextIndex.getAllResourceDescriptions()) {
-      URI resourceUri = description.getURI();
-      if (areReferringToSameFile(path, resourceUri)) {
-        return description;
+  private List<IResourceDescription> segmentMatching(IPath path) {
+    List<IResourceDescription> matches = newArrayList();
+    ResourceUriSuffixTrie trie = tries.trieOf(xtextIndex);
+    if (trie == null) {
+      for (IResourceDescription description : xtextIndex.getAllResourceDescriptions()) {
+        if (areReferringToSameFile(path, description.getURI())) {
+          matches.add(description);
+        }
+      }
+      return matches;
+    }
+    for (URI uri : trie.urisMatching(path)) {
+      IResourceDescription description = xtextIndex.getResourceDescription(uri);
+      if (description != null) {
+        matches.add(description);
       }
     }
-    return null;
+    return matches;
   }
 
   @VisibleForTesting boolean areReferringToSameFile(IPath p, URI u) {
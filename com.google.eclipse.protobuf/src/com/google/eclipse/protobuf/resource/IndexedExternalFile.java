@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.impl.AbstractResourceDescription;
+
+/**
+ * A ".proto" file outside the workspace, as stored in <code>{@link ExternalFileIndex}</code>: the size, modification
+ * time and hash of its contents, the URIs it imports and the elements it exports.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class IndexedExternalFile {
+  final URI uri;
+  final String hash;
+  final List<String> importUris;
+  final List<IEObjectDescription> exportedObjects;
+
+  private long lastModified;
+  private long length;
+  private IResourceDescription description;
+
+  IndexedExternalFile(URI uri, long lastModified, long length, String hash, List<String> importUris,
+      List<IEObjectDescription> exportedObjects) {
+    this.uri = uri;
+    this.lastModified = lastModified;
+    this.length = length;
+    this.hash = hash;
+    this.importUris = unmodifiableList(importUris);
+    this.exportedObjects = unmodifiableList(exportedObjects);
+  }
+
+  /**
+   * Indicates whether the given file still has the contents this entry was created from. If the modification time or
+   * the size of the file changed, the hash of its contents is compared with the stored one.
+   * @param file the file this entry was created from.
+   * @return {@code true} if the file did not change; {@code false} otherwise.
+   */
+  boolean isCurrent(File file) {
+    long currentLastModified = file.lastModified();
+    long currentLength = file.length();
+    if (currentLastModified == lastModified && currentLength == length) {
+      return true;
+    }
+    try {
+      if (hash == null || !hash.equals(FileContents.hashOf(file))) {
+        return false;
+      }
+    } catch (IOException e) {
+      return false;
+    }
+    // the file was touched but its contents did not change.
+    lastModified = currentLastModified;
+    length = currentLength;
+    return true;
+  }
+
+  long lastModified() {
+    return lastModified;
+  }
+
+  long length() {
+    return length;
+  }
+
+  IResourceDescription description() {
+    if (description == null) {
+      description = new StoredResourceDescription();
+    }
+    return description;
+  }
+
+  private class StoredResourceDescription extends AbstractResourceDescription {
+    @Override protected List<IEObjectDescription> computeExportedObjects() {
+      return exportedObjects;
+    }
+
+    @Override public Iterable<QualifiedName> getImportedNames() {
+      return emptyList();
+    }
+
+    @Override public Iterable<IReferenceDescription> getReferenceDescriptions() {
+      return emptyList();
+    }
+
+    @Override public URI getURI() {
+      return uri;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static java.util.Collections.emptySet;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+import org.eclipse.xtext.resource.impl.DefaultResourceDescriptionManager;
+
+import com.google.inject.Inject;
+
+/**
+ * Marks as affected by a change the files that import the changed files, directly or through public imports, as found
+ * by <code>{@link ReverseImportIndexes}</code>. Only changes in the API of a file count (see
+ * <code>{@link ApiFingerprints}</code>): if only comments or whitespace were edited no file depends on the change.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ProtobufResourceDescriptionManager extends DefaultResourceDescriptionManager {
+  @Inject private ApiFingerprints apiFingerprints;
+  @Inject private ReverseImportIndexes reverseImportIndexes;
+
+  private volatile AffectedFiles lastAffected;
+
+  @Override public boolean isAffected(Collection<IResourceDescription.Delta> deltas, IResourceDescription candidate,
+      IResourceDescriptions context) {
+    if (affectedFiles(deltas, context).contains(candidate.getURI())) {
+      return true;
+    }
+    return super.isAffected(deltas, candidate, context);
+  }
+
+  // the builder asks for each candidate with the same deltas and context: dependents are found once per build step.
+  private Set<URI> affectedFiles(Collection<IResourceDescription.Delta> deltas, IResourceDescriptions context) {
+    AffectedFiles affected = lastAffected;
+    if (affected != null && affected.isFor(deltas, context)) {
+      return affected.uris;
+    }
+    List<URI> changed = newArrayList();
+    for (IResourceDescription.Delta delta : deltas) {
+      if (apiFingerprints.hasApiChanged(delta)) {
+        changed.add(delta.getUri());
+      }
+    }
+    Set<URI> uris = changed.isEmpty() ? noFiles() : reverseImportIndexes.dependentsOf(changed, context);
+    lastAffected = new AffectedFiles(deltas, context, uris);
+    return uris;
+  }
+
+  private static Set<URI> noFiles() {
+    return emptySet();
+  }
+
+  private static class AffectedFiles {
+    final Set<URI> uris;
+
+    private final Collection<IResourceDescription.Delta> deltas;
+    private final int deltaCount;
+    private final IResourceDescriptions context;
+
+    AffectedFiles(Collection<IResourceDescription.Delta> deltas, IResourceDescriptions context, Set<URI> uris) {
+      this.deltas = deltas;
+      this.context = context;
+      this.uris = uris;
+      deltaCount = deltas.size();
+    }
+
+    boolean isFor(Collection<IResourceDescription.Delta> otherDeltas, IResourceDescriptions otherContext) {
+      return deltas == otherDeltas && deltaCount == otherDeltas.size() && context == otherContext;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static com.google.common.collect.Maps.newHashMap;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.EObjectDescription;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.impl.DefaultResourceDescriptionStrategy;
+import org.eclipse.xtext.util.IAcceptor;
+
+import com.google.eclipse.protobuf.model.util.ImportGraph;
+import com.google.eclipse.protobuf.model.util.ImportGraph.ResolvedImport;
+import com.google.eclipse.protobuf.model.util.ModelObjects;
+import com.google.eclipse.protobuf.model.util.Protobufs;
+import com.google.eclipse.protobuf.protobuf.Package;
+import com.google.eclipse.protobuf.protobuf.Protobuf;
+import com.google.inject.Inject;
+
+/**
+ * Exports, besides the elements exported by default, the root of each file with the information needed to resolve
+ * imported types from the Xtext index, without loading the importing file: its package, whether it is a "proto2" file
+ * and whether it has public imports. The root also carries the resolved URIs of the files it imports, which are used
+ * to find the files that depend on a changed one (see <code>{@link ReverseImportIndexes}</code>), and the fingerprint
+ * of its API, used to tell whether those files are affected by a change (see <code>{@link ApiFingerprints}</code>.)
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ProtobufResourceDescriptionStrategy extends DefaultResourceDescriptionStrategy {
+  /** Name of the exported root of a file. */
+  public static final QualifiedName ROOT_NAME = QualifiedName.EMPTY;
+
+  /** Key of the user data containing the name of the package of a file, if any. */
+  public static final String PACKAGE = "package";
+
+  /** Key of the user data indicating whether a file is a "proto2" one. */
+  public static final String PROTO2 = "proto2";
+
+  /** Key of the user data indicating whether a file has public imports. */
+  public static final String HAS_PUBLIC_IMPORTS = "hasPublicImports";
+
+  /** Key of the user data containing the resolved URIs of the files imported by a file, separated by spaces. */
+  public static final String IMPORTS = "imports";
+
+  /** Key of the user data containing the resolved URIs of the files publicly imported by a file. */
+  public static final String PUBLIC_IMPORTS = "publicImports";
+
+  /** Key of the user data containing the fingerprint of the API of a file. */
+  public static final String API_FINGERPRINT = "apiFingerprint";
+
+  @Inject private ApiFingerprints apiFingerprints;
+  @Inject private ImportGraph importGraph;
+  @Inject private ModelObjects modelObjects;
+  @Inject private Protobufs protobufs;
+
+  @Override public boolean createEObjectDescriptions(EObject e, IAcceptor<IEObjectDescription> acceptor) {
+    if (e instanceof Protobuf) {
+      Protobuf root = (Protobuf) e;
+      acceptor.accept(EObjectDescription.create(ROOT_NAME, root, userDataOf(root)));
+      return true;
+    }
+    return super.createEObjectDescriptions(e, acceptor);
+  }
+
+  private Map<String, String> userDataOf(Protobuf root) {
+    Map<String, String> userData = newHashMap();
+    Package aPackage = modelObjects.packageOf(root);
+    if (aPackage != null && aPackage.getName() != null) {
+      userData.put(PACKAGE, aPackage.getName());
+    }
+    userData.put(PROTO2, String.valueOf(protobufs.isProto2(root)));
+    userData.put(HAS_PUBLIC_IMPORTS, String.valueOf(!protobufs.publicImportsIn(root).isEmpty()));
+    addImports(root, userData);
+    String fingerprint = apiFingerprints.fingerprintOf(root);
+    if (fingerprint != null) {
+      userData.put(API_FINGERPRINT, fingerprint);
+    }
+    return userData;
+  }
+
+  private void addImports(Protobuf root, Map<String, String> userData) {
+    List<ResolvedImport> imports;
+    try {
+      imports = importGraph.importsOf(root);
+    } catch (UnsupportedOperationException e) {
+      // imports cannot be resolved in this context: there is no IFileUriResolver.
+      return;
+    }
+    StringBuilder all = new StringBuilder();
+    StringBuilder onlyPublic = new StringBuilder();
+    for (ResolvedImport anImport : imports) {
+      if (anImport.resolvedUri() == null) {
+        continue;
+      }
+      append(anImport, all);
+      if (anImport.isPublic()) {
+        append(anImport, onlyPublic);
+      }
+    }
+    if (all.length() > 0) {
+      userData.put(IMPORTS, all.toString());
+    }
+    if (onlyPublic.length() > 0) {
+      userData.put(PUBLIC_IMPORTS, onlyPublic.toString());
+    }
+  }
+
+  private void append(ResolvedImport anImport, StringBuilder uris) {
+    if (uris.length() > 0) {
+      uris.append(' ');
+    }
+    uris.append(anImport.resolvedUri().toString());
+  }
+}
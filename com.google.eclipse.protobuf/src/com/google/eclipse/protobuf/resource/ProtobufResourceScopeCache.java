@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static com.google.eclipse.protobuf.resource.SharedResources.cacheOf;
+
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.util.OnChangeEvictingCache;
+
+import com.google.eclipse.protobuf.resource.SharedResources.SharedCache;
+import com.google.inject.Provider;
+
+/**
+ * Stores the values computed from shared resources (see <code>{@link SharedResources}</code>) in their thread-safe
+ * cache. Values computed from any other resource are stored as usual, and discarded when the resource changes.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ProtobufResourceScopeCache extends OnChangeEvictingCache {
+  @Override public <T> T get(Object key, Resource resource, Provider<T> provider) {
+    SharedCache sharedCache = cacheOf(resource);
+    if (sharedCache != null) {
+      return sharedCache.get(key, provider);
+    }
+    return super.get(key, resource, provider);
+  }
+}
@@ -8,6 +8,28 @@
  */
 package com.google.eclipse.protobuf.resource;
 
+import static org.eclipse.core.resources.IResource.FILE;
+import static org.eclipse.core.resources.IResourceChangeEvent.POST_CHANGE;
+import static org.eclipse.core.resources.IResourceDelta.ADDED;
+import static org.eclipse.core.resources.IResourceDelta.CONTENT;
+import static org.eclipse.core.resources.IResourceDelta.REMOVED;
+import static org.eclipse.core.resources.IResourceDelta.REPLACED;
+import static org.eclipse.emf.common.util.BasicDiagnostic.toDiagnostic;
+import static org.eclipse.emf.ecore.util.EcoreUtil.getAdapter;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.Diagnostic;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
@@ -20,19 +42,127 @@ import com.google.inject.Singleton;
  * @author alruiz@google.com (Alex Ruiz)
  */
 @Singleton public class ResourceSets {
+  // shared by all the injectors: the workspace listener is registered only once per plug-in.
+  private final AtomicLong generation = ProtoFileChangeListener.generation();
 
   /**
-   * Finds in the given <code>{@link ResourceSet}</code> the resource referred by the given URI.
+   * Finds in the given <code>{@link ResourceSet}</code> the resource referred by the given URI. If the resource cannot
+   * be loaded, the failure is remembered and the resource is not loaded again until a ".proto" file in the workspace,
+   * or the file referred by the given URI, changes.
    * @param resourceSet a collection of resources.
    * @param uri the given URI.
    * @return the resource referred by the given URI, or {@code null} is the given {@code ResourceSet} does
    * not contain the resource.
    */
   public Resource findResource(ResourceSet resourceSet, URI uri) {
+    Map<URI, LoadFailure> failures = loadFailuresIn(resourceSet);
+    LoadFailure failure = failures.get(uri);
+    if (failure != null && failure.isCurrent(generation.get())) {
+      return null;
+    }
+    long current = generation.get();
     try {
-      return resourceSet.getResource(uri, true);
+      Resource resource = resourceSet.getResource(uri, true);
+      failures.remove(uri);
+      return resource;
     } catch (Throwable t) {
+      failures.put(uri, new LoadFailure(uri, toDiagnostic(t), current));
       return null;
     }
   }
+
+  /**
+   * Returns the reason why the resource referred by the given URI could not be loaded in the given
+   * <code>{@link ResourceSet}</code>.
+   * @param resourceSet a collection of resources.
+   * @param uri the given URI.
+   * @return the reason why the resource could not be loaded, or {@code null} if the resource was loaded, or the load
+   * failure is outdated.
+   */
+  public Diagnostic loadFailureOf(ResourceSet resourceSet, URI uri) {
+    LoadFailure failure = loadFailuresIn(resourceSet).get(uri);
+    return (failure != null && failure.isCurrent(generation.get())) ? failure.diagnostic : null;
+  }
+
+  private Map<URI, LoadFailure> loadFailuresIn(ResourceSet resourceSet) {
+    synchronized (resourceSet) {
+      LoadFailures loadFailures = (LoadFailures) getAdapter(resourceSet.eAdapters(), LoadFailures.class);
+      if (loadFailures == null) {
+        loadFailures = new LoadFailures();
+        resourceSet.eAdapters().add(loadFailures);
+      }
+      return loadFailures.failures;
+    }
+  }
+
+  private static class LoadFailure {
+    final Diagnostic diagnostic;
+
+    private final File file;
+    private final long generation;
+    private final long lastModified;
+
+    LoadFailure(URI uri, Diagnostic diagnostic, long generation) {
+      this.diagnostic = diagnostic;
+      this.generation = generation;
+      file = uri.isFile() ? new File(uri.toFileString()) : null;
+      lastModified = (file != null) ? file.lastModified() : 0;
+    }
+
+    boolean isCurrent(long currentGeneration) {
+      if (generation != currentGeneration) {
+        return false;
+      }
+      // files outside the workspace are not reported by resource change events.
+      return file == null || file.lastModified() == lastModified;
+    }
+  }
+
+  private static class LoadFailures extends AdapterImpl {
+    final Map<URI, LoadFailure> failures = new ConcurrentHashMap<URI, LoadFailure>();
+
+    @Override public boolean isAdapterForType(Object type) {
+      return LoadFailures.class == type;
+    }
+  }
+
+  private static class ProtoFileChangeListener implements IResourceChangeListener, IResourceDeltaVisitor {
+    private static final int CHANGES = ADDED | REMOVED;
+    private static final int CONTENT_CHANGES = CONTENT | REPLACED;
+
+    private static final AtomicLong generation = new AtomicLong();
+    private static boolean registered;
+
+    static synchronized AtomicLong generation() {
+      // the workspace is not available when running standalone.
+      if (!registered && ResourcesPlugin.getPlugin() != null) {
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(new ProtoFileChangeListener(), POST_CHANGE);
+        registered = true;
+      }
+      return generation;
+    }
+
+    @Override public void resourceChanged(IResourceChangeEvent event) {
+      IResourceDelta delta = event.getDelta();
+      if (delta == null) {
+        return;
+      }
+      try {
+        delta.accept(this);
+      } catch (CoreException e) {
+        generation.incrementAndGet();
+      }
+    }
+
+    @Override public boolean visit(IResourceDelta delta) {
+      if (delta.getResource().getType() != FILE) {
+        return true;
+      }
+      boolean changed = (delta.getKind() & CHANGES) != 0 || (delta.getFlags() & CONTENT_CHANGES) != 0;
+      if (changed && "proto".equals(delta.getResource().getFileExtension())) {
+        generation.incrementAndGet();
+      }
+      return false;
+    }
+  }
 }
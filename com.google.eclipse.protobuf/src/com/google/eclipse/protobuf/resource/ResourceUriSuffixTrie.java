@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newLinkedHashSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescription.Delta;
+import org.eclipse.xtext.resource.IResourceDescription.Event;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+
+/**
+ * Trie of the URIs of the resources in an Xtext index, keyed by their segments in reverse order. Finding the resources
+ * whose URI ends with a given path takes time proportional to the number of segments in the path. The trie is kept up
+ * to date by listening to the changes in the index.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class ResourceUriSuffixTrie implements Event.Listener {
+  private final Node root = new Node();
+
+  /**
+   * Creates a new <code>{@link ResourceUriSuffixTrie}</code> containing all the resources in the given index.
+   * @param xtextIndex the given index.
+   * @param source notifies changes in the given index.
+   */
+  ResourceUriSuffixTrie(IResourceDescriptions xtextIndex, Event.Source source) {
+    synchronized (root) {
+      source.addListener(this);
+      for (IResourceDescription description : xtextIndex.getAllResourceDescriptions()) {
+        add(description.getURI());
+      }
+    }
+  }
+
+  @Override public void descriptionsChanged(Event event) {
+    synchronized (root) {
+      for (Delta delta : event.getDeltas()) {
+        if (delta.getNew() == null) {
+          remove(delta.getUri());
+        } else if (delta.getOld() == null) {
+          add(delta.getUri());
+        }
+      }
+    }
+  }
+
+  private void add(URI uri) {
+    Node node = root;
+    node.uris.add(uri);
+    for (int i = uri.segmentCount() - 1; i >= 0; i--) {
+      String segment = uri.segment(i);
+      Node child = node.children.get(segment);
+      if (child == null) {
+        child = new Node();
+        node.children.put(segment, child);
+      }
+      node = child;
+      node.uris.add(uri);
+    }
+    node.complete.add(uri);
+  }
+
+  private void remove(URI uri) {
+    Node node = root;
+    node.uris.remove(uri);
+    for (int i = uri.segmentCount() - 1; i >= 0; i--) {
+      String segment = uri.segment(i);
+      Node child = node.children.get(segment);
+      if (child == null) {
+        return;
+      }
+      child.uris.remove(uri);
+      if (child.uris.isEmpty()) {
+        node.children.remove(segment);
+        return;
+      }
+      node = child;
+    }
+    node.complete.remove(uri);
+  }
+
+  /**
+   * Returns the URIs that refer to the same file as the given path, as defined by
+   * <code>{@link IndexLookup#areReferringToSameFile(IPath, URI)}</code>: comparing segments from the end, all the
+   * segments of the shorter one match.
+   * @param path the given path.
+   * @return the URIs that refer to the same file as the given path, or an empty list if none was found.
+   */
+  List<URI> urisMatching(IPath path) {
+    List<URI> matches = newArrayList();
+    synchronized (root) {
+      Node node = root;
+      for (int i = path.segmentCount() - 1; i >= 0; i--) {
+        node = node.children.get(path.segment(i));
+        if (node == null) {
+          return matches;
+        }
+        if (i > 0) {
+          // URIs with fewer segments than the path.
+          matches.addAll(node.complete);
+        }
+      }
+      matches.addAll(node.uris);
+    }
+    return matches;
+  }
+
+  private static class Node {
+    final Map<String, Node> children = newHashMap();
+    final Set<URI> complete = newLinkedHashSet();
+    final Set<URI> uris = newLinkedHashSet();
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.xtext.resource.IResourceDescription.Event;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+
+import com.google.inject.Singleton;
+
+/**
+ * Keeps one <code>{@link ResourceUriSuffixTrie}</code> per Xtext index.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton class ResourceUriSuffixTries {
+  private final Map<IResourceDescriptions, ResourceUriSuffixTrie> tries =
+      new WeakHashMap<IResourceDescriptions, ResourceUriSuffixTrie>();
+
+  /**
+   * Returns the trie of the given index.
+   * @param xtextIndex the given index.
+   * @return the trie of the given index, or {@code null} if the given index does not notify its changes, in which case
+   * a trie cannot be kept up to date.
+   */
+  synchronized ResourceUriSuffixTrie trieOf(IResourceDescriptions xtextIndex) {
+    if (!(xtextIndex instanceof Event.Source)) {
+      return null;
+    }
+    ResourceUriSuffixTrie trie = tries.get(xtextIndex);
+    if (trie == null) {
+      trie = new ResourceUriSuffixTrie(xtextIndex, (Event.Source) xtextIndex);
+      tries.put(xtextIndex, trie);
+    }
+    return trie;
+  }
+}
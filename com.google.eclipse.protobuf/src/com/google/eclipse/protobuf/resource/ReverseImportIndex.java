@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static java.util.Collections.emptyList;
+
+import static org.eclipse.xtext.util.Strings.isEmpty;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.collect.Sets.newLinkedHashSet;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.PROTOBUF;
+import static com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionStrategy.IMPORTS;
+import static com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionStrategy.PUBLIC_IMPORTS;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescription.Delta;
+import org.eclipse.xtext.resource.IResourceDescription.Event;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+
+/**
+ * Maps each file in an Xtext index to the files that import it, using the imports exported by
+ * <code>{@link ProtobufResourceDescriptionStrategy}</code>. If the index notifies its changes, this index is kept up to
+ * date by listening to them.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class ReverseImportIndex implements Event.Listener {
+  private final Map<URI, Set<URI>> importers = newHashMap();
+  private final Map<URI, Set<URI>> publicImporters = newHashMap();
+  private final Map<URI, Imported> importedBy = newHashMap();
+
+  /**
+   * Creates a new <code>{@link ReverseImportIndex}</code> containing all the resources in the given index.
+   * @param xtextIndex the given index.
+   * @param source notifies changes in the given index, or {@code null} if the index does not change.
+   */
+  ReverseImportIndex(IResourceDescriptions xtextIndex, Event.Source source) {
+    synchronized (importers) {
+      if (source != null) {
+        source.addListener(this);
+      }
+      for (IResourceDescription description : xtextIndex.getAllResourceDescriptions()) {
+        add(description);
+      }
+    }
+  }
+
+  @Override public void descriptionsChanged(Event event) {
+    synchronized (importers) {
+      for (Delta delta : event.getDeltas()) {
+        remove(delta.getUri());
+        if (delta.getNew() != null) {
+          add(delta.getNew());
+        }
+      }
+    }
+  }
+
+  private void add(IResourceDescription description) {
+    Iterator<IEObjectDescription> roots = description.getExportedObjectsByType(PROTOBUF).iterator();
+    if (!roots.hasNext()) {
+      return;
+    }
+    IEObjectDescription root = roots.next();
+    Imported imported = new Imported(urisIn(root.getUserData(IMPORTS)), urisIn(root.getUserData(PUBLIC_IMPORTS)));
+    if (imported.all.isEmpty()) {
+      return;
+    }
+    URI uri = description.getURI();
+    importedBy.put(uri, imported);
+    addEdges(uri, imported.all, importers);
+    addEdges(uri, imported.onlyPublic, publicImporters);
+  }
+
+  private void addEdges(URI importer, List<URI> imported, Map<URI, Set<URI>> edges) {
+    for (URI uri : imported) {
+      Set<URI> importersOfUri = edges.get(uri);
+      if (importersOfUri == null) {
+        importersOfUri = newLinkedHashSet();
+        edges.put(uri, importersOfUri);
+      }
+      importersOfUri.add(importer);
+    }
+  }
+
+  private void remove(URI uri) {
+    Imported imported = importedBy.remove(uri);
+    if (imported == null) {
+      return;
+    }
+    removeEdges(uri, imported.all, importers);
+    removeEdges(uri, imported.onlyPublic, publicImporters);
+  }
+
+  private void removeEdges(URI importer, List<URI> imported, Map<URI, Set<URI>> edges) {
+    for (URI uri : imported) {
+      Set<URI> importersOfUri = edges.get(uri);
+      if (importersOfUri != null && importersOfUri.remove(importer) && importersOfUri.isEmpty()) {
+        edges.remove(uri);
+      }
+    }
+  }
+
+  private static List<URI> urisIn(String uris) {
+    if (isEmpty(uris)) {
+      return emptyList();
+    }
+    List<URI> parsed = newArrayList();
+    for (String uri : uris.split(" ")) {
+      parsed.add(URI.createURI(uri));
+    }
+    return parsed;
+  }
+
+  /**
+   * Returns the files that depend on any of the given ones: the files that import them, and the files that import a
+   * file that publicly imports them, directly or through a chain of public imports.
+   * @param uris the URIs of the given files.
+   * @return the URIs of the files that depend on the given ones.
+   */
+  Set<URI> dependentsOf(Collection<URI> uris) {
+    Set<URI> dependents = newLinkedHashSet();
+    synchronized (importers) {
+      Set<URI> visited = newHashSet(uris);
+      LinkedList<URI> pending = new LinkedList<URI>(uris);
+      while (!pending.isEmpty()) {
+        URI current = pending.removeFirst();
+        addAll(importers.get(current), dependents);
+        Set<URI> reexporting = publicImporters.get(current);
+        if (reexporting == null) {
+          continue;
+        }
+        for (URI uri : reexporting) {
+          if (visited.add(uri)) {
+            pending.add(uri);
+          }
+        }
+      }
+    }
+    return dependents;
+  }
+
+  private static void addAll(Set<URI> source, Set<URI> target) {
+    if (source != null) {
+      target.addAll(source);
+    }
+  }
+
+  private static class Imported {
+    final List<URI> all;
+    final List<URI> onlyPublic;
+
+    Imported(List<URI> all, List<URI> onlyPublic) {
+      this.all = all;
+      this.onlyPublic = onlyPublic;
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.resource.IResourceDescription.Event;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+
+import com.google.inject.Singleton;
+
+/**
+ * Finds the files that depend on changed files, using a <code>{@link ReverseImportIndex}</code> of the Xtext index.
+ * Indices that notify their changes keep their reverse index, which is updated incrementally; any other index is
+ * scanned on every call.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton public class ReverseImportIndexes {
+  private final Map<IResourceDescriptions, ReverseImportIndex> indexes =
+      new WeakHashMap<IResourceDescriptions, ReverseImportIndex>();
+
+  /**
+   * Returns the files in the given Xtext index that depend on any of the given ones: the files that import them,
+   * directly or through a chain of public imports.
+   * @param uris the URIs of the given files.
+   * @param xtextIndex the Xtext index.
+   * @return the URIs of the files that depend on the given ones.
+   */
+  public Set<URI> dependentsOf(Collection<URI> uris, IResourceDescriptions xtextIndex) {
+    return indexOf(xtextIndex).dependentsOf(uris);
+  }
+
+  private ReverseImportIndex indexOf(IResourceDescriptions xtextIndex) {
+    if (!(xtextIndex instanceof Event.Source)) {
+      return new ReverseImportIndex(xtextIndex, null);
+    }
+    synchronized (indexes) {
+      ReverseImportIndex index = indexes.get(xtextIndex);
+      if (index == null) {
+        index = new ReverseImportIndex(xtextIndex, (Event.Source) xtextIndex);
+        indexes.put(xtextIndex, index);
+      }
+      return index;
+    }
+  }
+}
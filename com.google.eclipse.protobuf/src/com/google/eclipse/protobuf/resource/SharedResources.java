@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.resource;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Lists.newLinkedList;
+
+import static org.eclipse.emf.ecore.resource.ContentHandler.UNSPECIFIED_CONTENT_TYPE;
+import static org.eclipse.emf.ecore.util.EcoreUtil.getAdapter;
+import static org.eclipse.xtext.EcoreUtil2.resolveLazyCrossReferences;
+import static org.eclipse.xtext.util.CancelIndicator.NullImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+
+import com.google.eclipse.protobuf.linking.ProtobufResource;
+import com.google.eclipse.protobuf.model.util.Imports;
+import com.google.eclipse.protobuf.model.util.Protobufs;
+import com.google.eclipse.protobuf.protobuf.Import;
+import com.google.eclipse.protobuf.protobuf.Protobuf;
+import com.google.eclipse.protobuf.protobuf.ProtobufFactory;
+import com.google.eclipse.protobuf.util.Uris;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * Process-wide cache of parsed ".proto" files referred by "file:" URIs (e.g. files in import roots outside the
+ * workspace.) Each file is parsed and linked once, and the resulting resource is shared, read-only, by all the
+ * <code>{@link FastXtextResourceSet}</code>s that do not have their own copy of it (e.g. the one loaded by an
+ * editor.)
+ * <p>
+ * A shared resource is reused as long as the hash of the file's contents is the same, the shared resources it imports
+ * are still current, the files it imports but had to load privately did not change, and the imports that could not be
+ * resolved when it was loaded still cannot be resolved. These conditions are verified at most once every
+ * {@link #VERIFICATION_INTERVAL_MILLIS} milliseconds per resource. Resources found out of date are evicted.
+ * </p>
+ * <p>
+ * Shared resources can be used by several threads at the same time: all their references are resolved before they
+ * are handed out, and the values that <code>{@link org.eclipse.xtext.util.IResourceScopeCache}</code> stores for them
+ * are kept in a thread-safe cache (see <code>{@link #cacheOf(Resource)}</code>.)
+ * </p>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+@Singleton public class SharedResources {
+  static final long VERIFICATION_INTERVAL_MILLIS = 1000;
+
+  @Inject private Imports imports;
+  @Inject private Protobufs protobufs;
+  @Inject private Provider<FastXtextResourceSet> resourceSetProvider;
+  @Inject private Uris uris;
+
+  private final ConcurrentMap<URI, SharedResource> resources = new ConcurrentHashMap<URI, SharedResource>();
+  private final ConcurrentMap<URI, ReentrantLock> locks = new ConcurrentHashMap<URI, ReentrantLock>();
+  private final ThreadLocal<LinkedList<SharedResource>> loading = new ThreadLocal<LinkedList<SharedResource>>() {
+    @Override protected LinkedList<SharedResource> initialValue() {
+      return newLinkedList();
+    }
+  };
+
+  long verificationIntervalMillis = VERIFICATION_INTERVAL_MILLIS;
+
+  /**
+   * Indicates whether the resource referred by the given URI can be shared among resource sets.
+   * @param uri the URI of the resource.
+   * @return {@code true} if the given URI refers to a ".proto" file in the file system; {@code false} otherwise.
+   */
+  public boolean canShare(URI uri) {
+    return uri.isFile() && uris.hasProtoExtension(uri);
+  }
+
+  /**
+   * Returns the shared resource referred by the given URI, parsing the file it refers to if it has not been parsed
+   * yet or if it changed since it was parsed.
+   * @param uri the URI of the resource.
+   * @return the shared resource, or {@code null} if the file does not exist or cannot be loaded.
+   */
+  public Resource resourceFor(URI uri) {
+    LinkedList<SharedResource> beingLoaded = loading.get();
+    SharedResource shared = currentResource(uri);
+    if (shared == null) {
+      shared = loadIfNecessary(uri, beingLoaded);
+    }
+    if (!beingLoaded.isEmpty()) {
+      SharedResource importer = beingLoaded.getLast();
+      File file = new File(uri.toFileString());
+      if (shared != null) {
+        importer.dependencies.add(shared);
+      } else if (file.isFile()) {
+        // the importer loads its own copy of the file, which is not shared: remember the version it loaded.
+        importer.privatelyLoadedFiles.add(new FileStamp(file));
+      } else {
+        // the file may be created later on; the importer has to be loaded again when that happens.
+        importer.missingFiles.add(file);
+      }
+    }
+    return (shared == null) ? null : shared.resource;
+  }
+
+  /**
+   * Returns the shared resource referred by the given URI, only if it has already been loaded and is still current.
+   * @param uri the URI of the resource.
+   * @return the shared resource, or {@code null} if it has not been loaded yet or it is out of date.
+   */
+  public Resource loadedResourceFor(URI uri) {
+    SharedResource shared = currentResource(uri);
+    return (shared == null) ? null : shared.resource;
+  }
+
+  /**
+   * Indicates whether the given resource is a shared resource that is still current.
+   * @param resource the given resource.
+   * @return {@code true} if the given resource is shared and still current, {@code false} otherwise.
+   */
+  public boolean isCurrent(Resource resource) {
+    SharedCache cache = cacheOf(resource);
+    return cache != null && isCurrent(cache.owner);
+  }
+
+  /**
+   * Returns the cache for the values computed from the given resource, if the given resource is shared. Unlike the
+   * default cache of Xtext, it can be used by several threads at the same time, and it is never cleared: a shared
+   * resource does not change, it is replaced with a new one.
+   * @param resource the given resource.
+   * @return the cache of the given resource, or {@code null} if the given resource is not shared.
+   */
+  public static SharedCache cacheOf(Resource resource) {
+    return (resource == null) ? null : (SharedCache) getAdapter(resource.eAdapters(), SharedCache.class);
+  }
+
+  private SharedResource currentResource(URI uri) {
+    SharedResource shared = resources.get(uri);
+    return (shared != null && isCurrent(shared)) ? shared : null;
+  }
+
+  private SharedResource loadIfNecessary(URI uri, LinkedList<SharedResource> beingLoaded) {
+    for (SharedResource shared : beingLoaded) {
+      if (shared.uri.equals(uri)) {
+        // circular import: let the importing resource set load its own copy.
+        return null;
+      }
+    }
+    ReentrantLock lock = lockFor(uri);
+    // a thread that is loading an importer must not wait for another thread: they may be loading the same files in
+    // the opposite order.
+    if (beingLoaded.isEmpty()) {
+      lock.lock();
+    } else if (!lock.tryLock()) {
+      return null;
+    }
+    try {
+      SharedResource shared = currentResource(uri);
+      if (shared != null) {
+        return shared;
+      }
+      File file = new File(uri.toFileString());
+      shared = file.isFile() ? load(uri, file, beingLoaded) : null;
+      if (shared == null) {
+        resources.remove(uri);
+        return null;
+      }
+      resources.put(uri, shared);
+      return shared;
+    } finally {
+      lock.unlock();
+      if (!lock.hasQueuedThreads()) {
+        // a thread that got this lock just before its removal may load the file at the same time as a thread that gets
+        // a new one: the file is parsed twice and the last resource stored wins.
+        locks.remove(uri, lock);
+      }
+    }
+  }
+
+  private ReentrantLock lockFor(URI uri) {
+    ReentrantLock lock = locks.get(uri);
+    if (lock == null) {
+      ReentrantLock created = new ReentrantLock();
+      lock = locks.putIfAbsent(uri, created);
+      if (lock == null) {
+        lock = created;
+      }
+    }
+    return lock;
+  }
+
+  private boolean isCurrent(SharedResource shared) {
+    if (resources.get(shared.uri) != shared) {
+      return false;
+    }
+    long now = System.currentTimeMillis();
+    if (now - shared.lastVerified < verificationIntervalMillis) {
+      return !shared.outdated;
+    }
+    shared.lastVerified = now;
+    if (!shared.outdated && !isStillValid(shared)) {
+      shared.outdated = true;
+    }
+    if (shared.outdated) {
+      resources.remove(shared.uri, shared);
+      return false;
+    }
+    return true;
+  }
+
+  private boolean isStillValid(SharedResource shared) {
+    if (!shared.isFileCurrent()) {
+      return false;
+    }
+    for (File missing : shared.missingFiles) {
+      if (missing.isFile()) {
+        return false;
+      }
+    }
+    for (FileStamp stamp : shared.privatelyLoadedFiles) {
+      if (!stamp.isCurrent()) {
+        return false;
+      }
+    }
+    for (String importUri : shared.unresolvedImportUris) {
+      if (isResolvable(importUri, shared.uri)) {
+        return false;
+      }
+    }
+    for (SharedResource dependency : shared.dependencies) {
+      if (!isCurrent(dependency)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private SharedResource load(URI uri, File file, LinkedList<SharedResource> beingLoaded) {
+    SharedResource shared = new SharedResource(uri, file);
+    beingLoaded.addLast(shared);
+    try {
+      ResourceSet resourceSet = resourceSetProvider.get();
+      Resource resource = resourceSet.createResource(uri, UNSPECIFIED_CONTENT_TYPE);
+      resource.load(resourceSet.getLoadOptions());
+      resource.eAdapters().add(new SharedCache(shared));
+      // shared resources are read-only: resolve all their references now, before other threads can see them.
+      resolveLazyCrossReferences(resource, NullImpl);
+      shared.unresolvedImportUris.addAll(unresolvedImportUrisIn(resource));
+      shared.resource = resource;
+      if (resource instanceof ProtobufResource) {
+        shared.hash = ((ProtobufResource) resource).contentHash();
+      }
+      shared.lastVerified = System.currentTimeMillis();
+      return shared;
+    } catch (IOException e) {
+      return null;
+    } catch (RuntimeException e) {
+      return null;
+    } finally {
+      beingLoaded.removeLast();
+    }
+  }
+
+  private List<String> unresolvedImportUrisIn(Resource resource) {
+    List<String> unresolved = newArrayList();
+    for (EObject root : resource.getContents()) {
+      if (!(root instanceof Protobuf)) {
+        continue;
+      }
+      for (Import anImport : protobufs.importsIn((Protobuf) root)) {
+        if (!imports.isImportingDescriptor(anImport) && imports.resolvedUriOf(anImport) == null) {
+          unresolved.add(anImport.getImportURI());
+        }
+      }
+    }
+    return unresolved;
+  }
+
+  private boolean isResolvable(String importUri, URI importerUri) {
+    // resolving an import updates its URI: resolve a detached copy, other threads may be reading the shared resource.
+    Import copy = ProtobufFactory.eINSTANCE.createNormalImport();
+    copy.setImportURI(importUri);
+    new ResourceImpl(importerUri).getContents().add(copy);
+    return imports.resolvedUriOf(copy) != null;
+  }
+
+  /**
+   * Thread-safe cache of the values computed from a shared resource.
+   */
+  public static class SharedCache extends AdapterImpl {
+    private static final Object NULL = new Object();
+
+    private final ConcurrentMap<Object, Object> values = new ConcurrentHashMap<Object, Object>();
+    private final SharedResource owner;
+
+    private SharedCache(SharedResource owner) {
+      this.owner = owner;
+    }
+
+    /**
+     * Returns the value stored under the given key, computing it with the given provider if there is none. The value
+     * is computed without holding any lock, so it may be computed more than once; the first value stored wins.
+     * @param key the given key.
+     * @param provider computes the value.
+     * @return the value stored under the given key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Provider<T> provider) {
+      Object value = values.get(key);
+      if (value == null) {
+        Object computed = provider.get();
+        value = values.putIfAbsent(key, (computed == null) ? NULL : computed);
+        if (value == null) {
+          value = (computed == null) ? NULL : computed;
+        }
+      }
+      return (value == NULL) ? null : (T) value;
+    }
+
+    @Override public boolean isAdapterForType(Object type) {
+      return SharedCache.class == type;
+    }
+  }
+
+  private static class SharedResource {
+    final URI uri;
+    final Set<SharedResource> dependencies = new CopyOnWriteArraySet<SharedResource>();
+    final Set<File> missingFiles = new CopyOnWriteArraySet<File>();
+    final List<FileStamp> privatelyLoadedFiles = new CopyOnWriteArrayList<FileStamp>();
+    final List<String> unresolvedImportUris = new CopyOnWriteArrayList<String>();
+
+    volatile Resource resource;
+    volatile String hash;
+    volatile long lastVerified;
+    volatile boolean outdated;
+
+    private final File file;
+    private long lastModified;
+    private long length;
+
+    SharedResource(URI uri, File file) {
+      this.uri = uri;
+      this.file = file;
+      lastModified = file.lastModified();
+      length = file.length();
+    }
+
+    synchronized boolean isFileCurrent() {
+      if (!file.isFile()) {
+        return false;
+      }
+      long currentLastModified = file.lastModified();
+      long currentLength = file.length();
+      if (currentLastModified == lastModified && currentLength == length) {
+        return true;
+      }
+      if (hash == null || !hash.equals(hashOfFile(file))) {
+        return false;
+      }
+      // the file was touched but its contents did not change.
+      lastModified = currentLastModified;
+      length = currentLength;
+      return true;
+    }
+
+    private static String hashOfFile(File file) {
+      try {
+        return FileContents.hashOf(file);
+      } catch (IOException e) {
+        return null;
+      }
+    }
+  }
+
+  private static class FileStamp {
+    private final File file;
+    private final long lastModified;
+    private final long length;
+
+    FileStamp(File file) {
+      this.file = file;
+      lastModified = file.lastModified();
+      length = file.length();
+    }
+
+    boolean isCurrent() {
+      return file.isFile() && file.lastModified() == lastModified && file.length() == length;
+    }
+  }
+}
@@ -13,6 +13,7 @@ import static java.util.Collections.emptySet;
 import static org.eclipse.xtext.resource.EObjectDescription.create;
 
 import static com.google.common.collect.Sets.newHashSet;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.COMPLEX_TYPE;
 
 import java.util.Collection;
 import java.util.List;
@@ -22,11 +23,13 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.naming.QualifiedName;
 import org.eclipse.xtext.resource.IEObjectDescription;
 
+import com.google.eclipse.protobuf.model.util.Packages;
 import com.google.eclipse.protobuf.naming.LocalNamesProvider;
 import com.google.eclipse.protobuf.naming.NormalNamingStrategy;
 import com.google.eclipse.protobuf.protobuf.ComplexType;
 import com.google.eclipse.protobuf.protobuf.Import;
 import com.google.eclipse.protobuf.protobuf.Package;
+import com.google.eclipse.protobuf.scoping.IndexedImports.IndexedFile;
 import com.google.inject.Inject;
 
 /**
@@ -37,8 +40,19 @@ class ComplexTypeFinderStrategy implements ModelElementFinder.FinderStrategy<Cla
   @Inject private ProtoDescriptorProvider descriptorProvider;
   @Inject private LocalNamesProvider localNamesProvider;
   @Inject private NormalNamingStrategy namingStrategy;
+  @Inject private Packages packages;
   @Inject private QualifiedNameDescriptions qualifiedNamesDescriptions;
 
+  @Override public Iterable<? extends EObject> candidatesIn(SymbolTable symbols,
+      Class<? extends ComplexType> typeOfComplexType) {
+    return symbols.complexTypes();
+  }
+
+  @Override public Iterable<? extends EObject> candidatesIn(SymbolTable symbols,
+      Class<? extends ComplexType> typeOfComplexType, String simpleName) {
+    return symbols.complexTypesWithSimpleName(simpleName);
+  }
+
   @Override public Collection<IEObjectDescription> imported(Package fromImporter, Package fromImported, Object target,
       Class<? extends ComplexType> typeOfComplexType) {
     if (!typeOfComplexType.isInstance(target)) {
@@ -64,6 +78,35 @@ class ComplexTypeFinderStrategy implements ModelElementFinder.FinderStrategy<Cla
     return descriptions;
   }
 
+  @Override public Collection<IEObjectDescription> fromIndex(Package fromImporter, IndexedFile imported,
+      Class<? extends ComplexType> typeOfComplexType) {
+    Set<IEObjectDescription> descriptions = newHashSet();
+    QualifiedName packageOfImported = imported.packageName();
+    boolean packagesRelated = packages.areRelated(fromImporter, packageOfImported);
+    int packageSegmentCount = (packageOfImported == null) ? 0 : packageOfImported.getSegmentCount();
+    for (IEObjectDescription exported : imported.exportedObjectsOfType(COMPLEX_TYPE)) {
+      if (!typeOfComplexType.isAssignableFrom(exported.getEClass().getInstanceClass())) {
+        continue;
+      }
+      QualifiedName fqn = exported.getQualifiedName();
+      EObject e = exported.getEObjectOrProxy();
+      descriptions.add(qualifiedNamesDescriptions.fullyQualified(fqn, e));
+      if (packagesRelated) {
+        // same names as 'local' when the file is loaded: the nesting path of the type, alone or preceded by the last
+        // segments of the package. Names of nested types without their outer types are not visible from other files.
+        if (packageSegmentCount == 0) {
+          descriptions.add(create(fqn, e));
+        }
+        for (int i = packageSegmentCount; i > 0; i--) {
+          descriptions.add(create(fqn.skipFirst(i), e));
+        }
+        continue;
+      }
+      descriptions.addAll(packageIntersectionDescriptions.intersection(fromImporter, packageOfImported, exported));
+    }
+    return descriptions;
+  }
+
   @Override public Collection<IEObjectDescription> local(Object target, Class<? extends ComplexType> typeOfComplexType,
       int level) {
    if (!typeOfComplexType.isInstance(target)) {
@@ -18,6 +18,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.naming.QualifiedName;
 import org.eclipse.xtext.resource.IEObjectDescription;
 
@@ -29,6 +30,7 @@ import com.google.eclipse.protobuf.protobuf.Message;
 import com.google.eclipse.protobuf.protobuf.MessageElement;
 import com.google.eclipse.protobuf.protobuf.Package;
 import com.google.eclipse.protobuf.protobuf.TypeExtension;
+import com.google.eclipse.protobuf.scoping.IndexedImports.IndexedFile;
 import com.google.inject.Inject;
 
 /**
@@ -40,6 +42,16 @@ class CustomOptionFinderStrategy implements ModelElementFinder.FinderStrategy<Op
   @Inject private QualifiedNameDescriptions qualifiedNamesDescriptions;
   @Inject private TypeExtensions typeExtensions;
 
+  @Override public Iterable<? extends EObject> candidatesIn(SymbolTable symbols, OptionType optionType) {
+    return symbols.customOptionExtensions(optionType);
+  }
+
+  @Override public Iterable<? extends EObject> candidatesIn(SymbolTable symbols, OptionType optionType,
+      String simpleName) {
+    // extensions are few; their fields are matched by name once described.
+    return symbols.customOptionExtensions(optionType);
+  }
+
   @Override public Collection<IEObjectDescription> imported(Package fromImporter, Package fromImported, Object target,
       OptionType optionType) {
     if (!isExtendingOptionMessage(target, optionType)) {
@@ -57,6 +69,12 @@ class CustomOptionFinderStrategy implements ModelElementFinder.FinderStrategy<Op
     return emptySet();
   }
 
+  @Override public Collection<IEObjectDescription> fromIndex(Package fromImporter, IndexedFile imported,
+      OptionType optionType) {
+    // the index does not know which message a type extension extends.
+    return null;
+  }
+
   @Override public Collection<IEObjectDescription> local(Object target, OptionType optionType, int level) {
     if (!isExtendingOptionMessage(target, optionType)) {
       return emptySet();
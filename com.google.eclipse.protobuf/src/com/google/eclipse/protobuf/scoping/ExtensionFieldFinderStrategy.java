@@ -20,22 +20,19 @@ import java.util.Set;
 import org.eclipse.xtext.resource.IEObjectDescription;
 
 import com.google.eclipse.protobuf.model.util.MessageFields;
-import com.google.eclipse.protobuf.model.util.Messages;
 import com.google.eclipse.protobuf.model.util.Options;
 import com.google.eclipse.protobuf.naming.OptionNamingStrategy;
 import com.google.eclipse.protobuf.protobuf.IndexedElement;
 import com.google.eclipse.protobuf.protobuf.Message;
-import com.google.eclipse.protobuf.protobuf.MessageElement;
 import com.google.eclipse.protobuf.protobuf.MessageField;
-import com.google.eclipse.protobuf.protobuf.TypeExtension;
 import com.google.inject.Inject;
 
 /**
  * @author alruiz@google.com (Alex Ruiz)
  */
 class ExtensionFieldFinderStrategy implements CustomOptionFieldFinder.FinderStrategy {
+  @Inject private ExtensionFieldIndex extensionFieldIndex;
   @Inject private MessageFields messageFields;
-  @Inject private Messages messages;
   @Inject private OptionNamingStrategy namingStrategy;
   @Inject private Options options;
   @Inject private QualifiedNameDescriptions qualifiedNameDescriptions;
@@ -49,16 +46,10 @@ class ExtensionFieldFinderStrategy implements CustomOptionFieldFinder.FinderStra
       return emptyList();
     }
     Set<IEObjectDescription> descriptions = newHashSet();
-    for (TypeExtension extension : messages.localExtensionsOf(fieldType)) {
-      for (MessageElement element : extension.getElements()) {
-        if (!(element instanceof IndexedElement)) {
-          continue;
-        }
-        IndexedElement current = (IndexedElement) element;
-        descriptions.addAll(qualifiedNameDescriptions.qualifiedNames(current, namingStrategy));
-        String name = options.nameForOption(current);
-        descriptions.add(create(name, current));
-      }
+    for (IndexedElement current : extensionFieldIndex.extensionFieldsOf(fieldType, reference.eResource())) {
+      descriptions.addAll(qualifiedNameDescriptions.qualifiedNames(current, namingStrategy));
+      String name = options.nameForOption(current);
+      descriptions.add(create(name, current));
     }
     return descriptions;
   }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.scoping;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newLinkedHashSet;
+
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.resource.Resource;
+
+import com.google.eclipse.protobuf.model.util.ImportGraph;
+import com.google.eclipse.protobuf.protobuf.IndexedElement;
+import com.google.eclipse.protobuf.protobuf.Message;
+import com.google.inject.Inject;
+
+/**
+ * Finds the fields and groups extending a message (including the option messages in descriptor.proto, like
+ * {@code FieldOptions}) that are visible from a resource: the ones declared in the resource itself, in the file
+ * declaring the extended message, and in the files imported (directly or indirectly) by the resource.
+ * <p>
+ * Each file indexes its extension fields by extended message in its <code>{@link SymbolTable}</code>, so finding them
+ * takes a lookup per file instead of resolving every type extension in the import graph.
+ * </p>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class ExtensionFieldIndex {
+  @Inject private ImportGraph importGraph;
+  @Inject private SymbolTables symbolTables;
+
+  /**
+   * Returns the fields and groups extending the given message that are visible from the given resource.
+   * @param message the extended message.
+   * @param resource the resource the extension fields should be visible from.
+   * @return the fields and groups extending the given message, or an empty list if none are found.
+   */
+  List<IndexedElement> extensionFieldsOf(Message message, Resource resource) {
+    if (message == null) {
+      return emptyList();
+    }
+    List<IndexedElement> fields = newArrayList();
+    for (Resource visible : visibleFrom(resource, message.eResource())) {
+      fields.addAll(symbolTables.symbolTableOf(visible).extensionFieldsOf(message));
+    }
+    return unmodifiableList(fields);
+  }
+
+  private Set<Resource> visibleFrom(Resource resource, Resource messageResource) {
+    Set<Resource> visible = newLinkedHashSet();
+    if (resource != null) {
+      visible.add(resource);
+      visible.addAll(importGraph.closureOf(resource));
+    }
+    if (messageResource != null) {
+      visible.add(messageResource);
+    }
+    return visible;
+  }
+}
@@ -17,24 +17,19 @@ import org.eclipse.xtext.resource.IEObjectDescription;
 
 import com.google.common.base.Strings;
 import com.google.eclipse.protobuf.model.util.MessageFields;
-import com.google.eclipse.protobuf.model.util.Messages;
-import com.google.eclipse.protobuf.model.util.ModelObjects;
 import com.google.eclipse.protobuf.naming.NormalNamingStrategy;
 import com.google.eclipse.protobuf.protobuf.Group;
 import com.google.eclipse.protobuf.protobuf.IndexedElement;
 import com.google.eclipse.protobuf.protobuf.Message;
-import com.google.eclipse.protobuf.protobuf.MessageElement;
 import com.google.eclipse.protobuf.protobuf.MessageField;
-import com.google.eclipse.protobuf.protobuf.TypeExtension;
 import com.google.inject.Inject;
 
 /**
  * @author alruiz@google.com (Alex Ruiz)
  */
 class ExtensionFieldNameFinderStrategy implements CustomOptionFieldNameFinder.FinderStrategy {
+  @Inject private ExtensionFieldIndex extensionFieldIndex;
   @Inject private MessageFields messageFields;
-  @Inject private Messages messages;
-  @Inject private ModelObjects modelObjects;
   @Inject private NormalNamingStrategy namingStrategy;
   @Inject private QualifiedNameDescriptions qualifiedNameDescriptions;
 
@@ -42,13 +37,8 @@ class ExtensionFieldNameFinderStrategy implements CustomOptionFieldNameFinder.Fi
     Set<IEObjectDescription> descriptions = newHashSet();
     if (reference instanceof MessageField) {
       Message type = messageFields.messageTypeOf((MessageField) reference);
-      // check first in descriptor.proto
-      for (TypeExtension extension : messages.extensionsOf(type, modelObjects.rootOf(reference))) {
-        for (MessageElement element : extension.getElements()) {
-          if (element instanceof IndexedElement) {
-            descriptions.addAll(qualifiedNameDescriptions.qualifiedNames(element, namingStrategy));
-          }
-        }
+      for (IndexedElement element : extensionFieldIndex.extensionFieldsOf(type, reference.eResource())) {
+        descriptions.addAll(qualifiedNameDescriptions.qualifiedNames(element, namingStrategy));
       }
     } else if (reference instanceof Group) {
       String name = ((Group) reference).getName();
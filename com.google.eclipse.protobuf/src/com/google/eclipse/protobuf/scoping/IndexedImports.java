@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.scoping;
+
+import static org.eclipse.xtext.util.Strings.isEmpty;
+
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.PROTOBUF;
+import static com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionStrategy.HAS_PUBLIC_IMPORTS;
+import static com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionStrategy.PACKAGE;
+import static com.google.eclipse.protobuf.resource.ProtobufResourceDescriptionStrategy.PROTO2;
+
+import java.util.Iterator;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.naming.IQualifiedNameConverter;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+import org.eclipse.xtext.scoping.impl.ResourceDescriptionsProvider;
+
+import com.google.eclipse.protobuf.resource.ExternalFileIndex;
+import com.google.eclipse.protobuf.resource.SharedResources;
+import com.google.inject.Inject;
+
+/**
+ * Looks up imported files in the Xtext index, or in the <code>{@link ExternalFileIndex}</code> if they are outside the
+ * workspace, so their types can be described without loading them.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class IndexedImports {
+  @Inject private IQualifiedNameConverter qualifiedNameConverter;
+  @Inject private ResourceDescriptionsProvider descriptionsProvider;
+  @Inject private ExternalFileIndex externalFiles;
+  @Inject private SharedResources sharedResources;
+
+  /**
+   * Returns the indexed version of the file with the given URI, only if such file has not been loaded yet in the
+   * {@code ResourceSet} of the importing resource, nor shared among resource sets (see
+   * <code>{@link SharedResources}</code>.) Loaded files are always described from their model.
+   * @param uri the URI of the imported file.
+   * @param importer the importing resource.
+   * @return the indexed version of the imported file, or {@code null} if the file is already loaded or if it is not in
+   * any index.
+   */
+  IndexedFile unloadedFile(URI uri, Resource importer) {
+    ResourceSet resourceSet = importer.getResourceSet();
+    if (uri == null || resourceSet == null) {
+      return null;
+    }
+    Resource loaded = resourceSet.getResource(uri, false);
+    if (loaded == null && sharedResources.canShare(uri)) {
+      loaded = sharedResources.loadedResourceFor(uri);
+    }
+    if (loaded != null && loaded.isLoaded()) {
+      return null;
+    }
+    IResourceDescriptions index = descriptionsProvider.getResourceDescriptions(importer);
+    IResourceDescription description = (index == null) ? null : index.getResourceDescription(uri);
+    if (description == null && externalFiles.canDescribe(uri)) {
+      description = externalFiles.descriptionOf(uri);
+    }
+    if (description == null) {
+      return null;
+    }
+    Iterator<IEObjectDescription> roots = description.getExportedObjectsByType(PROTOBUF).iterator();
+    if (!roots.hasNext()) {
+      return null;
+    }
+    return new IndexedFile(description, roots.next());
+  }
+
+  /**
+   * A file as described in the Xtext index.
+   */
+  class IndexedFile {
+    private final IResourceDescription description;
+    private final IEObjectDescription root;
+
+    IndexedFile(IResourceDescription description, IEObjectDescription root) {
+      this.description = description;
+      this.root = root;
+    }
+
+    QualifiedName packageName() {
+      String name = root.getUserData(PACKAGE);
+      return isEmpty(name) ? null : qualifiedNameConverter.toQualifiedName(name);
+    }
+
+    boolean isProto2() {
+      return Boolean.parseBoolean(root.getUserData(PROTO2));
+    }
+
+    boolean hasPublicImports() {
+      return Boolean.parseBoolean(root.getUserData(HAS_PUBLIC_IMPORTS));
+    }
+
+    Iterable<IEObjectDescription> exportedObjectsOfType(EClass type) {
+      return description.getExportedObjectsByType(type);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.scoping;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.scoping.IScope;
+import org.eclipse.xtext.scoping.impl.SimpleScope;
+
+/**
+ * Scope that looks up elements by name without describing every visible element. All the elements in this scope are
+ * described only if they are requested (e.g. by content assist.) Lookups by absolute name (e.g.
+ * {@code .com.google.proto.Person}) are normalized to lookups by fully-qualified name.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+abstract class LazyScope implements IScope {
+  private static final boolean DO_NOT_IGNORE_CASE = false;
+
+  private final QualifiedNameDescriptions qualifiedNameDescriptions;
+
+  private IScope allElements;
+
+  LazyScope(QualifiedNameDescriptions qualifiedNameDescriptions) {
+    this.qualifiedNameDescriptions = qualifiedNameDescriptions;
+  }
+
+  @Override public IEObjectDescription getSingleElement(QualifiedName name) {
+    Iterator<IEObjectDescription> elements = getElements(name).iterator();
+    return elements.hasNext() ? elements.next() : null;
+  }
+
+  @Override public Iterable<IEObjectDescription> getElements(QualifiedName name) {
+    if (qualifiedNameDescriptions.isAbsolute(name)) {
+      return qualifiedNameDescriptions.withAbsoluteName(name, elementsNamed(name.skipFirst(1)));
+    }
+    return elementsNamed(name);
+  }
+
+  @Override public IEObjectDescription getSingleElement(EObject object) {
+    return allElements().getSingleElement(object);
+  }
+
+  @Override public Iterable<IEObjectDescription> getElements(EObject object) {
+    return allElements().getElements(object);
+  }
+
+  @Override public Iterable<IEObjectDescription> getAllElements() {
+    return allElements().getAllElements();
+  }
+
+  private synchronized IScope allElements() {
+    if (allElements == null) {
+      allElements = new SimpleScope(qualifiedNameDescriptions.withLeadingDots(describeAll()),
+          DO_NOT_IGNORE_CASE);
+    }
+    return allElements;
+  }
+
+  /**
+   * Returns the descriptions of the elements in this scope whose name is equal to the given one.
+   * @param name the given name.
+   * @return the descriptions of the elements whose name is equal to the given one, or an empty collection if none
+   * are found.
+   */
+  abstract Collection<IEObjectDescription> elementsNamed(QualifiedName name);
+
+  /**
+   * Returns the descriptions of all the elements in this scope.
+   * @return the descriptions of all the elements in this scope.
+   */
+  abstract Collection<IEObjectDescription> describeAll();
+}
@@ -12,22 +12,26 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.unmodifiableSet;
 
-import static org.eclipse.emf.ecore.util.EcoreUtil.getAllContents;
+import static org.eclipse.xtext.util.Tuples.pair;
 
-import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.base.Objects.equal;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newLinkedHashSet;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
-import org.eclipse.emf.common.util.TreeIterator;
-import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
-import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.naming.QualifiedName;
 import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.util.IResourceScopeCache;
+import org.eclipse.xtext.util.Pair;
 
-import com.google.eclipse.protobuf.model.util.Imports;
+import com.google.common.base.Objects;
+import com.google.eclipse.protobuf.model.util.ImportGraph;
+import com.google.eclipse.protobuf.model.util.ImportGraph.ResolvedImport;
 import com.google.eclipse.protobuf.model.util.ModelObjects;
 import com.google.eclipse.protobuf.model.util.Packages;
 import com.google.eclipse.protobuf.model.util.Protobufs;
@@ -37,78 +41,173 @@ import com.google.eclipse.protobuf.protobuf.Import;
 import com.google.eclipse.protobuf.protobuf.Message;
 import com.google.eclipse.protobuf.protobuf.Package;
 import com.google.eclipse.protobuf.protobuf.Protobuf;
-import com.google.eclipse.protobuf.resource.ResourceSets;
+import com.google.eclipse.protobuf.scoping.IndexedImports.IndexedFile;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 
 /**
  * @author alruiz@google.com (Alex Ruiz)
  */
 class ModelElementFinder {
-  @Inject private Imports imports;
+  @Inject private final IResourceScopeCache cache = IResourceScopeCache.NullImpl.INSTANCE;
+
+  @Inject private ImportGraph importGraph;
+  @Inject private IndexedImports indexedImports;
   @Inject private ModelObjects modelObjects;
   @Inject private Packages packages;
   @Inject private Protobufs protobufs;
   @Inject private Resources resources;
-  @Inject private ResourceSets resourceSets;
+  @Inject private SymbolTables symbolTables;
 
   <T> Collection<IEObjectDescription> find(EObject start, FinderStrategy<T> strategy, T criteria) {
-    Set<IEObjectDescription> descriptions = newHashSet();
-    descriptions.addAll(local(start, strategy, criteria));
+    return find(start, new Query<T>(strategy, criteria, null));
+  }
+
+  /**
+   * Returns the descriptions, visible from the given starting point, whose name is equal to the given one. Unlike
+   * <code>{@link #find(EObject, FinderStrategy, Object)}</code>, only the candidates with a matching simple name are
+   * described; they are looked up in the symbol tables of the local and imported resources.
+   * @param start the given starting point.
+   * @param strategy finds and describes the candidates.
+   * @param criteria the criteria passed to the given strategy.
+   * @param name the name to look for.
+   * @return the descriptions whose name is equal to the given one, local ones first.
+   */
+  <T> Collection<IEObjectDescription> find(EObject start, FinderStrategy<T> strategy, T criteria, QualifiedName name) {
+    if (name.isEmpty()) {
+      return emptyList();
+    }
+    return find(start, new Query<T>(strategy, criteria, name));
+  }
+
+  private <T> Collection<IEObjectDescription> find(final EObject start, final Query<T> query) {
+    Set<IEObjectDescription> descriptions = newLinkedHashSet();
+    // local descriptions only depend on the container of the starting point: siblings share them.
+    descriptions.addAll(cached(start.eContainer(), query, new Provider<Collection<IEObjectDescription>>() {
+      @Override public Collection<IEObjectDescription> get() {
+        return local(start, query);
+      }
+    }));
     Protobuf root = modelObjects.rootOf(start);
-    descriptions.addAll(imported(root, strategy, criteria));
+    descriptions.addAll(imported(root, query));
     return unmodifiableSet(descriptions);
   }
 
-  private <T> Collection<IEObjectDescription> local(EObject start, FinderStrategy<T> strategy, T criteria) {
+  private <T> Collection<IEObjectDescription> local(EObject start, Query<T> query) {
     UniqueDescriptions descriptions = new UniqueDescriptions();
     EObject current = start.eContainer();
     while (current != null) {
-      descriptions.addAll(local(current, strategy, criteria, 0));
+      descriptions.addAll(contentsOf(current, query));
       current = current.eContainer();
     }
     return descriptions.values();
   }
 
   <T> Collection<IEObjectDescription> find(Protobuf start, FinderStrategy<T> strategy, T criteria) {
-    Set<IEObjectDescription> descriptions = newHashSet();
-    descriptions.addAll(local(start, strategy, criteria, 0));
-    descriptions.addAll(imported(start, strategy, criteria));
+    return find(start, new Query<T>(strategy, criteria, null));
+  }
+
+  /**
+   * Returns the descriptions, visible from the given root, whose name is equal to the given one.
+   * @param start the given root.
+   * @param strategy finds and describes the candidates.
+   * @param criteria the criteria passed to the given strategy.
+   * @param name the name to look for.
+   * @return the descriptions whose name is equal to the given one, local ones first.
+   * @see #find(EObject, FinderStrategy, Object, QualifiedName)
+   */
+  <T> Collection<IEObjectDescription> find(Protobuf start, FinderStrategy<T> strategy, T criteria, QualifiedName name) {
+    if (name.isEmpty()) {
+      return emptyList();
+    }
+    return find(start, new Query<T>(strategy, criteria, name));
+  }
+
+  private <T> Collection<IEObjectDescription> find(final Protobuf start, final Query<T> query) {
+    Set<IEObjectDescription> descriptions = newLinkedHashSet();
+    descriptions.addAll(cached(start, query, new Provider<Collection<IEObjectDescription>>() {
+      @Override public Collection<IEObjectDescription> get() {
+        return contentsOf(start, query);
+      }
+    }));
+    descriptions.addAll(imported(start, query));
     return unmodifiableSet(descriptions);
   }
 
-  private <T> Collection<IEObjectDescription> local(EObject start, FinderStrategy<T> strategy, T criteria, int level) {
+  // only local descriptions are cached: the cache of a resource is not cleared when the files it imports change.
+  private <T> Collection<IEObjectDescription> cached(EObject container, Query<T> query,
+      Provider<Collection<IEObjectDescription>> provider) {
+    Resource resource = (container == null) ? null : container.eResource();
+    if (resource == null) {
+      return provider.get();
+    }
+    Pair<EObject, Query<T>> key = pair(container, query);
+    return cache.get(key, resource, provider);
+  }
+
+  private <T> Collection<IEObjectDescription> contentsOf(EObject container, Query<T> query) {
+    if (query.name == null) {
+      return local(container, query, 0);
+    }
+    UniqueDescriptions descriptions = new UniqueDescriptions();
+    SymbolTable symbols = symbolTables.symbolTableOf(container.eResource());
+    for (EObject candidate : query.candidatesIn(symbols)) {
+      int level = levelOf(candidate, container);
+      if (level >= 0) {
+        descriptions.addAll(query.matching(query.strategy.local(candidate, query.criteria, level)));
+      }
+    }
+    return descriptions.values();
+  }
+
+  private <T> Collection<IEObjectDescription> local(EObject start, Query<T> query, int level) {
     UniqueDescriptions descriptions = new UniqueDescriptions();
     for (EObject element : start.eContents()) {
-      descriptions.addAll(strategy.local(element, criteria, level));
+      descriptions.addAll(query.strategy.local(element, query.criteria, level));
       if (element instanceof Message || element instanceof Group) {
-        descriptions.addAll(local(element, strategy, criteria, level + 1));
+        descriptions.addAll(local(element, query, level + 1));
       }
     }
     return descriptions.values();
   }
 
-  private <T> Collection<IEObjectDescription> imported(Protobuf start, FinderStrategy<T> strategy, T criteria) {
-    List<Import> allImports = protobufs.importsIn(start);
+  // Returns the level at which the walk in 'local' would reach the given candidate when starting at the given
+  // container, or -1 if the walk would not reach it at all.
+  private int levelOf(EObject candidate, EObject container) {
+    int level = 0;
+    EObject current = candidate.eContainer();
+    while (current != container) {
+      if (!(current instanceof Message || current instanceof Group)) {
+        return -1;
+      }
+      level++;
+      current = current.eContainer();
+    }
+    return level;
+  }
+
+  private <T> Collection<IEObjectDescription> imported(Protobuf start, Query<T> query) {
+    List<ResolvedImport> allImports = importGraph.importsOf(start);
     if (allImports.isEmpty()) {
       return emptyList();
     }
-    ResourceSet resourceSet = start.eResource().getResourceSet();
-    return imported(allImports, modelObjects.packageOf(start), resourceSet, strategy, criteria);
+    return imported(allImports, modelObjects.packageOf(start), start.eResource(), query);
   }
 
-  private <T> Collection<IEObjectDescription> imported(List<Import> allImports, Package fromImporter,
-      ResourceSet resourceSet, FinderStrategy<T> strategy, T criteria) {
-    Set<IEObjectDescription> descriptions = newHashSet();
-    for (Import anImport : allImports) {
-      if (imports.isImportingDescriptor(anImport)) {
-        descriptions.addAll(strategy.inDescriptor(anImport, criteria));
+  private <T> Collection<IEObjectDescription> imported(List<ResolvedImport> allImports, Package fromImporter,
+      Resource importer, Query<T> query) {
+    Set<IEObjectDescription> descriptions = newLinkedHashSet();
+    for (ResolvedImport anImport : allImports) {
+      if (anImport.isImportingDescriptor()) {
+        descriptions.addAll(query.matching(query.strategy.inDescriptor(anImport.anImport(), query.criteria)));
         continue;
       }
-      URI resolvedUri = imports.resolvedUriOf(anImport);
-      if (resolvedUri == null) {
+      Collection<IEObjectDescription> indexed = fromIndex(anImport, fromImporter, importer, query);
+      if (indexed != null) {
+        descriptions.addAll(indexed);
         continue;
       }
-      Resource imported = resourceSets.findResource(resourceSet, resolvedUri);
+      Resource imported = importGraph.importedResource(anImport, importer.getResourceSet());
       if (imported == null) {
         continue;
       }
@@ -117,28 +216,42 @@ class ModelElementFinder {
         continue;
       }
       if (rootOfImported != null) {
-        descriptions.addAll(publicImported(rootOfImported, strategy, criteria));
+        descriptions.addAll(publicImported(rootOfImported, query));
         if (arePackagesRelated(fromImporter, rootOfImported)) {
-          descriptions.addAll(local(rootOfImported, strategy, criteria, 0));
+          descriptions.addAll(contentsOf(rootOfImported, query));
           continue;
         }
         Package packageOfImported = modelObjects.packageOf(rootOfImported);
-        descriptions.addAll(imported(fromImporter, packageOfImported, imported, strategy, criteria));
+        descriptions.addAll(imported(fromImporter, packageOfImported, imported, query));
       }
     }
     return descriptions;
   }
 
-  private <T> Collection<IEObjectDescription> publicImported(Protobuf start, FinderStrategy<T> strategy, T criteria) {
+  // Describes the types in an imported file that has not been loaded yet, using the Xtext index. Returns null if the
+  // file has to be loaded instead.
+  private <T> Collection<IEObjectDescription> fromIndex(ResolvedImport anImport, Package fromImporter,
+      Resource importer, Query<T> query) {
+    IndexedFile imported = indexedImports.unloadedFile(anImport.resolvedUri(), importer);
+    if (imported == null || imported.hasPublicImports()) {
+      return null;
+    }
+    if (!imported.isProto2()) {
+      return emptySet();
+    }
+    Collection<IEObjectDescription> descriptions = query.strategy.fromIndex(fromImporter, imported, query.criteria);
+    return (descriptions == null) ? null : query.matching(descriptions);
+  }
+
+  private <T> Collection<IEObjectDescription> publicImported(Protobuf start, Query<T> query) {
     if (!protobufs.isProto2(start)) {
       return emptySet();
     }
-    List<Import> allImports = protobufs.publicImportsIn(start);
+    List<ResolvedImport> allImports = importGraph.publicImportsOf(start);
     if (allImports.isEmpty()) {
       return emptyList();
     }
-    ResourceSet resourceSet = start.eResource().getResourceSet();
-    return imported(allImports, modelObjects.packageOf(start), resourceSet, strategy, criteria);
+    return imported(allImports, modelObjects.packageOf(start), start.eResource(), query);
   }
 
   private boolean arePackagesRelated(Package aPackage, EObject root) {
@@ -147,21 +260,83 @@ class ModelElementFinder {
   }
 
   private <T> Collection<IEObjectDescription> imported(Package fromImporter, Package fromImported, Resource resource,
-      FinderStrategy<T> strategy, T criteria) {
-    Set<IEObjectDescription> descriptions = newHashSet();
-    TreeIterator<Object> contents = getAllContents(resource, true);
-    while (contents.hasNext()) {
-      Object next = contents.next();
-      descriptions.addAll(strategy.imported(fromImporter, fromImported, next, criteria));
+      Query<T> query) {
+    Set<IEObjectDescription> descriptions = newLinkedHashSet();
+    SymbolTable symbols = symbolTables.symbolTableOf(resource);
+    for (EObject candidate : query.candidatesIn(symbols)) {
+      Collection<IEObjectDescription> found = query.strategy.imported(fromImporter, fromImported, candidate,
+          query.criteria);
+      descriptions.addAll(query.matching(found));
     }
     return descriptions;
   }
 
+  private static class Query<T> {
+    final FinderStrategy<T> strategy;
+    final T criteria;
+    final QualifiedName name;
+
+    Query(FinderStrategy<T> strategy, T criteria, QualifiedName name) {
+      this.strategy = strategy;
+      this.criteria = criteria;
+      this.name = name;
+    }
+
+    Iterable<? extends EObject> candidatesIn(SymbolTable symbols) {
+      if (name == null) {
+        return strategy.candidatesIn(symbols, criteria);
+      }
+      return strategy.candidatesIn(symbols, criteria, name.getLastSegment());
+    }
+
+    @Override public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Query)) {
+        return false;
+      }
+      Query<?> other = (Query<?>) obj;
+      return strategy == other.strategy && equal(criteria, other.criteria) && equal(name, other.name);
+    }
+
+    @Override public int hashCode() {
+      return Objects.hashCode(strategy, criteria, name);
+    }
+
+    Collection<IEObjectDescription> matching(Collection<IEObjectDescription> descriptions) {
+      if (name == null) {
+        return descriptions;
+      }
+      List<IEObjectDescription> matching = newArrayList();
+      for (IEObjectDescription description : descriptions) {
+        if (name.equals(description.getName())) {
+          matching.add(description);
+        }
+      }
+      return matching;
+    }
+  }
+
   static interface FinderStrategy<T> {
+    Iterable<? extends EObject> candidatesIn(SymbolTable symbols, T criteria);
+
+    Iterable<? extends EObject> candidatesIn(SymbolTable symbols, T criteria, String simpleName);
+
     Collection<IEObjectDescription> imported(Package fromImporter, Package fromImported, Object target, T criteria);
 
     Collection<IEObjectDescription> inDescriptor(Import anImport, T criteria);
 
+    /**
+     * Describes the matching elements of an imported file using only the Xtext index.
+     * @param fromImporter the package of the importing file.
+     * @param imported the imported file, as stored in the index.
+     * @param criteria the criteria to match.
+     * @return the descriptions of the matching elements, or {@code null} if the index does not have enough information
+     * and the imported file needs to be loaded.
+     */
+    Collection<IEObjectDescription> fromIndex(Package fromImporter, IndexedFile imported, T criteria);
+
     Collection<IEObjectDescription> local(Object target, T criteria, int level);
   }
 }
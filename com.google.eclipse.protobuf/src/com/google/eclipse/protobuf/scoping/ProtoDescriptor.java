@@ -11,6 +11,7 @@ package com.google.eclipse.protobuf.scoping;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.io.ByteStreams.toByteArray;
 import static com.google.common.io.Closeables.closeQuietly;
 import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.MESSAGE_FIELD__TYPE;
 import static com.google.eclipse.protobuf.scoping.OptionType.findOptionTypeForLevelOf;
@@ -26,20 +27,39 @@ import com.google.eclipse.protobuf.protobuf.Enum;
 
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtext.nodemodel.INode;
 import org.eclipse.xtext.parser.*;
 import org.eclipse.xtext.resource.XtextResource;
 
 import java.io.*;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 /**
  * Contains the elements from descriptor.proto (provided with protobuf's library.)
+ * <p>
+ * If a binary snapshot of the descriptor (a file with the same name and the extension "protobin") is found next to it,
+ * or in the snapshot directory passed when creating this descriptor, the snapshot is loaded instead of parsing
+ * descriptor.proto. Snapshots next to the descriptor are created by <code>{@link ProtoDescriptorSnapshotGenerator}
+ * </code>; snapshots in the snapshot directory are written the first time the descriptor is parsed. Snapshots store a
+ * hash of the file they were created from; a snapshot whose hash does not match the current contents of the file is
+ * ignored.
+ * </p>
  *
  * @author alruiz@google.com (Alex Ruiz)
  */
 public class ProtoDescriptor {
+  static final String SNAPSHOT_FILE_EXTENSION = "protobin";
+
+  // changes every time the format of snapshots changes, so snapshots in an older format are ignored.
+  private static final String SNAPSHOT_FORMAT_VERSION = "2";
+
   private static final Map<String, OptionType> OPTION_DEFINITION_BY_NAME = newHashMap();
 
   static {
@@ -55,33 +75,202 @@ public class ProtoDescriptor {
   private final List<ComplexType> allTypes = newArrayList();
   private final Map<OptionType, Map<String, MessageField>> optionsByType = newHashMap();
   private final Map<String, Enum> enumsByName = newHashMap();
+  // the names of the types of the fields in this descriptor, as written in descriptor.proto. Elements loaded from a
+  // snapshot do not have a node model to read them from.
+  private final Map<MessageField, String> typeNames = newHashMap();
 
   private Protobuf root;
 
   private final String importUri;
   private final INodes nodes;
   private final XtextResource resource;
+  private final String sourceHash;
 
   ProtoDescriptor(String importUri, URI location, IParser parser, INodes nodes) {
+    this(importUri, location, parser, nodes, true, null);
+  }
+
+  ProtoDescriptor(String importUri, URI location, IParser parser, INodes nodes, boolean useSnapshot) {
+    this(importUri, location, parser, nodes, useSnapshot, null);
+  }
+
+  /**
+   * Creates a new <code>{@link ProtoDescriptor}</code>, parsing the descriptor file at the given location only if
+   * there is no snapshot of it, either next to it or in the given directory. If the file is parsed, a snapshot of it is
+   * written to the given directory.
+   * @param importUri the URI to use when importing the descriptor.
+   * @param location the location of the descriptor file.
+   * @param parser parses the descriptor file.
+   * @param nodes utility methods related to nodes.
+   * @param snapshotDirectory the directory where snapshots are written to and read from, or {@code null}.
+   */
+  ProtoDescriptor(String importUri, URI location, IParser parser, INodes nodes, File snapshotDirectory) {
+    this(importUri, location, parser, nodes, true, snapshotDirectory);
+  }
+
+  private ProtoDescriptor(String importUri, URI location, IParser parser, INodes nodes, boolean useSnapshot,
+      File snapshotDirectory) {
     this.importUri = importUri;
     this.nodes = nodes;
     addOptionTypes();
-    InputStreamReader reader = null;
     try {
       resource = new XtextResource(location);
-      reader = new InputStreamReader(contents(location), UTF_8);
-      IParseResult result = parser.parse(reader);
-      root = (Protobuf) result.getRootASTElement();
+      byte[] source = read(location);
+      sourceHash = hashOf(source);
+      if (useSnapshot) {
+        root = loadSnapshot(snapshotLocation(location));
+        if (root == null && snapshotDirectory != null) {
+          root = loadSnapshot(cachedSnapshotLocation(snapshotDirectory));
+        }
+      }
+      if (root == null) {
+        root = parse(source, parser);
+        if (snapshotDirectory != null) {
+          writeSnapshotTo(snapshotDirectory);
+        }
+      }
       resource.getContents().add(root);
       resolveLazyCrossReferences(resource, NullImpl);
       initContents();
     } catch (Throwable t) {
       throw new IllegalStateException("Unable to parse descriptor.proto", t);
+    }
+  }
+
+  private byte[] read(URI location) throws IOException {
+    InputStream in = null;
+    try {
+      in = contents(location);
+      return toByteArray(in);
+    } finally {
+      closeQuietly(in);
+    }
+  }
+
+  private static String hashOf(byte[] source) throws NoSuchAlgorithmException {
+    StringBuilder hash = new StringBuilder();
+    for (byte b : MessageDigest.getInstance("SHA-1").digest(source)) {
+      hash.append(String.format("%02x", b));
+    }
+    return hash.toString();
+  }
+
+  private Protobuf loadSnapshot(URI snapshotLocation) {
+    InputStream in = null;
+    try {
+      in = contents(snapshotLocation);
+      DataInputStream data = new DataInputStream(in);
+      if (!snapshotHeader().equals(data.readUTF())) {
+        // the snapshot was created from a different version of descriptor.proto, or in an older format.
+        return null;
+      }
+      List<String> names = newArrayList();
+      for (int count = data.readInt(); count > 0; count--) {
+        names.add(data.readUTF());
+      }
+      Resource snapshot = new BinaryResourceImpl(snapshotLocation);
+      snapshot.load(data, null);
+      Protobuf loaded = (Protobuf) snapshot.getContents().get(0);
+      List<MessageField> fields = getAllContentsOfType(loaded, MessageField.class);
+      if (fields.size() != names.size()) {
+        return null;
+      }
+      for (int i = 0; i < fields.size(); i++) {
+        typeNames.put(fields.get(i), names.get(i));
+      }
+      return loaded;
+    } catch (Exception e) {
+      // no snapshot or the snapshot cannot be read; parse descriptor.proto instead.
+      return null;
+    } finally {
+      closeQuietly(in);
+    }
+  }
+
+  private Protobuf parse(byte[] source, IParser parser) throws IOException {
+    InputStreamReader reader = null;
+    try {
+      reader = new InputStreamReader(new ByteArrayInputStream(source), UTF_8);
+      IParseResult result = parser.parse(reader);
+      Protobuf parsed = (Protobuf) result.getRootASTElement();
+      for (MessageField field : getAllContentsOfType(parsed, MessageField.class)) {
+        String typeName = typeNameOf(field);
+        typeNames.put(field, (typeName == null) ? "" : typeName);
+      }
+      return parsed;
     } finally {
       closeQuietly(reader);
     }
   }
 
+  private URI cachedSnapshotLocation(File snapshotDirectory) {
+    // named after the hash of the descriptor: a changed descriptor never reads the snapshot of an older version.
+    File snapshot = new File(snapshotDirectory, sourceHash + "." + SNAPSHOT_FILE_EXTENSION);
+    return URI.createFileURI(snapshot.getAbsolutePath());
+  }
+
+  // snapshots are written to a temporary file first, so other processes never read a partially written snapshot.
+  private void writeSnapshotTo(File snapshotDirectory) {
+    File snapshot = new File(cachedSnapshotLocation(snapshotDirectory).toFileString());
+    File temporary = null;
+    try {
+      if (!snapshotDirectory.isDirectory() && !snapshotDirectory.mkdirs()) {
+        return;
+      }
+      temporary = File.createTempFile(sourceHash, ".tmp", snapshotDirectory);
+      OutputStream out = new BufferedOutputStream(new FileOutputStream(temporary));
+      try {
+        saveSnapshot(out);
+      } finally {
+        out.close();
+      }
+      if (temporary.renameTo(snapshot)) {
+        temporary = null;
+      }
+    } catch (IOException e) {
+      // the descriptor will be parsed again next time.
+    } finally {
+      if (temporary != null) {
+        temporary.delete();
+      }
+    }
+  }
+
+  /**
+   * Writes a binary snapshot of the elements in this descriptor to the given stream, preceded by the hash of the
+   * descriptor file this descriptor was created from and the names of the types of its fields.
+   * @param out the stream to write the snapshot to.
+   * @throws IOException if something goes wrong.
+   */
+  void saveSnapshot(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeUTF(snapshotHeader());
+    // the fields of the copy written below are in the same order.
+    List<MessageField> fields = getAllContentsOfType(root, MessageField.class);
+    data.writeInt(fields.size());
+    for (MessageField field : fields) {
+      String typeName = typeNames.get(field);
+      data.writeUTF((typeName == null) ? "" : typeName);
+    }
+    Resource snapshot = new BinaryResourceImpl(snapshotLocation(resource.getURI()));
+    snapshot.getContents().add(EcoreUtil.copy(root));
+    snapshot.save(data, null);
+    data.flush();
+  }
+
+  private String snapshotHeader() {
+    return SNAPSHOT_FORMAT_VERSION + ":" + sourceHash;
+  }
+
+  /**
+   * Returns the location of the binary snapshot of the descriptor at the given location.
+   * @param descriptorLocation the location of the descriptor file.
+   * @return the location of the binary snapshot of the descriptor.
+   */
+  static URI snapshotLocation(URI descriptorLocation) {
+    return descriptorLocation.trimFileExtension().appendFileExtension(SNAPSHOT_FILE_EXTENSION);
+  }
+
   /**
    * Returns the contents of the descriptor file at the given location.
    * @param descriptorLocation the location of the descriptor file.
@@ -89,10 +278,30 @@ public class ProtoDescriptor {
    * @throws IOException if something goes wrong.
    */
   protected InputStream contents(URI descriptorLocation) throws IOException {
-    URL url = new URL(descriptorLocation.toString());
+    URL url;
+    try {
+      url = new URL(descriptorLocation.toString());
+    } catch (MalformedURLException e) {
+      // "platform:" URLs are not supported when running without OSGi: look up the file in the classpath instead.
+      InputStream in = descriptorLocation.isPlatformPlugin() ? classpathContents(descriptorLocation) : null;
+      if (in == null) {
+        throw e;
+      }
+      return in;
+    }
     return url.openConnection().getInputStream();
   }
 
+  private InputStream classpathContents(URI descriptorLocation) {
+    // segments are "plugin", the name of the plug-in and the path of the file inside the plug-in.
+    String[] segments = descriptorLocation.segments();
+    StringBuilder path = new StringBuilder();
+    for (int i = 2; i < segments.length; i++) {
+      path.append("/").append(URI.decode(segments[i]));
+    }
+    return ProtoDescriptor.class.getResourceAsStream(path.toString());
+  }
+
   private void addOptionTypes() {
     for (OptionType type : OptionType.values()) {
       optionsByType.put(type, new LinkedHashMap<String, MessageField>());
@@ -175,12 +384,13 @@ public class ProtoDescriptor {
     if (field == null) {
       return null;
     }
+    String typeName = (field.eResource() == resource) ? typeNames.get(field) : typeNameOf(field);
+    return (isNullOrEmpty(typeName)) ? null : enumByName(typeName);
+  }
+
+  private String typeNameOf(MessageField field) {
     INode node = nodes.firstNodeForFeature(field, MESSAGE_FIELD__TYPE);
-    if (node == null) {
-      return null;
-    }
-    String typeName = node.getText();
-    return (isNullOrEmpty(typeName)) ? null : enumByName(typeName.trim());
+    return (node == null) ? null : node.getText().trim();
   }
 
   @VisibleForTesting Enum enumByName(String qualifiedName) {
@@ -9,19 +9,31 @@
 package com.google.eclipse.protobuf.scoping;
 
 import static java.util.Collections.unmodifiableCollection;
+import static java.util.Collections.unmodifiableMap;
 
 import static org.eclipse.xtext.util.Strings.isEmpty;
 
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
 import static com.google.common.collect.Maps.newLinkedHashMap;
 
+import java.io.File;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.xtext.parser.IParser;
+import org.osgi.framework.Bundle;
 
 import com.google.eclipse.protobuf.model.util.INodes;
 import com.google.inject.Inject;
@@ -29,98 +41,207 @@ import com.google.inject.Singleton;
 
 /**
  * Provider of <code>{@link ProtoDescriptor}</code>s.
+ * <p>
+ * Descriptors can be loaded in background threads ahead of their first use (see {@link #warmUp()}), one thread per
+ * descriptor. Once loaded, they are published at once and read without locking. Callers that need a
+ * descriptor before loading finishes wait for it, or load the descriptors themselves if the background thread has not
+ * started yet. If loading fails, it is attempted again the next time a descriptor is needed.
+ * </p>
+ * <p>
+ * When running inside Eclipse, the first time a descriptor is parsed a snapshot of it is written to the state location
+ * of this plug-in, and later sessions load the snapshot instead of parsing the descriptor again.
+ * </p>
  *
  * @author Alex Ruiz
  */
 @Singleton public class ProtoDescriptorProvider {
-  private static final String EXTENSION_ID = "com.google.eclipse.protobuf.descriptorSource";
+  private static final String PLUGIN_ID = "com.google.eclipse.protobuf";
+  private static final String EXTENSION_ID = PLUGIN_ID + ".descriptorSource";
 
   @Inject private IParser parser;
   @Inject private INodes nodes;
   @Inject private IExtensionRegistry registry;
 
-  private Map<String, URI> descriptorInfos;
-  private Map<String, ProtoDescriptor> descriptors;
-  private String primaryImportUri;
+  private volatile DescriptorInfos descriptorInfos;
+  private volatile Descriptors descriptors;
 
-  private final Object lock = new Object();
+  private final AtomicReference<FutureTask<Descriptors>> loading =
+      new AtomicReference<FutureTask<Descriptors>>(newDescriptorsTask());
+
+  private FutureTask<Descriptors> newDescriptorsTask() {
+    return new FutureTask<Descriptors>(new Callable<Descriptors>() {
+      @Override public Descriptors call() throws Exception {
+        Descriptors loaded = loadDescriptors();
+        descriptors = loaded;
+        return loaded;
+      }
+    });
+  }
+
+  /**
+   * Starts loading the descriptors in a background thread, if they are not loaded or being loaded yet.
+   */
+  public void warmUp() {
+    FutureTask<Descriptors> task = loading.get();
+    if (descriptors == null && !task.isDone()) {
+      startInBackground(task, "descriptor warm-up");
+    }
+  }
 
   public ProtoDescriptor primaryDescriptor() {
-    ensureProtoDescriptorsAreCreated();
-    return descriptors.get(primaryImportUri);
+    Descriptors loaded = descriptors();
+    return loaded.byImportUri.get(loaded.primaryImportUri);
   }
 
   public ProtoDescriptor descriptor(String importUri) {
-    ensureProtoDescriptorsAreCreated();
-    ProtoDescriptor protoDescriptor = descriptors.get(importUri);
+    Descriptors loaded = descriptors();
+    ProtoDescriptor protoDescriptor = loaded.byImportUri.get(importUri);
     if (protoDescriptor != null) {
       return protoDescriptor;
     }
     // URI could have been resolved
-    URI uri = URI.createURI(importUri);
-    for (Entry<String, URI> info : descriptorInfos.entrySet()) {
-      if (info.getValue().equals(uri)) {
-        return descriptor(info.getKey());
+    return loaded.byLocation.get(URI.createURI(importUri));
+  }
+
+  private Descriptors descriptors() {
+    Descriptors loaded = descriptors;
+    if (loaded != null) {
+      return loaded;
+    }
+    FutureTask<Descriptors> task = loading.get();
+    // does nothing if the background thread already started loading.
+    task.run();
+    boolean succeeded = false;
+    try {
+      Descriptors result = resultOf(task);
+      succeeded = true;
+      return result;
+    } finally {
+      if (!succeeded && task.isDone()) {
+        // loading failed (e.g. a transient I/O error): the next caller tries again instead of getting the same failure.
+        loading.compareAndSet(task, newDescriptorsTask());
       }
     }
-    return null;
   }
 
-  private void ensureProtoDescriptorsAreCreated() {
-    synchronized (lock) {
-      if (descriptors == null) {
-        descriptors = newLinkedHashMap();
-        ensureProtoDescriptorInfosAreCreated();
-        for (Entry<String, URI> entry : descriptorInfos.entrySet()) {
-          String importUri = entry.getKey();
-          ProtoDescriptor descriptor = new ProtoDescriptor(importUri, entry.getValue(), parser, nodes);
-          descriptors.put(importUri, descriptor);
-        }
+  private Descriptors loadDescriptors() {
+    DescriptorInfos infos = descriptorInfos();
+    Map<String, FutureTask<ProtoDescriptor>> tasks = newLinkedHashMap();
+    for (Entry<String, URI> info : infos.locationsByImportUri.entrySet()) {
+      tasks.put(info.getKey(), newLoadingTask(info.getKey(), info.getValue()));
+    }
+    // descriptors are loaded in parallel: all but the first one in new threads, the first one in this thread.
+    boolean first = true;
+    for (Entry<String, FutureTask<ProtoDescriptor>> task : tasks.entrySet()) {
+      if (!first) {
+        startInBackground(task.getValue(), task.getKey());
       }
+      first = false;
+    }
+    Map<String, ProtoDescriptor> byImportUri = newLinkedHashMap();
+    Map<URI, ProtoDescriptor> byLocation = newHashMap();
+    for (Entry<String, FutureTask<ProtoDescriptor>> task : tasks.entrySet()) {
+      FutureTask<ProtoDescriptor> loadingTask = task.getValue();
+      loadingTask.run();
+      ProtoDescriptor descriptor = resultOf(loadingTask);
+      byImportUri.put(task.getKey(), descriptor);
+      byLocation.put(infos.locationsByImportUri.get(task.getKey()), descriptor);
+    }
+    return new Descriptors(infos.primaryImportUri, byImportUri, byLocation);
+  }
+
+  private FutureTask<ProtoDescriptor> newLoadingTask(final String importUri, final URI location) {
+    return new FutureTask<ProtoDescriptor>(new Callable<ProtoDescriptor>() {
+      @Override public ProtoDescriptor call() {
+        return new ProtoDescriptor(importUri, location, parser, nodes, snapshotDirectory());
+      }
+    });
+  }
+
+  private static File snapshotDirectory() {
+    // the state location of this plug-in is not available when running standalone.
+    if (!Platform.isRunning()) {
+      return null;
+    }
+    try {
+      Bundle bundle = Platform.getBundle(PLUGIN_ID);
+      return (bundle == null) ? null : Platform.getStateLocation(bundle).append("descriptors").toFile();
+    } catch (IllegalStateException e) {
+      return null;
+    }
+  }
+
+  private static void startInBackground(Runnable task, String description) {
+    Thread thread = new Thread(task, "Protocol Buffer " + description);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static <T> T resultOf(FutureTask<T> task) {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while loading descriptor.proto", e);
+    } catch (ExecutionException e) {
+      throw propagate(e.getCause());
     }
   }
 
   public Collection<URI> allDescriptorLocations() {
-    ensureProtoDescriptorInfosAreCreated();
-    return unmodifiableCollection(descriptorInfos.values());
+    return unmodifiableCollection(descriptorInfos().locationsByImportUri.values());
   }
 
   public URI primaryDescriptorLocation() {
-    return descriptorLocation(primaryImportUri);
+    return descriptorLocation(descriptorInfos().primaryImportUri);
   }
 
   public URI descriptorLocation(String importUri) {
-    ensureProtoDescriptorInfosAreCreated();
-    return descriptorInfos.get(importUri);
+    return descriptorInfos().locationsByImportUri.get(importUri);
   }
 
-  private void ensureProtoDescriptorInfosAreCreated() {
-    synchronized (lock) {
+  private DescriptorInfos descriptorInfos() {
+    DescriptorInfos infos = descriptorInfos;
+    if (infos != null) {
+      return infos;
+    }
+    synchronized (this) {
       if (descriptorInfos == null) {
-        descriptorInfos = newLinkedHashMap();
-        add(defaultDescriptorInfo());
-        add(descriptorInfoFromExtensionPoint());
+        descriptorInfos = createDescriptorInfos();
       }
+      return descriptorInfos;
     }
   }
 
+  private DescriptorInfos createDescriptorInfos() {
+    DescriptorInfos infos = new DescriptorInfos();
+    infos.add(defaultDescriptorInfo());
+    // the first contribution is the primary descriptor and takes precedence over the ones with the same import URI.
+    List<ProtoDescriptorInfo> contributed = descriptorInfosFromExtensionPoint();
+    for (int i = contributed.size() - 1; i >= 0; i--) {
+      infos.add(contributed.get(i));
+    }
+    return infos;
+  }
+
   private static ProtoDescriptorInfo defaultDescriptorInfo() {
-    URI location = URI.createURI("platform:/plugin/com.google.eclipse.protobuf/descriptor.proto");
+    URI location = URI.createURI("platform:/plugin/" + PLUGIN_ID + "/descriptor.proto");
     return new ProtoDescriptorInfo("google/protobuf/descriptor.proto", location);
   }
 
-  private ProtoDescriptorInfo descriptorInfoFromExtensionPoint() {
+  private List<ProtoDescriptorInfo> descriptorInfosFromExtensionPoint() {
+    List<ProtoDescriptorInfo> infos = newArrayList();
     IConfigurationElement[] config = registry.getConfigurationElementsFor(EXTENSION_ID);
     if (config == null) {
-      return null;
+      return infos;
     }
     for (IConfigurationElement e : config) {
       ProtoDescriptorInfo info = descriptorInfo(e);
       if (info != null) {
-        return info;
+        infos.add(info);
       }
     }
-    return null;
+    return infos;
   }
 
   private static ProtoDescriptorInfo descriptorInfo(IConfigurationElement e) {
@@ -145,14 +266,6 @@ import com.google.inject.Singleton;
     return URI.createURI(uri.toString());
   }
 
-  private void add(ProtoDescriptorInfo descriptorInfo) {
-    if (descriptorInfo == null) {
-      return;
-    }
-    primaryImportUri = descriptorInfo.importUri;
-    descriptorInfos.put(primaryImportUri, descriptorInfo.location);
-  }
-
   private static class ProtoDescriptorInfo {
     final String importUri;
     final URI location;
@@ -162,4 +275,27 @@ import com.google.inject.Singleton;
       this.location = location;
     }
   }
+
+  private static class DescriptorInfos {
+    final Map<String, URI> locationsByImportUri = newLinkedHashMap();
+    String primaryImportUri;
+
+    void add(ProtoDescriptorInfo descriptorInfo) {
+      primaryImportUri = descriptorInfo.importUri;
+      locationsByImportUri.put(primaryImportUri, descriptorInfo.location);
+    }
+  }
+
+  private static class Descriptors {
+    final String primaryImportUri;
+    final Map<String, ProtoDescriptor> byImportUri;
+    final Map<URI, ProtoDescriptor> byLocation;
+
+    Descriptors(String primaryImportUri, Map<String, ProtoDescriptor> byImportUri,
+        Map<URI, ProtoDescriptor> byLocation) {
+      this.primaryImportUri = primaryImportUri;
+      this.byImportUri = unmodifiableMap(byImportUri);
+      this.byLocation = unmodifiableMap(byLocation);
+    }
+  }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.scoping;
+
+import static com.google.eclipse.protobuf.scoping.ProtoDescriptor.snapshotLocation;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.parser.IParser;
+
+import com.google.eclipse.protobuf.ProtobufStandaloneSetup;
+import com.google.eclipse.protobuf.model.util.INodes;
+import com.google.inject.Injector;
+
+/**
+ * Parses a descriptor.proto file and writes it as a binary snapshot next to it (e.g. descriptor.proto →
+ * descriptor.protobin.) <code>{@link ProtoDescriptor}</code> loads the snapshot instead of parsing the file, as long as
+ * the file has not changed since the snapshot was created. Plug-ins contributing a descriptor through the
+ * "descriptorSource" extension point can use it to ship a snapshot along with their descriptor.
+ * <p>
+ * Usage: {@code ProtoDescriptorSnapshotGenerator <path of descriptor.proto>...}
+ * </p>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+public class ProtoDescriptorSnapshotGenerator {
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println("Usage: ProtoDescriptorSnapshotGenerator <path of descriptor.proto>...");
+      System.exit(1);
+    }
+    Injector injector = new ProtobufStandaloneSetup().createInjectorAndDoEMFRegistration();
+    IParser parser = injector.getInstance(IParser.class);
+    INodes nodes = injector.getInstance(INodes.class);
+    for (String path : args) {
+      URI location = URI.createFileURI(new File(path).getAbsolutePath());
+      ProtoDescriptor descriptor = new ProtoDescriptor(location.lastSegment(), location, parser, nodes, false);
+      File snapshot = new File(snapshotLocation(location).toFileString());
+      OutputStream out = new BufferedOutputStream(new FileOutputStream(snapshot));
+      try {
+        descriptor.saveSnapshot(out);
+      } finally {
+        out.close();
+      }
+      System.out.println("Created " + snapshot.getPath());
+    }
+  }
+}
@@ -44,6 +44,7 @@ import com.google.inject.Inject;
 
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EReference;
+import org.eclipse.xtext.naming.QualifiedName;
 import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
 import org.eclipse.xtext.resource.IEObjectDescription;
 import org.eclipse.xtext.scoping.IScope;
@@ -51,7 +52,6 @@ import org.eclipse.xtext.scoping.impl.AbstractDeclarativeScopeProvider;
 import org.eclipse.xtext.scoping.impl.SimpleScope;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Set;
 
 /**
@@ -79,14 +79,14 @@ public class ProtobufScopeProvider extends AbstractDeclarativeScopeProvider impl
   @Inject private LiteralDescriptions literalDescriptions;
   @Inject private NativeOptionDescriptions nativeOptionDescriptions;
   @Inject private Options options;
+  @Inject private QualifiedNameDescriptions qualifiedNameDescriptions;
 
   @SuppressWarnings("unused")
   public IScope scope_ComplexTypeLink_target(ComplexTypeLink link, EReference r) {
     EObject c = link.eContainer();
     if (c instanceof MessageField) {
       MessageField field = (MessageField) c;
-      Collection<IEObjectDescription> complexTypes = potentialComplexTypesFor(field);
-      return createScope(complexTypes);
+      return createLazyScope(field, complexTypeFinderDelegate, ComplexType.class);
     }
     return createEmptyScope();
   }
@@ -98,9 +98,7 @@ public class ProtobufScopeProvider extends AbstractDeclarativeScopeProvider impl
   @SuppressWarnings("unused")
   public IScope scope_ExtensibleTypeLink_target(ExtensibleTypeLink link, EReference r) {
     EObject c = link.eContainer();
-    Collection<IEObjectDescription> extensibleTypes =
-        modelElementFinder.find(c, complexTypeFinderDelegate, ExtensibleType.class);
-    return createScope(extensibleTypes);
+    return createLazyScope(c, complexTypeFinderDelegate, ExtensibleType.class);
   }
 
   @Override public Collection<IEObjectDescription> potentialExtensibleTypesFor(TypeExtension extension) {
@@ -111,8 +109,7 @@ public class ProtobufScopeProvider extends AbstractDeclarativeScopeProvider impl
   @SuppressWarnings("unused")
   public IScope scope_MessageLink_target(MessageLink link, EReference r) {
     Protobuf root = modelObjects.rootOf(link);
-    Collection<IEObjectDescription> messages = allMessages(root);
-    return createScope(messages);
+    return createLazyScope(root, complexTypeFinderDelegate, Message.class);
   }
 
   @Override public Collection<IEObjectDescription> potentialMessagesFor(Rpc rpc) {
@@ -174,13 +171,14 @@ public class ProtobufScopeProvider extends AbstractDeclarativeScopeProvider impl
         EObject container = c.eContainer();
         if (container instanceof Group) {
           OptionType optionType = OptionType.findOptionTypeForLevelOf(container.eContainer());
-          return createScope(optionType != null 
-              ? modelElementFinder.find(option, customOptionFinderDelegate, optionType)
-              : Collections.<IEObjectDescription>emptySet());
+          return optionType != null
+              ? createLazyScope(option, customOptionFinderDelegate, optionType)
+              : createEmptyScope();
         }
       }
 
-      return createScope(potentialSourcesFor(option));
+      OptionType optionType = typeOf((AbstractOption) option);
+      return optionType != null ? createLazyScope(option, customOptionFinderDelegate, optionType) : createEmptyScope();
     }
     Set<IEObjectDescription> descriptions = emptySet();
     return createScope(descriptions);
@@ -258,12 +256,38 @@ public class ProtobufScopeProvider extends AbstractDeclarativeScopeProvider impl
     return customOptionFieldNameFinder.findFieldNamesSources(value, extensionFieldNameFinderDelegate);
   }
 
-  private static IScope createEmptyScope() {
+  private IScope createEmptyScope() {
     Set<IEObjectDescription> descriptions = emptySet();
     return createScope(descriptions);
   }
 
-  private static IScope createScope(Iterable<IEObjectDescription> descriptions) {
-    return new SimpleScope(descriptions, DO_NOT_IGNORE_CASE);
+  private IScope createScope(Iterable<IEObjectDescription> descriptions) {
+    return new SimpleScope(qualifiedNameDescriptions.withLeadingDots(descriptions), DO_NOT_IGNORE_CASE);
+  }
+
+  private <T> IScope createLazyScope(final EObject start, final ModelElementFinder.FinderStrategy<T> strategy,
+      final T criteria) {
+    return new LazyScope(qualifiedNameDescriptions) {
+      @Override Collection<IEObjectDescription> elementsNamed(QualifiedName name) {
+        return modelElementFinder.find(start, strategy, criteria, name);
+      }
+
+      @Override Collection<IEObjectDescription> describeAll() {
+        return modelElementFinder.find(start, strategy, criteria);
+      }
+    };
+  }
+
+  private <T> IScope createLazyScope(final Protobuf root, final ModelElementFinder.FinderStrategy<T> strategy,
+      final T criteria) {
+    return new LazyScope(qualifiedNameDescriptions) {
+      @Override Collection<IEObjectDescription> elementsNamed(QualifiedName name) {
+        return modelElementFinder.find(root, strategy, criteria, name);
+      }
+
+      @Override Collection<IEObjectDescription> describeAll() {
+        return modelElementFinder.find(root, strategy, criteria);
+      }
+    };
   }
 }
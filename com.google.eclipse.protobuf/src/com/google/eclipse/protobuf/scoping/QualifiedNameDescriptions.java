@@ -8,6 +8,8 @@
  */
 package com.google.eclipse.protobuf.scoping;
 
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 import static java.util.Collections.unmodifiableList;
 
 import static org.eclipse.xtext.resource.EObjectDescription.create;
@@ -16,10 +18,12 @@ import static com.google.common.collect.Lists.newArrayList;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.naming.QualifiedName;
 import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.impl.AliasedEObjectDescription;
 
 import com.google.eclipse.protobuf.model.util.QualifiedNames;
 import com.google.eclipse.protobuf.naming.IProtobufQualifiedNameProvider;
@@ -27,21 +31,86 @@ import com.google.eclipse.protobuf.naming.NamingStrategy;
 import com.google.inject.Inject;
 
 /**
+ * Describes elements by their fully-qualified name. Absolute names (names with a leading dot, like
+ * {@code .com.google.proto.Person}) are not described separately: a lookup by absolute name is normalized to a lookup
+ * by fully-qualified name, and the leading-dot variants are only created when all the elements in a scope are
+ * requested.
+ *
  * @author alruiz@google.com (Alex Ruiz)
  */
 class QualifiedNameDescriptions {
+  private static final String FULLY_QUALIFIED = "fullyQualified";
+  private static final Map<String, String> FULLY_QUALIFIED_USER_DATA = singletonMap(FULLY_QUALIFIED, "true");
+
   @Inject private IProtobufQualifiedNameProvider nameProvider;
   @Inject private QualifiedNames qualifiedNames;
 
   Collection<IEObjectDescription> qualifiedNames(EObject e, NamingStrategy namingStrategy) {
     QualifiedName fqn = nameProvider.getFullyQualifiedName(e, namingStrategy);
-    return allQualifiedNames(e, fqn);
+    return singletonList(fullyQualified(fqn, e));
+  }
+
+  /**
+   * Describes the given element using the given fully-qualified name. The created description can also be found by
+   * the absolute version of the given name.
+   * @param fqn the fully-qualified name of the given element.
+   * @param e the given element.
+   * @return the created description.
+   */
+  IEObjectDescription fullyQualified(QualifiedName fqn, EObject e) {
+    return create(fqn, e, FULLY_QUALIFIED_USER_DATA);
+  }
+
+  /**
+   * Indicates whether the given name is absolute (i.e. it starts with a dot.)
+   * @param name the given name.
+   * @return {@code true} if the given name is absolute, {@code false} otherwise.
+   */
+  boolean isAbsolute(QualifiedName name) {
+    return name.getSegmentCount() > 1 && name.getFirstSegment().isEmpty();
+  }
+
+  /**
+   * Returns the descriptions, from the given ones, that can be found by the given absolute name.
+   * @param absoluteName the given absolute name.
+   * @param descriptions the descriptions to look into, found using the given name without its leading dot.
+   * @return the descriptions that can be found by the given absolute name, renamed to the given name.
+   */
+  Collection<IEObjectDescription> withAbsoluteName(QualifiedName absoluteName,
+      Iterable<IEObjectDescription> descriptions) {
+    List<IEObjectDescription> matching = newArrayList();
+    for (IEObjectDescription description : descriptions) {
+      if (isFullyQualified(description)) {
+        matching.add(new AliasedEObjectDescription(absoluteName, description));
+      }
+    }
+    return matching;
+  }
+
+  /**
+   * Returns the given descriptions, plus the absolute version of the ones that were described by their fully-qualified
+   * name.
+   * @param descriptions the given descriptions.
+   * @return the given descriptions plus their absolute versions.
+   */
+  Collection<IEObjectDescription> withLeadingDots(Iterable<IEObjectDescription> descriptions) {
+    List<IEObjectDescription> all = newArrayList(descriptions);
+    int count = all.size();
+    for (int i = 0; i < count; i++) {
+      IEObjectDescription description = all.get(i);
+      if (isFullyQualified(description)) {
+        all.add(new AliasedEObjectDescription(qualifiedNames.addLeadingDot(description.getName()), description));
+      }
+    }
+    return unmodifiableList(all);
   }
 
-  private Collection<IEObjectDescription> allQualifiedNames(EObject e, QualifiedName fqn) {
-    List<IEObjectDescription> descriptions = newArrayList();
-    descriptions.add(create(fqn, e));
-    descriptions.add(create(qualifiedNames.addLeadingDot(fqn), e));
-    return unmodifiableList(descriptions);
+  /**
+   * Indicates whether the given description was created using the fully-qualified name of its element.
+   * @param description the given description.
+   * @return {@code true} if the given description was created using a fully-qualified name, {@code false} otherwise.
+   */
+  static boolean isFullyQualified(IEObjectDescription description) {
+    return description.getUserData(FULLY_QUALIFIED) != null;
   }
 }
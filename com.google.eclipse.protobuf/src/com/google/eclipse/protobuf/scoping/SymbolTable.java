@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.scoping;
+
+import static java.util.Collections.unmodifiableList;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.naming.QualifiedName;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.eclipse.protobuf.model.util.TypeExtensions;
+import com.google.eclipse.protobuf.protobuf.ComplexType;
+import com.google.eclipse.protobuf.protobuf.IndexedElement;
+import com.google.eclipse.protobuf.protobuf.Message;
+import com.google.eclipse.protobuf.protobuf.MessageElement;
+import com.google.eclipse.protobuf.protobuf.TypeExtension;
+
+/**
+ * The symbols a single resource exports: messages, enums, groups and type extensions, keyed by fully-qualified name
+ * and by {@code EClass}.
+ * <p>
+ * Type extensions are stored unresolved. The messages they extend are only looked up the first time extensions are
+ * requested by extended message or by option type, because resolving them triggers linking.
+ * </p>
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class SymbolTable {
+  private final List<ComplexType> complexTypes = newArrayList();
+  private final List<TypeExtension> extensions = newArrayList();
+  private final ListMultimap<EClass, EObject> elementsByType = ArrayListMultimap.create();
+  private final ListMultimap<QualifiedName, ComplexType> complexTypesByName = ArrayListMultimap.create();
+  private final ListMultimap<String, ComplexType> complexTypesBySimpleName = ArrayListMultimap.create();
+
+  private final TypeExtensions typeExtensions;
+
+  private ListMultimap<Message, TypeExtension> extensionsByMessage;
+  private ListMultimap<Message, IndexedElement> extensionFieldsByMessage;
+  private ListMultimap<OptionType, TypeExtension> extensionsByOptionType;
+
+  SymbolTable(TypeExtensions typeExtensions) {
+    this.typeExtensions = typeExtensions;
+  }
+
+  void addComplexType(ComplexType type, QualifiedName name) {
+    complexTypes.add(type);
+    elementsByType.put(type.eClass(), type);
+    if (name != null && !name.isEmpty()) {
+      complexTypesByName.put(name, type);
+      complexTypesBySimpleName.put(name.getLastSegment(), type);
+    }
+  }
+
+  void addTypeExtension(TypeExtension extension) {
+    extensions.add(extension);
+    elementsByType.put(extension.eClass(), extension);
+  }
+
+  /**
+   * Returns all the messages, enums and groups in the resource, in declaration order.
+   * @return all the messages, enums and groups in the resource.
+   */
+  List<ComplexType> complexTypes() {
+    return unmodifiableList(complexTypes);
+  }
+
+  /**
+   * Returns the elements in the resource whose type is the given {@code EClass}.
+   * @param type the given {@code EClass}.
+   * @return the elements in the resource whose type is the given {@code EClass}, or an empty list if none are found.
+   */
+  List<EObject> elementsOfType(EClass type) {
+    return unmodifiableList(elementsByType.get(type));
+  }
+
+  /**
+   * Returns the messages, enums and groups whose fully-qualified name is equal to the given one.
+   * @param name the given fully-qualified name.
+   * @return the messages, enums and groups with a matching name, or an empty list if none are found.
+   */
+  List<ComplexType> complexTypesNamed(QualifiedName name) {
+    return unmodifiableList(complexTypesByName.get(name));
+  }
+
+  /**
+   * Returns the messages, enums and groups whose name, without any qualifier, is equal to the given one.
+   * @param simpleName the given name.
+   * @return the messages, enums and groups with a matching name, in declaration order, or an empty list if none are
+   * found.
+   */
+  List<ComplexType> complexTypesWithSimpleName(String simpleName) {
+    return unmodifiableList(complexTypesBySimpleName.get(simpleName));
+  }
+
+  /**
+   * Returns all the type extensions in the resource.
+   * @return all the type extensions in the resource.
+   */
+  List<TypeExtension> typeExtensions() {
+    return unmodifiableList(extensions);
+  }
+
+  /**
+   * Returns the extensions in the resource that extend the given message.
+   * @param message the given message.
+   * @return the extensions in the resource that extend the given message, or an empty list if none are found.
+   */
+  synchronized List<TypeExtension> extensionsOf(Message message) {
+    indexExtensionsByMessage();
+    return unmodifiableList(extensionsByMessage.get(message));
+  }
+
+  /**
+   * Returns the fields and groups, declared in the extensions in the resource, that extend the given message.
+   * @param message the given message.
+   * @return the fields and groups that extend the given message, in declaration order, or an empty list if none are
+   * found.
+   */
+  synchronized List<IndexedElement> extensionFieldsOf(Message message) {
+    indexExtensionsByMessage();
+    return unmodifiableList(extensionFieldsByMessage.get(message));
+  }
+
+  private void indexExtensionsByMessage() {
+    if (extensionsByMessage != null) {
+      return;
+    }
+    ListMultimap<Message, TypeExtension> extensions = ArrayListMultimap.create();
+    ListMultimap<Message, IndexedElement> fields = ArrayListMultimap.create();
+    for (TypeExtension extension : typeExtensions()) {
+      Message extended = typeExtensions.messageFrom(extension);
+      if (extended == null) {
+        continue;
+      }
+      extensions.put(extended, extension);
+      for (MessageElement element : extension.getElements()) {
+        if (element instanceof IndexedElement) {
+          fields.put(extended, (IndexedElement) element);
+        }
+      }
+    }
+    extensionFieldsByMessage = fields;
+    extensionsByMessage = extensions;
+  }
+
+  /**
+   * Returns the extensions in the resource that extend the message in descriptor.proto defining options of the given
+   * type (e.g. "FieldOptions".)
+   * @param optionType the given type of option.
+   * @return the extensions defining custom options of the given type, or an empty list if none are found.
+   */
+  synchronized List<TypeExtension> customOptionExtensions(OptionType optionType) {
+    if (extensionsByOptionType == null) {
+      extensionsByOptionType = ArrayListMultimap.create();
+      Map<String, OptionType> optionTypesByMessageName = optionTypesByMessageName();
+      for (TypeExtension extension : typeExtensions()) {
+        Message extended = typeExtensions.messageFrom(extension);
+        OptionType type = (extended == null) ? null : optionTypesByMessageName.get(extended.getName());
+        if (type != null) {
+          extensionsByOptionType.put(type, extension);
+        }
+      }
+    }
+    return unmodifiableList(extensionsByOptionType.get(optionType));
+  }
+
+  private static Map<String, OptionType> optionTypesByMessageName() {
+    Map<String, OptionType> optionTypes = newHashMap();
+    for (OptionType type : OptionType.values()) {
+      optionTypes.put(type.messageName(), type);
+    }
+    return optionTypes;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2013 Google Inc.
+ *
+ * All rights reserved. This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License v1.0 which accompanies this distribution, and is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.google.eclipse.protobuf.scoping;
+
+import static org.eclipse.xtext.util.Tuples.pair;
+
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.naming.IQualifiedNameProvider;
+import org.eclipse.xtext.util.IResourceScopeCache;
+import org.eclipse.xtext.util.Pair;
+
+import com.google.eclipse.protobuf.model.util.Resources;
+import com.google.eclipse.protobuf.model.util.TypeExtensions;
+import com.google.eclipse.protobuf.protobuf.ComplexType;
+import com.google.eclipse.protobuf.protobuf.Group;
+import com.google.eclipse.protobuf.protobuf.Message;
+import com.google.eclipse.protobuf.protobuf.OneOf;
+import com.google.eclipse.protobuf.protobuf.Protobuf;
+import com.google.eclipse.protobuf.protobuf.TypeExtension;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+/**
+ * Builds and caches the <code>{@link SymbolTable}</code> of a resource. A symbol table is built only once per resource
+ * load, and it is discarded when the resource is modified.
+ *
+ * @author alruiz@google.com (Alex Ruiz)
+ */
+class SymbolTables {
+  @Inject private final IResourceScopeCache cache = IResourceScopeCache.NullImpl.INSTANCE;
+
+  @Inject private IQualifiedNameProvider nameProvider;
+  @Inject private Resources resources;
+  @Inject private TypeExtensions typeExtensions;
+
+  /**
+   * Returns the symbol table of the given resource.
+   * @param resource the given resource.
+   * @return the symbol table of the given resource.
+   */
+  SymbolTable symbolTableOf(final Resource resource) {
+    Pair<Resource, String> key = pair(resource, "symbolTable");
+    return cache.get(key, resource, new Provider<SymbolTable>() {
+      @Override public SymbolTable get() {
+        return createSymbolTable(resources.rootOf(resource));
+      }
+    });
+  }
+
+  private SymbolTable createSymbolTable(Protobuf root) {
+    SymbolTable symbols = new SymbolTable(typeExtensions);
+    if (root == null) {
+      return symbols;
+    }
+    TreeIterator<EObject> contents = root.eAllContents();
+    while (contents.hasNext()) {
+      EObject next = contents.next();
+      if (next instanceof ComplexType) {
+        symbols.addComplexType((ComplexType) next, nameProvider.getFullyQualifiedName(next));
+      }
+      if (next instanceof TypeExtension) {
+        symbols.addTypeExtension((TypeExtension) next);
+      }
+      if (!mayContainTypes(next)) {
+        contents.prune();
+      }
+    }
+    return symbols;
+  }
+
+  // Only messages, groups, extensions and "oneof"s can have nested types. Fields, options, enum literals, etc. cannot.
+  private boolean mayContainTypes(EObject e) {
+    return e instanceof Message || e instanceof Group || e instanceof TypeExtension || e instanceof OneOf;
+  }
+}
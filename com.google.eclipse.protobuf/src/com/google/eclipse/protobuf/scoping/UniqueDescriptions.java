@@ -9,6 +9,7 @@
 package com.google.eclipse.protobuf.scoping;
 
 import static com.google.common.collect.Maps.newHashMap;
+import static com.google.eclipse.protobuf.scoping.QualifiedNameDescriptions.isFullyQualified;
 
 import java.util.Collection;
 import java.util.Map;
@@ -25,12 +26,20 @@ class UniqueDescriptions {
   void addAll(Collection<IEObjectDescription> descriptions) {
     for (IEObjectDescription description : descriptions) {
       String name = description.getName().toString();
-      if (!descriptionsByName.containsKey(name)) {
+      IEObjectDescription existing = descriptionsByName.get(name);
+      if (existing == null || isFullyQualifiedNameOfSameElement(description, existing)) {
         descriptionsByName.put(name, description);
       }
     }
   }
 
+  // in a file without package, the local and fully-qualified names of an element are equal: keep the one that can also
+  // be found by its absolute name.
+  private boolean isFullyQualifiedNameOfSameElement(IEObjectDescription description, IEObjectDescription existing) {
+    return isFullyQualified(description) && !isFullyQualified(existing)
+        && description.getEObjectOrProxy() == existing.getEObjectOrProxy();
+  }
+
   Collection<IEObjectDescription> values() {
     return descriptionsByName.values();
   }
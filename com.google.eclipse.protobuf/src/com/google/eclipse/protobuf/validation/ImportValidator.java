@@ -10,41 +10,48 @@ package com.google.eclipse.protobuf.validation;
 
 import static java.lang.String.format;
 
-import static org.eclipse.xtext.util.Tuples.pair;
+import static org.eclipse.emf.ecore.util.EcoreUtil.getAdapter;
 
-import static com.google.common.collect.Maps.newHashMap;
-import static com.google.common.collect.Sets.newHashSet;
 import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.IMPORT__IMPORT_URI;
 import static com.google.eclipse.protobuf.validation.Messages.importNotFound;
+import static com.google.eclipse.protobuf.validation.Messages.importNotLoaded;
 import static com.google.eclipse.protobuf.validation.Messages.importingNonProto2;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.Diagnostic;
+import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.xtext.scoping.impl.ImportUriResolver;
-import org.eclipse.xtext.util.Pair;
 import org.eclipse.xtext.validation.AbstractDeclarativeValidator;
-import org.eclipse.xtext.validation.Check;
 import org.eclipse.xtext.validation.EValidatorRegistrar;
 
+import com.google.eclipse.protobuf.model.util.ImportGraph;
+import com.google.eclipse.protobuf.model.util.ImportGraph.ResolvedImport;
 import com.google.eclipse.protobuf.model.util.Imports;
 import com.google.eclipse.protobuf.model.util.Protobufs;
 import com.google.eclipse.protobuf.model.util.Resources;
 import com.google.eclipse.protobuf.protobuf.Import;
 import com.google.eclipse.protobuf.protobuf.Protobuf;
+import com.google.eclipse.protobuf.resource.ResourceSets;
 import com.google.inject.Inject;
 
 /**
- * Verifies that "imports" contain correct values.
+ * Verifies that "imports" contain correct values. This validator has no annotated checks: they are called by
+ * <code>{@link ProtobufJavaValidator}</code> for the elements they apply to, and report to its message acceptor.
  *
  * @author alruiz@google.com (Alex Ruiz)
  */
 public class ImportValidator extends AbstractDeclarativeValidator {
+  @Inject private ImportGraph importGraph;
   @Inject private Imports imports;
   @Inject private Protobufs protobufs;
   @Inject private Resources resources;
+  @Inject private ResourceSets resourceSets;
   @Inject private ImportUriResolver uriResolver;
 
   @Override public void register(EValidatorRegistrar registrar) {}
@@ -54,62 +61,57 @@ public class ImportValidator extends AbstractDeclarativeValidator {
    * found, this validator will create warning markers for such {@code Import}s.
    * @param root the root containing the imports to check.
    */
-  @Check public void checkNonProto2Imports(Protobuf root) {
+  public void checkNonProto2Imports(Protobuf root) {
     if (!protobufs.isProto2(root)) {
       return;
     }
-    Set<Protobuf> currentlyChecking = newHashSet(root);
-    HashMap<Protobuf, IsProto2> alreadyChecked = newHashMap();
-    hasNonProto2Imports(root, currentlyChecking, alreadyChecked);
+    ResourceSet resourceSet = root.eResource().getResourceSet();
+    for (ResolvedImport anImport : importGraph.importsOf(root)) {
+      Resource imported = importGraph.importedResource(anImport, resourceSet);
+      if (imported != null && hasNonProto2Imports(imported)) {
+        warnNonProto2ImportFoundIn(anImport.anImport());
+      }
+    }
   }
 
-  private boolean hasNonProto2Imports(Protobuf root, Set<Protobuf> currentlyChecking,
-      Map<Protobuf, IsProto2> alreadyChecked) {
-    IsProto2 isProto2 = alreadyChecked.get(root);
-    if (isProto2 != null) {
-      return isProto2 == IsProto2.NO;
+  // files sharing imports are validated with the same resource set: the imported files are inspected once per closure.
+  private boolean hasNonProto2Imports(Resource imported) {
+    Set<Resource> closure = importGraph.closureOf(imported);
+    ResourceSet resourceSet = imported.getResourceSet();
+    if (resourceSet == null) {
+      return containsNonProto2(imported, closure);
     }
-    currentlyChecking.add(root);
-    Set<Pair<Import, Protobuf>> importsToCheck = newHashSet();
-    boolean hasNonProto2Imports = false;
-    for (Import anImport : protobufs.importsIn(root)) {
-      Resource imported = imports.importedResource(anImport);
-      if (imported == null) {
-        continue;
-      }
-      Protobuf importedRoot = resources.rootOf(imported);
-      isProto2 = alreadyChecked.get(importedRoot);
-      if (isProto2 != null) {
-        // resource was already checked.
-        if (isProto2 == IsProto2.NO) {
-          hasNonProto2Imports = true;
-          warnNonProto2ImportFoundIn(anImport);
-        }
-        continue;
-      }
-      if (!protobufs.isProto2(importedRoot)) {
-        alreadyChecked.put(importedRoot, IsProto2.NO);
-        hasNonProto2Imports = true;
-        warnNonProto2ImportFoundIn(anImport);
-        continue;
-      }
-      // we have a circular dependency
-      if (currentlyChecking.contains(importedRoot)) {
-        continue;
+    Map<URI, Proto2Status> statuses = proto2StatusesIn(resourceSet);
+    Proto2Status status = statuses.get(imported.getURI());
+    // the import graph returns a different closure as soon as any of the files in it, or the imported one, changes.
+    if (status == null || status.closure != closure || status.protobufs != protobufs) {
+      status = new Proto2Status(closure, protobufs, containsNonProto2(imported, closure));
+      statuses.put(imported.getURI(), status);
+    }
+    return status.hasNonProto2Files;
+  }
+
+  private boolean containsNonProto2(Resource imported, Set<Resource> closure) {
+    if (!protobufs.isProto2(resources.rootOf(imported))) {
+      return true;
+    }
+    for (Resource resource : closure) {
+      if (!protobufs.isProto2(resources.rootOf(resource))) {
+        return true;
       }
-      // this is a proto2 file. Need to check its imports.
-      importsToCheck.add(pair(anImport, importedRoot));
     }
-    for (Pair<Import, Protobuf> importToCheck : importsToCheck) {
-      if (hasNonProto2Imports(importToCheck.getSecond(), currentlyChecking, alreadyChecked)) {
-        hasNonProto2Imports = true;
-        warnNonProto2ImportFoundIn(importToCheck.getFirst());
+    return false;
+  }
+
+  private Map<URI, Proto2Status> proto2StatusesIn(ResourceSet resourceSet) {
+    synchronized (resourceSet) {
+      Proto2StatusCache statusCache = (Proto2StatusCache) getAdapter(resourceSet.eAdapters(), Proto2StatusCache.class);
+      if (statusCache == null) {
+        statusCache = new Proto2StatusCache();
+        resourceSet.eAdapters().add(statusCache);
       }
+      return statusCache.statuses;
     }
-    isProto2 = hasNonProto2Imports ? IsProto2.NO : IsProto2.YES;
-    alreadyChecked.put(root, isProto2);
-    currentlyChecking.remove(root);
-    return hasNonProto2Imports;
   }
 
   private void warnNonProto2ImportFoundIn(Import anImport) {
@@ -121,17 +123,54 @@ public class ImportValidator extends AbstractDeclarativeValidator {
    * validator will create an error marker for the given {@code Import}.
    * @param anImport the given {@code Import}.
    */
-  @Check public void checkUriIsResolved(Import anImport) {
+  public void checkUriIsResolved(Import anImport) {
     if (imports.isResolved(anImport)) {
       return;
     }
     uriResolver.apply(anImport);
     if (!imports.isResolved(anImport)) {
-      error(format(importNotFound, anImport.getImportURI()), IMPORT__IMPORT_URI);
+      error(format(importNotFound, anImport.getImportURI()), anImport, IMPORT__IMPORT_URI, INSIGNIFICANT_INDEX);
     }
   }
 
-  private static enum IsProto2 {
-    YES, NO;
+  /**
+   * Verifies that the resource referred by the given {@code Import} can be loaded. If the resource cannot be loaded,
+   * this validator will create an error marker for the given {@code Import}, describing the cause of the failure.
+   * @param anImport the given {@code Import}.
+   */
+  public void checkImportedResourceIsLoaded(Import anImport) {
+    ResourceSet resourceSet = anImport.eResource().getResourceSet();
+    if (resourceSet == null || imports.isImportingDescriptor(anImport)) {
+      return;
+    }
+    URI uri = imports.resolvedUriOf(anImport);
+    if (uri == null || resourceSets.findResource(resourceSet, uri) != null) {
+      return;
+    }
+    Diagnostic failure = resourceSets.loadFailureOf(resourceSet, uri);
+    if (failure != null) {
+      String message = format(importNotLoaded, anImport.getImportURI(), failure.getMessage());
+      error(message, anImport, IMPORT__IMPORT_URI, INSIGNIFICANT_INDEX);
+    }
+  }
+
+  private static class Proto2Status {
+    final Set<Resource> closure;
+    final Protobufs protobufs;
+    final boolean hasNonProto2Files;
+
+    Proto2Status(Set<Resource> closure, Protobufs protobufs, boolean hasNonProto2Files) {
+      this.closure = closure;
+      this.protobufs = protobufs;
+      this.hasNonProto2Files = hasNonProto2Files;
+    }
+  }
+
+  private static class Proto2StatusCache extends AdapterImpl {
+    final Map<URI, Proto2Status> statuses = new ConcurrentHashMap<URI, Proto2Status>();
+
+    @Override public boolean isAdapterForType(Object type) {
+      return Proto2StatusCache.class == type;
+    }
   }
 }
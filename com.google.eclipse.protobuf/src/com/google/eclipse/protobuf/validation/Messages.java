@@ -23,10 +23,14 @@ public class Messages extends NLS {
   public static String expectedString;
   public static String expectedSyntaxIdentifier;
   public static String expectedTrueOrFalse;
+  public static String extensionNumberNotDeclared;
+  public static String extensionRangeIncludesField;
+  public static String extensionRangesOverlap;
   public static String fieldNumberAlreadyUsed;
   public static String fieldNumbersMustBePositive;
   public static String importingNonProto2;
   public static String importNotFound;
+  public static String importNotLoaded;
   public static String literalNotInEnum;
   public static String missingFieldNumber;
   public static String multiplePackages;
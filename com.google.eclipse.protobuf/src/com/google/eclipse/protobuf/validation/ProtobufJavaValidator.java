@@ -10,16 +10,39 @@ package com.google.eclipse.protobuf.validation;
 
 import static java.lang.String.format;
 
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.EXTENSIONS;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.GROUP;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.IMPORT;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.MESSAGE_FIELD;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.NORMAL_IMPORT;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.PACKAGE;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.PROTOBUF;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.PUBLIC_IMPORT;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.SYNTAX;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.WEAK_IMPORT;
 import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.PACKAGE__NAME;
+import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.RANGE__FROM;
 import static com.google.eclipse.protobuf.protobuf.ProtobufPackage.Literals.SYNTAX__NAME;
 import static com.google.eclipse.protobuf.validation.Messages.expectedFieldNumber;
 import static com.google.eclipse.protobuf.validation.Messages.expectedSyntaxIdentifier;
+import static com.google.eclipse.protobuf.validation.Messages.extensionNumberNotDeclared;
+import static com.google.eclipse.protobuf.validation.Messages.extensionRangeIncludesField;
+import static com.google.eclipse.protobuf.validation.Messages.extensionRangesOverlap;
 import static com.google.eclipse.protobuf.validation.Messages.fieldNumberAlreadyUsed;
 import static com.google.eclipse.protobuf.validation.Messages.fieldNumbersMustBePositive;
 import static com.google.eclipse.protobuf.validation.Messages.multiplePackages;
 import static com.google.eclipse.protobuf.validation.Messages.nonProto2;
 import static com.google.eclipse.protobuf.validation.Messages.unrecognizedSyntaxIdentifier;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.emf.common.util.DiagnosticChain;
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.naming.IQualifiedNameProvider;
 import org.eclipse.xtext.naming.QualifiedName;
@@ -27,40 +50,201 @@ import org.eclipse.xtext.validation.Check;
 import org.eclipse.xtext.validation.ComposedChecks;
 
 import com.google.eclipse.protobuf.grammar.Syntaxes;
+import com.google.eclipse.protobuf.model.util.ExtensionRangeIndex;
+import com.google.eclipse.protobuf.model.util.ExtensionRanges;
 import com.google.eclipse.protobuf.model.util.IndexedElements;
 import com.google.eclipse.protobuf.model.util.Protobufs;
+import com.google.eclipse.protobuf.model.util.TagNumberIndex;
 import com.google.eclipse.protobuf.naming.NameResolver;
+import com.google.eclipse.protobuf.protobuf.ExtensibleType;
+import com.google.eclipse.protobuf.protobuf.ExtensibleTypeLink;
+import com.google.eclipse.protobuf.protobuf.Extensions;
+import com.google.eclipse.protobuf.protobuf.Group;
+import com.google.eclipse.protobuf.protobuf.Import;
 import com.google.eclipse.protobuf.protobuf.IndexedElement;
 import com.google.eclipse.protobuf.protobuf.Message;
-import com.google.eclipse.protobuf.protobuf.MessageElement;
 import com.google.eclipse.protobuf.protobuf.OneOf;
 import com.google.eclipse.protobuf.protobuf.Package;
 import com.google.eclipse.protobuf.protobuf.Protobuf;
 import com.google.eclipse.protobuf.protobuf.ProtobufElement;
+import com.google.eclipse.protobuf.protobuf.ProtobufPackage;
+import com.google.eclipse.protobuf.protobuf.Range;
 import com.google.eclipse.protobuf.protobuf.Syntax;
+import com.google.eclipse.protobuf.protobuf.TypeExtension;
 import com.google.inject.Inject;
 
 /**
+ * Validates .proto files. Instead of annotating each check, a single check dispatches on the classifier ID of the
+ * element's type, and elements of types without checks are skipped before any reflective dispatch. The checks of
+ * imports (see <code>{@link ImportValidator}</code>) are dispatched the same way. The types checked by other annotated
+ * checks, including the ones of composed validators, are found when this validator is created.
+ *
  * @author alruiz@google.com (Alex Ruiz)
  */
-@ComposedChecks(validators = { DataTypeValidator.class, ImportValidator.class })
+@ComposedChecks(validators = { DataTypeValidator.class })
 public class ProtobufJavaValidator extends AbstractProtobufJavaValidator {
   public static final String SYNTAX_IS_NOT_PROTO2_ERROR = "syntaxIsNotProto2";
   public static final String INVALID_FIELD_TAG_NUMBER_ERROR = "invalidFieldTagNumber";
   public static final String MORE_THAN_ONE_PACKAGE_ERROR = "moreThanOnePackage";
+  public static final String INVALID_EXTENSION_RANGE_ERROR = "invalidExtensionRange";
 
+  @Inject private ExtensionRanges extensionRanges;
   @Inject private IndexedElements indexedElements;
   @Inject private NameResolver nameResolver;
   @Inject private Protobufs protobufs;
   @Inject private IQualifiedNameProvider qualifiedNameProvider;
 
-  @Check public void checkIsProto2(Protobuf protobuf) {
+  private ImportValidator importValidator;
+
+  private final Set<Class<?>> typesWithAnnotatedChecks = typesWithAnnotatedChecks();
+  private final ConcurrentMap<EClass, Boolean> typesWithChecks = new ConcurrentHashMap<EClass, Boolean>();
+
+  // the import checks report to this validator, which knows the element being validated in the current thread.
+  @Inject void setImportValidator(ImportValidator importValidator) {
+    importValidator.setMessageAcceptor(this);
+    this.importValidator = importValidator;
+  }
+
+  @Override public boolean validate(EClass eClass, EObject eObject, DiagnosticChain diagnostics,
+      Map<Object, Object> context) {
+    // only elements with checks go through the reflective dispatch of the superclass.
+    if (!hasChecks(eClass)) {
+      return true;
+    }
+    return super.validate(eClass, eObject, diagnostics, context);
+  }
+
+  boolean hasChecks(EClass eClass) {
+    Boolean hasChecks = typesWithChecks.get(eClass);
+    if (hasChecks == null) {
+      hasChecks = isCheckedByCheckElement(eClass) || hasAnnotatedChecks(eClass);
+      typesWithChecks.put(eClass, hasChecks);
+    }
+    return hasChecks;
+  }
+
+  // must include every type handled by checkElement.
+  private boolean isCheckedByCheckElement(EClass eClass) {
+    if (eClass.getEPackage() != ProtobufPackage.eINSTANCE) {
+      return false;
+    }
+    switch (eClass.getClassifierID()) {
+      case PROTOBUF:
+      case SYNTAX:
+      case MESSAGE_FIELD:
+      case GROUP:
+      case EXTENSIONS:
+      case PACKAGE:
+      case IMPORT:
+      case NORMAL_IMPORT:
+      case PUBLIC_IMPORT:
+      case WEAK_IMPORT:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private boolean hasAnnotatedChecks(EClass eClass) {
+    Class<?> instanceClass = eClass.getInstanceClass();
+    if (instanceClass == null) {
+      return false;
+    }
+    for (Class<?> type : typesWithAnnotatedChecks) {
+      if (type.isAssignableFrom(instanceClass)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // checks of composed validators are dispatched by this validator, their types are included too.
+  private Set<Class<?>> typesWithAnnotatedChecks() {
+    Set<Class<?>> types = newHashSet();
+    for (Class<?> c = getClass(); c != null; c = c.getSuperclass()) {
+      addTypesCheckedBy(c, types);
+      ComposedChecks composed = c.getAnnotation(ComposedChecks.class);
+      if (composed == null) {
+        continue;
+      }
+      for (Class<?> validator : composed.validators()) {
+        for (Class<?> v = validator; v != null; v = v.getSuperclass()) {
+          addTypesCheckedBy(v, types);
+        }
+      }
+    }
+    return types;
+  }
+
+  private void addTypesCheckedBy(Class<?> validator, Set<Class<?>> types) {
+    for (Method method : validator.getDeclaredMethods()) {
+      Class<?>[] parameterTypes = method.getParameterTypes();
+      if (method.isAnnotationPresent(Check.class) && parameterTypes.length == 1
+          && !method.getName().equals("checkElement")) {
+        types.add(parameterTypes[0]);
+      }
+    }
+  }
+
+  /**
+   * Runs the checks that apply to the type of the given element. This is the only method invoked through reflection:
+   * checks are called directly, chosen by the classifier ID of the element's type.
+   * @param e the element to check.
+   */
+  @Check public void checkElement(EObject e) {
+    switch (e.eClass().getClassifierID()) {
+      case PROTOBUF:
+        checkIsProto2((Protobuf) e);
+        checkNonProto2Imports((Protobuf) e);
+        break;
+      case SYNTAX:
+        checkSyntaxIsProto2((Syntax) e);
+        break;
+      case MESSAGE_FIELD:
+      case GROUP:
+        IndexedElement indexed = (IndexedElement) e;
+        checkTagNumberIsUnique(indexed);
+        checkTagNumberIsGreaterThanZero(indexed);
+        checkExtensionFieldNumberIsDeclared(indexed);
+        break;
+      case EXTENSIONS:
+        checkExtensionRangesDoNotIncludeFields((Extensions) e);
+        checkExtensionRangesDoNotOverlap((Extensions) e);
+        break;
+      case PACKAGE:
+        checkOnlyOnePackageDefinition((Package) e);
+        break;
+      case IMPORT:
+      case NORMAL_IMPORT:
+      case PUBLIC_IMPORT:
+      case WEAK_IMPORT:
+        checkUriIsResolved((Import) e);
+        checkImportedResourceIsLoaded((Import) e);
+        break;
+      default:
+        break;
+    }
+  }
+
+  public void checkIsProto2(Protobuf protobuf) {
     if (!protobufs.isProto2(protobuf)) {
       warning(nonProto2, null);
     }
   }
 
-  @Check public void checkSyntaxIsProto2(Syntax syntax) {
+  public void checkNonProto2Imports(Protobuf root) {
+    importValidator.checkNonProto2Imports(root);
+  }
+
+  public void checkUriIsResolved(Import anImport) {
+    importValidator.checkUriIsResolved(anImport);
+  }
+
+  public void checkImportedResourceIsLoaded(Import anImport) {
+    importValidator.checkImportedResourceIsLoaded(anImport);
+  }
+
+  public void checkSyntaxIsProto2(Syntax syntax) {
     String name = syntax.getName();
     if (Syntaxes.proto2().equals(name)) {
       return;
@@ -69,49 +253,91 @@ public class ProtobufJavaValidator extends AbstractProtobufJavaValidator {
     error(msg, syntax, SYNTAX__NAME, SYNTAX_IS_NOT_PROTO2_ERROR);
   }
 
-  @Check public void checkTagNumberIsUnique(IndexedElement e) {
+  public void checkTagNumberIsUnique(IndexedElement e) {
     if (isNameNull(e)) {
       return; // we already show an error if name is null, no need to go further.
     }
-    
-    EObject container = e.eContainer();
-    if (container instanceof OneOf) {
-      container = container.eContainer();  
+    EObject type = typeContaining(e);
+    if (type == null) {
+      return;
     }
-    if (container instanceof Message) {
-      Message message = (Message) container;
-      Iterable<MessageElement> elements = message.getElements();
-      checkTagNumerIsUnique(e, message, elements);
+    long index = indexedElements.indexOf(e);
+    IndexedElement first = indexedElements.tagNumberIndexOf(type).firstElementWithTagNumber(index);
+    if (first != null && first != e) {
+      QualifiedName typeName = qualifiedNameProvider.getFullyQualifiedName(type);
+      String msg = format(fieldNumberAlreadyUsed, index, typeName.toString(), nameResolver.nameOf(first));
+      invalidTagNumberError(msg, e);
     }
   }
 
-  private boolean checkTagNumerIsUnique(IndexedElement e, EObject message, 
-      Iterable<MessageElement> elements) {
-    long index = indexedElements.indexOf(e);
+  public void checkExtensionRangesDoNotIncludeFields(Extensions extensions) {
+    EObject type = typeContaining(extensions);
+    if (type == null) {
+      return;
+    }
+    TagNumberIndex tagNumbers = indexedElements.tagNumberIndexOf(type);
+    for (Range range : extensions.getRanges()) {
+      long from = extensionRanges.fromOf(range);
+      long to = extensionRanges.toOf(range);
+      IndexedElement field = tagNumbers.firstElementWithTagNumberIn(from, to);
+      if (field != null) {
+        String msg = format(extensionRangeIncludesField, from, to, nameResolver.nameOf(field),
+            indexedElements.indexOf(field));
+        error(msg, range, RANGE__FROM, INVALID_EXTENSION_RANGE_ERROR);
+      }
+    }
+  }
 
-    for (MessageElement element : elements) {
-      if (element instanceof OneOf) {
-        if (!checkTagNumerIsUnique(e, message, ((OneOf) element).getElements())) {
-          return false;
-        }
-      } else if (element instanceof IndexedElement) {
-        IndexedElement other = (IndexedElement) element;
-        if (other == e) {
-          return true;
-        }
-        if (indexedElements.indexOf(other) == index) {
-          QualifiedName messageName = qualifiedNameProvider.getFullyQualifiedName(message);
-          String msg = format(fieldNumberAlreadyUsed, index, messageName.toString(), nameResolver.nameOf(other));
-          invalidTagNumberError(msg, e);
-          return false;
-        }
+  public void checkExtensionRangesDoNotOverlap(Extensions extensions) {
+    EObject type = typeContaining(extensions);
+    if (type == null) {
+      return;
+    }
+    ExtensionRangeIndex rangeIndex = extensionRanges.extensionRangeIndexOf(type);
+    for (Range range : extensions.getRanges()) {
+      Range other = rangeIndex.rangeOverlapping(range);
+      if (other != null) {
+        String msg = format(extensionRangesOverlap, extensionRanges.fromOf(range), extensionRanges.toOf(range),
+            extensionRanges.fromOf(other), extensionRanges.toOf(other));
+        error(msg, range, RANGE__FROM, INVALID_EXTENSION_RANGE_ERROR);
       }
     }
-    
-    return true;
   }
 
-  @Check public void checkTagNumberIsGreaterThanZero(IndexedElement e) {
+  public void checkExtensionFieldNumberIsDeclared(IndexedElement e) {
+    if (isNameNull(e)) {
+      return; // we already show an error if name is null, no need to go further.
+    }
+    EObject container = e.eContainer();
+    if (container instanceof OneOf) {
+      container = container.eContainer();
+    }
+    if (!(container instanceof TypeExtension)) {
+      return;
+    }
+    ExtensibleTypeLink link = ((TypeExtension) container).getType();
+    ExtensibleType extended = (link == null) ? null : link.getTarget();
+    if (extended == null || extended.eIsProxy()) {
+      return;
+    }
+    long index = indexedElements.indexOf(e);
+    if (index <= 0 || extensionRanges.extensionRangeIndexOf(extended).contains(index)) {
+      return;
+    }
+    QualifiedName typeName = qualifiedNameProvider.getFullyQualifiedName(extended);
+    invalidTagNumberError(format(extensionNumberNotDeclared, typeName.toString(), index), e);
+  }
+
+  // tag numbers are unique per message or group, including the members of the "oneof"s they contain.
+  private EObject typeContaining(EObject e) {
+    EObject container = e.eContainer();
+    if (container instanceof OneOf) {
+      container = container.eContainer();
+    }
+    return (container instanceof Message || container instanceof Group) ? container : null;
+  }
+
+  public void checkTagNumberIsGreaterThanZero(IndexedElement e) {
     if (isNameNull(e))
      {
       return; // we already show an error if name is null, no need to go further.
@@ -128,7 +354,7 @@ public class ProtobufJavaValidator extends AbstractProtobufJavaValidator {
     error(message, e, indexedElements.indexFeatureOf(e), INVALID_FIELD_TAG_NUMBER_ERROR);
   }
 
-  @Check public void checkOnlyOnePackageDefinition(Package aPackage) {
+  public void checkOnlyOnePackageDefinition(Package aPackage) {
     boolean firstFound = false;
     Protobuf root = (Protobuf) aPackage.eContainer();
     for (ProtobufElement e : root.getElements()) {